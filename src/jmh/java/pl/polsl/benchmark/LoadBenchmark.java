@@ -0,0 +1,77 @@
+package pl.polsl.benchmark;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polsl.model.InvalidMovieIdException;
+import pl.polsl.model.LoadMode;
+import pl.polsl.model.Model;
+
+/**
+ * Measures how long it takes to load a catalog into a {@link Model} with each {@link LoadMode}.
+ * 
+ * <p>The largest catalogs need a correspondingly large heap; select the catalogs to run with
+ * {@code -p catalog=bundled,100000}.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class LoadBenchmark {
+    /**
+     * The catalog to load: the bundled CSV file or a synthetic catalog with the given number of rows.
+     */
+    @Param({SyntheticCatalog.BUNDLED, "100000", "1000000", "10000000"})
+    public String catalog;
+    /**
+     * The strategy used to load the catalog.
+     */
+    @Param({"SERIAL", "PARALLEL", "MAPPED", "SNAPSHOT"})
+    public LoadMode loadMode;
+    /**
+     * The CSV file of the catalog.
+     */
+    private Path csvFile;
+    
+    /**
+     * Generates the catalog if needed and, for {@link LoadMode#SNAPSHOT}, creates its snapshot so that
+     * the measurement covers reading the snapshot only.
+     *
+     * @throws IOException if the catalog cannot be generated.
+     * @throws InvalidMovieIdException if the catalog cannot be loaded.
+     */
+    @Setup
+    public void setUp() throws IOException, InvalidMovieIdException {
+        csvFile = SyntheticCatalog.csvFile(catalog);
+        if (loadMode == LoadMode.SNAPSHOT) {
+            new Model(csvFile, LoadMode.SNAPSHOT);
+        }
+    }
+    
+    /**
+     * Loads the catalog.
+     *
+     * @return the loaded model.
+     * @throws InvalidMovieIdException if the catalog cannot be loaded.
+     */
+    @Benchmark
+    public Model loadMoviesFromCsv() throws InvalidMovieIdException {
+        return new Model(csvFile, loadMode);
+    }
+}
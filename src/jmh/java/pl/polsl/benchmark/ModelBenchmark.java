@@ -0,0 +1,225 @@
+package pl.polsl.benchmark;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import pl.polsl.model.GroupField;
+import pl.polsl.model.InvalidMovieIdException;
+import pl.polsl.model.LoadMode;
+import pl.polsl.model.Model;
+import pl.polsl.model.Metric;
+import pl.polsl.model.Movie;
+import pl.polsl.model.MovieColumns;
+import pl.polsl.model.MovieLookup;
+import pl.polsl.model.MovieQuery;
+import pl.polsl.model.MovieType;
+import pl.polsl.model.SortColumn;
+
+/**
+ * Measures the {@link Model} operations used by the application on a loaded catalog.
+ * 
+ * <p>Point operations ({@code getMovieById}, {@code getReleaseDateDifference}) cycle through
+ * precomputed random inputs and are reported as time per call; whole-catalog operations are
+ * reported as time per pass over the catalog.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+@State(Scope.Benchmark)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ModelBenchmark {
+    /**
+     * Number of precomputed random inputs of the point operations.
+     */
+    private static final int INPUTS = 1 << 16;
+    /**
+     * The catalog to load: the bundled CSV file or a synthetic catalog with the given number of rows.
+     */
+    @Param({SyntheticCatalog.BUNDLED, "100000", "1000000", "10000000"})
+    public String catalog;
+    /**
+     * The loaded catalog.
+     */
+    private Model model;
+    /**
+     * Random show IDs present in the catalog.
+     */
+    private String[] ids;
+    /**
+     * Random movies of the catalog.
+     */
+    private Movie[] movies;
+    /**
+     * The random show IDs as a list, for the bulk lookup.
+     */
+    private List<String> idList;
+    /**
+     * Movies found by the bulk lookup; reused by every call.
+     */
+    private final Movie[] foundMovies = new Movie[INPUTS];
+    /**
+     * Outcomes of the bulk lookup; reused by every call.
+     */
+    private final MovieLookup.Status[] statuses = new MovieLookup.Status[INPUTS];
+    /**
+     * Position of the next input of the point operations.
+     */
+    private int next;
+    /**
+     * Direction of the next sort; alternated so that every sort changes the displayed order.
+     */
+    private boolean ascending;
+    
+    /**
+     * Loads the catalog and prepares the random inputs.
+     *
+     * @throws IOException if the catalog cannot be generated.
+     * @throws InvalidMovieIdException if the catalog cannot be loaded.
+     */
+    @Setup
+    public void setUp() throws IOException, InvalidMovieIdException {
+        model = new Model(SyntheticCatalog.csvFile(catalog), LoadMode.PARALLEL);
+        List<Movie> all = model.getMovies();
+        Random random = new Random(42);
+        ids = new String[INPUTS];
+        movies = new Movie[INPUTS];
+        for (int i = 0; i < INPUTS; i++) {
+            movies[i] = all.get(random.nextInt(all.size()));
+            ids[i] = movies[i].showId();
+        }
+        idList = Arrays.asList(ids);
+    }
+    
+    /**
+     * Looks up one movie by its ID.
+     *
+     * @return the movie found.
+     * @throws InvalidMovieIdException if the ID is invalid.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public Movie getMovieById() throws InvalidMovieIdException {
+        return model.getMovieById(ids[next++ & (INPUTS - 1)]);
+    }
+    
+    /**
+     * Computes the release date difference of one movie.
+     *
+     * @return the difference in days.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.NANOSECONDS)
+    public long getReleaseDateDifference() {
+        return movies[next++ & (INPUTS - 1)].getReleaseDateDifference();
+    }
+    
+    /**
+     * Sorts the whole catalog by date added, alternating the direction between calls. After the first
+     * call the order is served from the cached permutation.
+     *
+     * @return the size of the sorted catalog.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int sortMoviesByDateAdded() {
+        ascending = !ascending;
+        model.sortMoviesByDateAdded(ascending);
+        return model.getMovieCount();
+    }
+    
+    /**
+     * Computes the sort order of the whole catalog by title from scratch, as on the first sort after
+     * the catalog has changed.
+     *
+     * @return the size of the sort order.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int buildTitleSortOrder() {
+        return new MovieColumns(model.getMovies()).getSortOrder(SortColumn.TITLE).size();
+    }
+    
+    /**
+     * Finds the country with the most movies.
+     *
+     * @return the most common country.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public String getCountryWithMostMovies() {
+        return model.getCountryWithMostMovies();
+    }
+    
+    /**
+     * Searches the catalog for the title words of one movie.
+     *
+     * @return the number of movies found.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public int search() {
+        return model.search(movies[next++ & (INPUTS - 1)].title()).size();
+    }
+    
+    /**
+     * Computes the number, mean and 90th percentile of the movie durations of every genre.
+     *
+     * @return the number of genres.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public int queryDurationsByGenre() {
+        return model.query(MovieQuery.groupBy(GroupField.GENRE)
+                .where(MovieQuery.typeIs(MovieType.MOVIE))
+                .aggregate(MovieQuery.Aggregate.count(), MovieQuery.Aggregate.avg(Metric.DURATION_MINUTES),
+                        MovieQuery.Aggregate.percentile(Metric.DURATION_MINUTES, 90)))
+                .rows().size();
+    }
+    
+    /**
+     * Looks up all random IDs at once into reused buffers.
+     *
+     * @return the last movie found.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Movie getMoviesByIds() {
+        model.getMoviesByIds(idList, foundMovies, statuses);
+        return foundMovies[INPUTS - 1];
+    }
+    
+    /**
+     * Formats the release date differences of the whole catalog.
+     *
+     * @return the formatted differences.
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.AverageTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<String> getMoviesWithReleaseDifferences() {
+        return model.getMoviesWithReleaseDifferences();
+    }
+}
@@ -0,0 +1,131 @@
+package pl.polsl.benchmark;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import pl.polsl.model.MovieCsvReader;
+
+/**
+ * Provides the CSV files used by the benchmarks: the bundled catalog and synthetic catalogs of a
+ * given number of rows.
+ * 
+ * <p>Synthetic catalogs repeat the records of the bundled file with fresh, consecutive show IDs,
+ * so they keep its distribution of values and row lengths. Generated files are cached in the
+ * temporary directory and reused by later runs.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class SyntheticCatalog {
+    /**
+     * Name of the catalog parameter value selecting the bundled CSV file.
+     */
+    public static final String BUNDLED = "bundled";
+    
+    /**
+     * Prevents instantiation; all functionality is provided by static methods.
+     */
+    private SyntheticCatalog() {
+    }
+    
+    /**
+     * Returns the CSV file of a benchmark catalog, generating it if necessary.
+     *
+     * @param catalog {@link #BUNDLED} or the number of rows of a synthetic catalog.
+     * @return the path of the CSV file.
+     * @throws IOException if the file cannot be read or generated.
+     */
+    public static Path csvFile(String catalog) throws IOException {
+        Path directory = Path.of(System.getProperty("java.io.tmpdir"), "netflix-analyzer-benchmark");
+        Files.createDirectories(directory);
+        byte[] bundled = readBundled();
+        if (BUNDLED.equals(catalog)) {
+            Path file = directory.resolve(MovieCsvReader.DEFAULT_RESOURCE);
+            if (!Files.exists(file) || Files.size(file) != bundled.length) {
+                Files.write(file, bundled);
+            }
+            return file;
+        }
+        int rows = Integer.parseInt(catalog);
+        Path file = directory.resolve("titles-" + rows + ".csv");
+        if (!Files.exists(file)) {
+            Path tempFile = Files.createTempFile(directory, "titles-" + rows, ".tmp");
+            generate(bundled, rows, tempFile);
+            Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        return file;
+    }
+    
+    /**
+     * Writes a synthetic catalog by cycling through the records of the bundled file.
+     *
+     * @param bundled the content of the bundled CSV file.
+     * @param rows the number of rows to write.
+     * @param file the file to write.
+     * @throws IOException if the file cannot be written.
+     */
+    private static void generate(byte[] bundled, int rows, Path file) throws IOException {
+        List<int[]> records = splitRecords(bundled);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file), 1 << 20)) {
+            int[] header = records.get(0);
+            out.write(bundled, header[0], header[1] - header[0]);
+            for (int row = 0; row < rows; row++) {
+                int[] record = records.get(1 + row % (records.size() - 1));
+                // Replace the show ID (the bytes before the first comma) with a new one.
+                int idEnd = record[0];
+                while (bundled[idEnd] != ',') {
+                    idEnd++;
+                }
+                out.write(("s" + (row + 1)).getBytes(StandardCharsets.US_ASCII));
+                out.write(bundled, idEnd, record[1] - idEnd);
+            }
+        }
+    }
+    
+    /**
+     * Splits CSV content into records, treating line breaks inside quotes as part of a field.
+     *
+     * @param data the CSV content.
+     * @return the start and end offsets of each record, including its trailing line break.
+     */
+    private static List<int[]> splitRecords(byte[] data) {
+        List<int[]> records = new ArrayList<>();
+        boolean inQuotes = false;
+        int start = 0;
+        for (int i = 0; i < data.length; i++) {
+            if (data[i] == '"') {
+                inQuotes = !inQuotes;
+            } else if (data[i] == '\n' && !inQuotes) {
+                records.add(new int[]{start, i + 1});
+                start = i + 1;
+            }
+        }
+        if (start < data.length) {
+            records.add(new int[]{start, data.length});
+        }
+        return records;
+    }
+    
+    /**
+     * Reads the content of the bundled CSV file.
+     *
+     * @return the bytes of the bundled CSV file.
+     * @throws IOException if the resource cannot be read.
+     */
+    private static byte[] readBundled() throws IOException {
+        try (InputStream inputStream = SyntheticCatalog.class.getClassLoader()
+                .getResourceAsStream(MovieCsvReader.DEFAULT_RESOURCE)) {
+            if (inputStream == null) {
+                throw new IOException("CSV file not found.");
+            }
+            return inputStream.readAllBytes();
+        }
+    }
+}
@@ -0,0 +1,487 @@
+package pl.polsl.controller;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import pl.polsl.model.*;
+
+/**
+ * Headless front end that loads the catalog and runs analytics requested on the command line, writing
+ * the results as tab-separated text to the standard output or a file. It does not use the view, so
+ * no AWT or Swing resources are initialized and it can run on servers and in scheduled jobs.
+ *
+ * <p>The command line consists of options followed by commands run in order:</p>
+ * <pre>
+ * --batch [--csv &lt;file&gt;] [--load serial|parallel|mapped|snapshot] [--delta &lt;file&gt;] [--out &lt;file&gt;]
+ *         &lt;command&gt;...
+ * </pre>
+ * <ul>
+ *   <li>{@code lookup <id>...} - the title and release date difference of each movie ID,</li>
+ *   <li>{@code lookup-file <file>} - the same for the movie IDs of a file, one per line,
+ *       or of the standard input if the file is {@code -},</li>
+ *   <li>{@code country} - the country with the most movies,</li>
+ *   <li>{@code top-countries <k>} - the {@code k} countries with the most movies,</li>
+ *   <li>{@code durations} - the duration statistics of movies and TV shows per country,</li>
+ *   <li>{@code differences} - the release date difference of every movie,</li>
+ *   <li>{@code sort <column> [asc|desc]} - the movies sorted by a {@link SortColumn}, e.g. {@code date_added}.</li>
+ * </ul>
+ * <p>Each command writes a header line with the names of its columns, followed by one line per result
+ * in which tabs and line breaks of the values are replaced with spaces;
+ * the outputs of consecutive commands are separated by an empty line. Output is buffered, so a command
+ * producing millions of lines does not pay for a system call per line.</p>
+ *
+ * <p>The catalog is read with {@link LoadMode#MAPPED} unless {@code --load} selects another mode. None of
+ * the commands runs the queries of an {@link OptionalIndex}, so the model is created without them.</p>
+ *
+ * <p>Movie IDs are resolved in batches of up to {@value #LOOKUP_BATCH_SIZE} with
+ * {@link Model#getMoviesByIds(List, Movie[], MovieLookup.Status[])}, in parallel and into buffers reused
+ * from one batch to the next, so that a file of millions of IDs is streamed in constant memory.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class BatchController {
+
+    /**
+     * Command-line option selecting the headless batch mode.
+     */
+    public static final String BATCH_OPTION = "--batch";
+    /**
+     * Usage of the batch mode, printed when the command line is invalid.
+     */
+    public static final String USAGE = "Usage: --batch [--csv <file>] [--load serial|parallel|mapped|snapshot]"
+            + " [--delta <file>] [--out <file>] <command>...\n"
+            + "Commands: lookup <id>..., lookup-file <file|->, country, top-countries <k>, durations,"
+            + " differences, sort <column> [asc|desc]";
+    /**
+     * Size of the output buffer in characters.
+     */
+    private static final int OUTPUT_BUFFER_SIZE = 1 << 16;
+    /**
+     * Maximum number of movie IDs resolved at once.
+     */
+    private static final int LOOKUP_BATCH_SIZE = 1 << 16;
+    /**
+     * Names of the commands, which end the argument list of the previous command.
+     */
+    private static final Set<String> COMMANDS = Set.of("lookup", "lookup-file", "country", "top-countries",
+            "durations", "differences", "sort");
+    /**
+     * The model the commands are run on.
+     */
+    private final Model model;
+    /**
+     * Destination of the results.
+     */
+    private final Writer out;
+    /**
+     * Whether a command has written its output yet.
+     */
+    private boolean written;
+    /**
+     * Movie IDs read but not resolved yet; reused by every batch.
+     */
+    private final List<String> pendingIds = new ArrayList<>();
+    /**
+     * Movies found for the current batch; allocated on the first lookup and reused.
+     */
+    private Movie[] foundMovies;
+    /**
+     * Outcomes of the lookups of the current batch; allocated on the first lookup and reused.
+     */
+    private MovieLookup.Status[] statuses;
+
+    /**
+     * Constructs a batch controller running commands on a loaded model.
+     *
+     * @param model the model the commands are run on.
+     * @param out the destination of the results; flushed by {@link #execute(List)}.
+     */
+    public BatchController(Model model, Writer out) {
+        this.model = model;
+        this.out = out;
+    }
+
+    /**
+     * Tells whether the application should run in batch mode: if it is requested with
+     * {@value #BATCH_OPTION}, or if the JVM runs with {@code java.awt.headless=true}. The system
+     * property is read directly, so the decision does not initialize AWT.
+     *
+     * @param args the command-line arguments.
+     * @return {@code true} for the batch mode, {@code false} for the graphical user interface.
+     */
+    public static boolean isBatch(String[] args) {
+        return Arrays.asList(args).contains(BATCH_OPTION) || Boolean.getBoolean("java.awt.headless");
+    }
+
+    /**
+     * Runs the batch mode: parses the options, loads the catalog, applies the delta file if any and runs
+     * the commands. Progress and errors are reported to {@code err}.
+     *
+     * @param args the command-line arguments, with or without {@value #BATCH_OPTION}.
+     * @param stdout the standard output, used unless {@code --out} is given.
+     * @param err the destination of progress and error messages.
+     * @return the exit status: {@code 0} on success, {@code 1} if the catalog, a delta or an input file
+     *         cannot be read or the output cannot be written, {@code 2} if the command line is invalid.
+     */
+    public static int run(String[] args, PrintStream stdout, PrintStream err) {
+        Path csvFile = null;
+        LoadMode loadMode = LoadMode.MAPPED;
+        Path deltaFile = null;
+        Path outFile = null;
+        List<String> commands = new ArrayList<>();
+        try {
+            for (int i = 0; i < args.length; i++) {
+                switch (args[i]) {
+                    case BATCH_OPTION -> { }
+                    case "--csv" -> csvFile = Path.of(argument(args, ++i));
+                    case "--load" -> loadMode = LoadMode.valueOf(argument(args, ++i).toUpperCase(Locale.ROOT));
+                    case Controller.DELTA_OPTION -> deltaFile = Path.of(argument(args, ++i));
+                    case "--out" -> outFile = Path.of(argument(args, ++i));
+                    default -> commands.add(args[i]);
+                }
+            }
+            if (commands.isEmpty()) {
+                throw new IllegalArgumentException("No command given.");
+            }
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        }
+
+        try {
+            long start = System.nanoTime();
+            Model model = new Model(csvFile, loadMode, EnumSet.noneOf(OptionalIndex.class));
+            err.println("Loaded " + model.getMovieCount() + " movies in " + (System.nanoTime() - start) / 1_000_000 + " ms.");
+            if (deltaFile != null) {
+                err.println("Applied " + deltaFile.getFileName() + ": " + model.applyDelta(CatalogDelta.read(deltaFile)).summary() + ".");
+            }
+            OutputStream stream = outFile != null ? Files.newOutputStream(outFile) : stdout;
+            Writer out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), OUTPUT_BUFFER_SIZE);
+            try {
+                new BatchController(model, out).execute(commands);
+            } finally {
+                if (outFile != null) {
+                    out.close();
+                }
+            }
+            return 0;
+        } catch (IllegalArgumentException e) {
+            err.println(e.getMessage());
+            err.println(USAGE);
+            return 2;
+        } catch (InvalidMovieIdException | IOException e) {
+            err.println("Error: " + e.getMessage());
+            return 1;
+        }
+    }
+
+    /**
+     * Returns the value of an option.
+     *
+     * @param args the command-line arguments.
+     * @param index the index of the value.
+     * @return the value.
+     * @throws IllegalArgumentException if the option has no value.
+     */
+    private static String argument(String[] args, int index) {
+        if (index >= args.length) {
+            throw new IllegalArgumentException("Missing value of " + args[index - 1] + ".");
+        }
+        return args[index];
+    }
+
+    /**
+     * Runs commands in order and flushes their output.
+     *
+     * @param commands the commands with their arguments, as on the command line.
+     * @throws IllegalArgumentException if a command is unknown or has invalid arguments.
+     * @throws InvalidMovieIdException if an input file cannot be read.
+     * @throws IOException if the output cannot be written.
+     */
+    public void execute(List<String> commands) throws InvalidMovieIdException, IOException {
+        int i = 0;
+        while (i < commands.size()) {
+            String command = commands.get(i++);
+            int end = i;
+            while (end < commands.size() && !COMMANDS.contains(commands.get(end))) {
+                end++;
+            }
+            List<String> arguments = commands.subList(i, end);
+            i = end;
+            switch (command) {
+                case "lookup" -> lookup(arguments);
+                case "lookup-file" -> lookupFile(single(command, arguments));
+                case "country" -> country();
+                case "top-countries" -> topCountries(Integer.parseInt(single(command, arguments)));
+                case "durations" -> durations();
+                case "differences" -> differences();
+                case "sort" -> sort(arguments);
+                default -> throw new IllegalArgumentException("Unknown command: " + command);
+            }
+        }
+        out.flush();
+    }
+
+    /**
+     * Returns the only argument of a command.
+     *
+     * @param command the name of the command.
+     * @param arguments the arguments of the command.
+     * @return the argument.
+     * @throws IllegalArgumentException if the command does not have exactly one argument.
+     */
+    private static String single(String command, List<String> arguments) {
+        if (arguments.size() != 1) {
+            throw new IllegalArgumentException(command + " expects one argument.");
+        }
+        return arguments.get(0);
+    }
+
+    /**
+     * Starts the output of a command with the names of its columns.
+     *
+     * @param columns the names of the columns.
+     * @throws IOException if the output cannot be written.
+     */
+    private void header(String... columns) throws IOException {
+        if (written) {
+            out.write('\n');
+        }
+        written = true;
+        row((Object[]) columns);
+    }
+
+    /**
+     * Writes a tab-separated line.
+     *
+     * @param fields the fields of the line.
+     * @throws IOException if the output cannot be written.
+     */
+    private void row(Object... fields) throws IOException {
+        for (int i = 0; i < fields.length; i++) {
+            if (i > 0) {
+                out.write('\t');
+            }
+            out.write(field(String.valueOf(fields[i])));
+        }
+        out.write('\n');
+    }
+
+    /**
+     * Replaces the tabs and line breaks of a field, which would split it in the tab-separated output,
+     * with spaces.
+     *
+     * @param value the value of the field.
+     * @return the value without tabs and line breaks.
+     */
+    private static String field(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '\t' || c == '\n' || c == '\r') {
+                return value.replaceAll("[\t\r\n]", " ");
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Formats a release date difference, leaving unknown differences empty.
+     *
+     * @param difference the difference in days, or {@code Long.MAX_VALUE} if unknown.
+     * @return the formatted difference.
+     */
+    private static String formatDifference(long difference) {
+        return difference == Long.MAX_VALUE ? "" : Long.toString(difference);
+    }
+
+    /**
+     * Looks up movie IDs and writes the title and release date difference of each one.
+     *
+     * @param ids the movie IDs.
+     * @throws IOException if the output cannot be written.
+     */
+    private void lookup(List<String> ids) throws IOException {
+        header("id", "status", "title", "days");
+        for (String id : ids) {
+            addLookup(id);
+        }
+        resolvePendingIds();
+    }
+
+    /**
+     * Looks up the movie IDs of a file, one per line, and writes the title and release date difference
+     * of each one. The file is streamed, so it may hold more IDs than fit in memory.
+     *
+     * @param file the path of the file, or {@code -} for the standard input.
+     * @throws InvalidMovieIdException if the file cannot be read.
+     * @throws IOException if the output cannot be written.
+     */
+    private void lookupFile(String file) throws InvalidMovieIdException, IOException {
+        header("id", "status", "title", "days");
+        BufferedReader reader;
+        try {
+            reader = file.equals("-")
+                    ? new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8))
+                    : Files.newBufferedReader(Path.of(file), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the ID file: " + e.getMessage());
+        }
+        try (reader) {
+            String id;
+            while ((id = readId(reader)) != null) {
+                if (!id.isBlank()) {
+                    addLookup(id.trim());
+                }
+            }
+        }
+        resolvePendingIds();
+    }
+
+    /**
+     * Reads the next line of an ID file.
+     *
+     * @param reader the ID file.
+     * @return the next line, or {@code null} at the end of the file.
+     * @throws InvalidMovieIdException if the file cannot be read.
+     */
+    private static String readId(BufferedReader reader) throws InvalidMovieIdException {
+        try {
+            return reader.readLine();
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the ID file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Queues a movie ID for lookup, resolving the queued IDs once a batch is full.
+     *
+     * @param id the movie ID.
+     * @throws IOException if the output cannot be written.
+     */
+    private void addLookup(String id) throws IOException {
+        pendingIds.add(id);
+        if (pendingIds.size() == LOOKUP_BATCH_SIZE) {
+            resolvePendingIds();
+        }
+    }
+
+    /**
+     * Resolves the queued movie IDs and writes one line per ID, in the order they were queued.
+     *
+     * @throws IOException if the output cannot be written.
+     */
+    private void resolvePendingIds() throws IOException {
+        if (foundMovies == null) {
+            foundMovies = new Movie[LOOKUP_BATCH_SIZE];
+            statuses = new MovieLookup.Status[LOOKUP_BATCH_SIZE];
+        }
+        model.getMoviesByIds(pendingIds, foundMovies, statuses);
+        for (int i = 0; i < pendingIds.size(); i++) {
+            Movie movie = foundMovies[i];
+            out.write(field(pendingIds.get(i)));
+            out.write('\t');
+            out.write(statuses[i].name());
+            out.write('\t');
+            if (movie != null) {
+                out.write(field(movie.title()));
+                out.write('\t');
+                out.write(formatDifference(movie.getReleaseDateDifference()));
+            } else {
+                out.write('\t');
+            }
+            out.write('\n');
+        }
+        pendingIds.clear();
+    }
+
+    /**
+     * Writes the country with the most movies.
+     *
+     * @throws IOException if the output cannot be written.
+     */
+    private void country() throws IOException {
+        header("country");
+        row(model.getCountryWithMostMovies());
+    }
+
+    /**
+     * Writes the countries with the most movies.
+     *
+     * @param k the maximum number of countries.
+     * @throws IOException if the output cannot be written.
+     */
+    private void topCountries(int k) throws IOException {
+        header("country", "count");
+        for (CountryCounter.CountryCount country : model.getTopCountries(k)) {
+            row(country.country(), country.count());
+        }
+    }
+
+    /**
+     * Writes the duration statistics of movies and TV shows per country.
+     *
+     * @throws IOException if the output cannot be written.
+     */
+    private void durations() throws IOException {
+        header("country", "type", "count", "mean", "min", "max");
+        for (MovieType type : MovieType.values()) {
+            for (DurationStatistics.CountryDuration duration : model.getDurationsByCountry(type)) {
+                row(duration.country(), type, duration.count(), String.format(Locale.ROOT, "%.1f", duration.mean()),
+                        duration.min(), duration.max());
+            }
+        }
+    }
+
+    /**
+     * Writes the release date difference of every movie, read from the cached difference column.
+     *
+     * @throws IOException if the output cannot be written.
+     */
+    private void differences() throws IOException {
+        header("id", "title", "days");
+        CatalogVersion version = model.getVersion();
+        List<Movie> movies = version.getMovies();
+        long[] differences = version.getColumns().getReleaseDifferences();
+        for (int row = 0; row < differences.length; row++) {
+            row(movies.get(row).showId(), movies.get(row).title(), formatDifference(differences[row]));
+        }
+    }
+
+    /**
+     * Sorts the movies and writes them in the sorted order.
+     *
+     * @param arguments the column, e.g. {@code date_added}, optionally followed by {@code asc} or {@code desc}.
+     * @throws IOException if the output cannot be written.
+     */
+    private void sort(List<String> arguments) throws IOException {
+        if (arguments.isEmpty() || arguments.size() > 2
+                || arguments.size() == 2 && !arguments.get(1).matches("(?i)asc|desc")) {
+            throw new IllegalArgumentException("sort expects a column and an optional asc or desc.");
+        }
+        SortColumn column = SortColumn.valueOf(arguments.get(0).toUpperCase(Locale.ROOT).replace('-', '_'));
+        model.sortMovies(column, arguments.size() == 1 || arguments.get(1).equalsIgnoreCase("asc"));
+        header("id", "title", "director", "country", "date_added", "release_year", "duration");
+        CatalogVersion version = model.getVersion();
+        for (int position = 0; position < version.size(); position++) {
+            Movie movie = version.getMovieAt(position);
+            row(movie.showId(), movie.title(), movie.director(), movie.country(), movie.dateAdded(),
+                    movie.releaseYear(), movie.duration());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package pl.polsl.controller;
+
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import javax.swing.SwingWorker;
+import pl.polsl.model.*;
+import pl.polsl.view.*;
+
+/**
+ * Background task that reads the movie catalog off the Event Dispatch Thread and streams it into the
+ * {@link Model} and {@link View} in batches.
+ * 
+ * <p>Each batch is appended to the model and registered in its indexes by the background thread, and the
+ * model announces only the new rows to the table, so the first movies are displayed and can be used
+ * while the rest of the catalog is still being read. The Event Dispatch Thread only reports the
+ * progress. Loading errors are shown in the status bar of the view instead of a blocking dialog.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class CatalogLoader extends SwingWorker<Void, Integer> {
+    /** 
+     * Number of movies appended to the model at once. 
+     */
+    private static final int BATCH_SIZE = 500;
+    /** 
+     * The model receiving the loaded movies. 
+     */
+    private final Model model;
+    /** 
+     * The view displaying the loaded movies and the loading progress. 
+     */
+    private final View view;
+    /** 
+     * Action run on the Event Dispatch Thread once the whole catalog has been loaded. 
+     */
+    private final Runnable onLoaded;
+    
+    /**
+     * Constructs a loader filling the given model and view.
+     *
+     * @param model the model receiving the loaded movies.
+     * @param view the view displaying the loaded movies and the loading progress.
+     * @param onLoaded action run on the Event Dispatch Thread once the whole catalog has been loaded.
+     */
+    public CatalogLoader(Model model, View view, Runnable onLoaded) {
+        this.model = model;
+        this.view = view;
+        this.onLoaded = onLoaded;
+    }
+    
+    /**
+     * Reads the catalog in batches, appends them to the model and publishes the number of loaded movies
+     * to the Event Dispatch Thread.
+     *
+     * @return nothing.
+     * @throws InvalidMovieIdException if the catalog cannot be read.
+     */
+    @Override
+    protected Void doInBackground() throws InvalidMovieIdException {
+        model.readCatalogInBatches(null, BATCH_SIZE, (batch, progress) -> {
+            model.addMovies(batch);
+            setProgress(progress);
+            publish(model.getMovieCount());
+        });
+        return null;
+    }
+    
+    /**
+     * Updates the loading progress.
+     *
+     * @param counts the numbers of loaded movies published since the last call, in order.
+     */
+    @Override
+    protected void process(List<Integer> counts) {
+        view.setLoadProgress(getProgress());
+        view.setStatus("Loading movies... " + counts.get(counts.size() - 1) + " loaded.");
+    }
+    
+    /**
+     * Reports the outcome of loading in the status bar and runs the completion action.
+     */
+    @Override
+    protected void done() {
+        try {
+            get();
+            view.setLoadProgress(100);
+            view.setStatus("Loaded " + model.getMovies().size() + " movies.");
+            onLoaded.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            view.setLoadProgress(100);
+            view.setStatus("Error loading model: " + e.getCause().getMessage());
+        }
+    }
+}
@@ -2,11 +2,13 @@ package pl.polsl.controller;
 
 import java.awt.event.ActionEvent;
 import java.awt.event.KeyEvent;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
 import pl.polsl.view.*;
 import pl.polsl.model.*;
 import javax.swing.AbstractAction;
 import javax.swing.JComponent;
-import javax.swing.JOptionPane;
 import javax.swing.KeyStroke;
 
 /**
@@ -16,16 +18,28 @@ import javax.swing.KeyStroke;
  * <p>Responsibilities include:</p>
  * <ul>
  *   <li>Setting up the initial view state based on command-line arguments, if provided.</li>
+ *   <li>Applying a delta file given on the command line once the catalog is loaded.</li>
+ *   <li>Keeping the displayed aggregates up to date with the {@link CatalogChange}s of the model.</li>
  *   <li>Handling events triggered by the view's buttons to display the country with the most movies 
  *       and calculate the date difference for specific movies.</li>
  *   <li>Configuring keyboard shortcuts for actions.</li>
  * </ul>
  * 
+ * <p>Model operations triggered by the user are run by a {@link ModelTaskExecutor}, so the Event
+ * Dispatch Thread stays responsive; their results are applied to the view on the Event Dispatch Thread.
+ * Every change of the model, i.e. loading, sorting and applying deltas, is made by a background thread,
+ * and the Event Dispatch Thread only reads the published {@link CatalogVersion} of the model, which
+ * takes no lock, so it never waits for a query or a change running in the background.</p>
+ * 
  * @author Karolina Suska
  * @version 3.1
  */
 public class Controller  {
     
+    /** 
+     * Command-line option followed by the path of a delta file to apply once the catalog is loaded.
+     */
+    public static final String DELTA_OPTION = "--delta";
     /** 
      * The model instance containing application data and business logic. 
      */
@@ -34,33 +48,96 @@ public class Controller  {
      * The view instance responsible for displaying the GUI. 
      */
     private View view;
+    /** 
+     * Runs the model operations requested through the view in the background. 
+     */
+    private final ModelTaskExecutor tasks = new ModelTaskExecutor();
+    /** 
+     * Whether the country with the most movies has been requested, so that it is kept up to date. 
+     */
+    private boolean countryShown;
+    /** 
+     * Number of sort requests so far, written on the Event Dispatch Thread; a sort task applies its
+     * order only if no newer request has been made. 
+     */
+    private volatile int sortRequest;
+    /** 
+     * Held by a sort task while it checks that it is the newest request and applies its order. 
+     */
+    private final Object sortLock = new Object();
     
     /**
      * Constructs a {@code Controller} instance, initializes the model and view, and handles initial setup.
+     * The view is shown immediately with an empty model, and the catalog is loaded in the background
+     * by a {@link CatalogLoader}, which adds the movies to the table as they are read.
      * If a movie ID is provided as a command-line argument, attempts to retrieve the movie and calculate 
-     * the difference in days between its release date and the date added.
+     * the difference in days between its release date and the date added once the catalog is loaded.
+     * If a delta file is provided with {@value #DELTA_OPTION}, it is applied to the loaded catalog first.
      * 
-     * @param args an array of command-line arguments, where the first argument is a movie ID.
+     * @param args an array of command-line arguments: an optional {@value #DELTA_OPTION} option followed
+     *             by the path of a delta file, and one or more movie IDs.
      */
     public Controller(String[] args) {
-        try {
-            this.model = new Model(); 
-        } catch (InvalidMovieIdException e) {
-            JOptionPane.showMessageDialog(null, "Error loading model: " + e.getMessage());
-            this.model = null; 
-            return; 
-        }
+        this.model = new Model(List.of());
         this.view = new View(model);
         this.viewEvent();
+        model.getSwingPropChangeFirer().addPropertyChangeListener(Model.CATALOG,
+                new CatalogChangeCoalescer(this::catalogChanged));
         
-        if (args.length > 0) {
-            String movieId = args[0];
-            view.setMovieIdInput(movieId);
-            handleMovieIdInput(movieId);
-            
-        } else {
-            JOptionPane.showMessageDialog(view.getFrame(), "No Movie ID provided.");
+        Path deltaFile = null;
+        List<String> movieIds = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            if (args[i].equals(DELTA_OPTION) && i + 1 < args.length) {
+                deltaFile = Path.of(args[++i]);
+            } else {
+                movieIds.add(args[i]);
+            }
         }
+        Path delta = deltaFile;
+        if (!movieIds.isEmpty()) {
+            view.setMovieIdInput(String.join(", ", movieIds));
+        }
+        Runnable showInitialMovie = () -> {
+            if (!movieIds.isEmpty()) {
+                handleMovieIdInput(String.join(", ", movieIds));
+            } else {
+                view.setDifferenceArea("No Movie ID provided.");
+            }
+        };
+        new CatalogLoader(model, view, () -> {
+            if (delta != null) {
+                applyDelta(delta, showInitialMovie);
+                return;
+            }
+            if (model.getSortColumn() != null) {
+                // Movies loaded after the last sort are displayed unsorted at the end until sorted again.
+                sortMovies(model.getSortColumn(), model.isSortAscending());
+            }
+            showInitialMovie.run();
+        }).execute();
+    }
+    
+    /**
+     * Reads a delta file and applies it to the catalog in the background, then sorts the movies again,
+     * as updated movies keep their positions and a delta with deletions resets the order. The table
+     * follows the published version of the model; the Event Dispatch Thread only reports the result.
+     *
+     * @param deltaFile the path of the delta file.
+     * @param then runs on the Event Dispatch Thread once the delta is applied.
+     */
+    private void applyDelta(Path deltaFile, Runnable then) {
+        SortColumn column = model.getSortColumn();
+        boolean ascending = model.isSortAscending();
+        tasks.submit("delta", () -> model.applyDelta(CatalogDelta.read(deltaFile)), result -> {
+            view.setStatus("Applied " + deltaFile.getFileName() + ": " + result.summary() + ".");
+            if (column != null) {
+                sortMovies(column, ascending);
+            }
+            then.run();
+        }, e -> {
+            showTaskError(e);
+            then.run();
+        });
     }
     
     /**
@@ -68,60 +145,205 @@ public class Controller  {
      * <ul>
      *   <li>Configures the {@code showCountryButton} to display the country with the most movies
      *       when clicked.</li>
+     *   <li>Configures the {@code durationButton} to display the average duration of movies and
+     *       TV shows by country.</li>
      *   <li>Configures the {@code calculateDateDiffButton} to calculate the release date difference
      *       based on the entered movie ID.</li>
+     *   <li>Configures the {@code showAllDifferencesButton} to list the release date differences of
+     *       all movies.</li>
+     *   <li>Configures the {@code sortButton} to sort the movies by the selected column.</li>
+     *   <li>Configures the {@code searchButton} to search the movies, and the search results to
+     *       calculate the release date difference of the selected movie.</li>
      * </ul>
      * <p>If the movie ID entered is invalid or empty, displays an error message in a dialog box.</p>
      */
     private void viewEvent(){
-        view.showCountryButton.addActionListener(arg0 -> {
-           String countryWithMostMovies = model.getCountryWithMostMovies();
-           view.updateCountryLabel(countryWithMostMovies);
-        });
+        view.showCountryButton.addActionListener(arg0 -> showCountryWithMostMovies());
+        
+        view.durationButton.addActionListener(e -> showDurationsByCountry());
         
         view.calculateDateDiffButton.addActionListener(arg0 -> {
             String movieId = view.getMovieIdInput();
             handleMovieIdInput(movieId);
         });
         
-        view.sortByDateButton.addActionListener(e -> {
-        String selectedOrder = (String) view.sortOrderComboBox.getSelectedItem();
-        boolean ascending = selectedOrder.equals("Ascending");
-
-        // Wywołanie metody sortującej w modelu
-        model.sortMoviesByDateAdded(ascending);
-
-        // Odświeżenie tabeli
-        view.displayMovies();
-});
+        view.showAllDifferencesButton.addActionListener(e -> showAllReleaseDifferences());
+        
+        view.sortButton.addActionListener(e -> sortMovies());
+        
+        view.searchButton.addActionListener(e -> searchMovies(view.getSearchInput()));
+        
+        view.searchResultsList.addListSelectionListener(e -> {
+            Movie movie = view.getSelectedSearchResult();
+            if (!e.getValueIsAdjusting() && movie != null) {
+                view.setMovieIdInput(movie.showId());
+                handleMovieIdInput(movie.showId());
+            }
+        });
         
         setKeyboardShortcuts();
     }
     
     
+    /**
+     * Updates the aggregates displayed in the view after the content of the catalog has changed.
+     * Changes are merged while the Event Dispatch Thread is busy, and a new lookup supersedes one that
+     * has not finished yet, so a bulk load only triggers a few lookups.
+     *
+     * @param change the change of the catalog, possibly merged from several changes.
+     */
+    private void catalogChanged(CatalogChange change) {
+        if (change.invalidatesAggregates() && countryShown) {
+            showCountryWithMostMovies();
+        }
+    }
+    
+    /**
+     * Looks up the country with the most movies in the background and displays it in the view.
+     * Once displayed, the country is updated whenever the catalog changes.
+     */
+    private void showCountryWithMostMovies() {
+        countryShown = true;
+        tasks.submit("country", model::getCountryWithMostMovies, view::updateCountryLabel, this::showTaskError);
+    }
+    
+    /**
+     * Collects the duration statistics of movies and TV shows per country in the background and
+     * displays them in the view.
+     */
+    private void showDurationsByCountry() {
+        tasks.submit("duration", () -> {
+            List<DurationStatistics.CountryDuration> durations = new ArrayList<>();
+            durations.addAll(model.getDurationsByCountry(MovieType.MOVIE));
+            durations.addAll(model.getDurationsByCountry(MovieType.TV_SHOW));
+            return durations;
+        }, view::showDurationsByCountry, this::showTaskError);
+    }
+    
+    /**
+     * Computes the release date differences of all movies in the background and lists them in the view.
+     * The differences are computed once per version of the catalog and cached in its columns.
+     */
+    private void showAllReleaseDifferences() {
+        tasks.submit("differences", () -> {
+            MovieColumns columns = model.getColumns();
+            columns.getReleaseDifferences();
+            return columns;
+        }, view::displayReleaseDateDifferences, this::showTaskError);
+    }
+    
+    /**
+     * Sorts the movies by the column and direction selected in the view.
+     */
+    private void sortMovies() {
+        SortColumn column = (SortColumn) view.sortColumnComboBox.getSelectedItem();
+        String selectedOrder = (String) view.sortOrderComboBox.getSelectedItem();
+        sortMovies(column, selectedOrder.equals("Ascending"));
+    }
+    
+    /**
+     * Sorts the movies by a column in the background; the table follows the change fired by the model.
+     * The sort order is computed, or taken from the cache of the model, and applied off the Event
+     * Dispatch Thread; if movies were added or removed in the meantime, e.g. by the {@link CatalogLoader},
+     * it is computed again. A new sort request supersedes one that has not finished yet: as a
+     * superseded task cannot be interrupted while sorting, it checks that it is still the newest
+     * request before applying its order.
+     *
+     * @param column the column to sort by.
+     * @param ascending {@code true} for the ascending order, {@code false} for the descending order.
+     */
+    private void sortMovies(SortColumn column, boolean ascending) {
+        int request = ++sortRequest;
+        tasks.submit("sort", () -> {
+            while (true) {
+                CatalogVersion version = model.getVersion();
+                SortOrder order = version.getColumns().getSortOrder(column);
+                synchronized (sortLock) {
+                    if (request != sortRequest) {
+                        return false;
+                    }
+                    if (model.applySortOrder(column, order, ascending, version.getModificationCount())) {
+                        return true;
+                    }
+                }
+            }
+        }, applied -> { }, this::showTaskError);
+    }
+    
+    /**
+     * Searches the movies in the background and lists the results in the view.
+     * A new search supersedes one that has not finished yet.
+     *
+     * @param query the words to search for.
+     */
+    private void searchMovies(String query) {
+        if (query.isBlank()) {
+            view.showErrorDialog("Search query cannot be empty.");
+            return;
+        }
+        long start = System.nanoTime();
+        tasks.submit("search", () -> model.search(query),
+                hits -> view.showSearchResults(hits, (System.nanoTime() - start) / 1_000_000), this::showTaskError);
+    }
+    
     /**
      * Handles the input movie ID entered by the user. Checks if the input is valid,
      * and if so, calculates the difference in days between the movie's release date
-     * and the date added, then updates the view.
+     * and the date added, then updates the view. The movie is looked up in the background.
+     * Several IDs separated by commas or spaces are looked up at once, and invalid or unknown
+     * ones are listed with the results instead of interrupting the lookup.
      * 
-     * @param movieId the ID of the movie entered by the user.
+     * @param movieId the ID of the movie entered by the user, or several IDs.
      */
     private void handleMovieIdInput(String movieId) {
-        if (movieId.isEmpty()) {
+        if (movieId.isBlank()) {
             view.showErrorDialog("Movie ID cannot be empty.");
             return;
         }
-        try {
-            Movie movie = model.getMovieById(movieId);
-
+        List<String> movieIds = List.of(movieId.trim().split("[\\s,]+"));
+        if (movieIds.size() > 1) {
+            tasks.submit("movie", () -> model.getMoviesByIds(movieIds),
+                    lookups -> view.setDifferenceArea(describeLookups(lookups)), this::showTaskError);
+            return;
+        }
+        tasks.submit("movie", () -> model.getMovieById(movieIds.get(0)), movie -> {
             if (movie != null) {
                 long difference = movie.getReleaseDateDifference();
                 view.setDifferenceArea("Difference in days: " + difference + " days.");
             } else {
                 view.setDifferenceArea("Movie not found!");
             }
-        } catch (InvalidMovieIdException e) {
+        }, this::showTaskError);
+    }
+    
+    /**
+     * Describes the outcome of a bulk lookup, one line per ID.
+     *
+     * @param lookups the results of the lookup.
+     * @return the release date difference of every movie found, and the IDs that were not found.
+     */
+    private static String describeLookups(List<MovieLookup> lookups) {
+        StringBuilder text = new StringBuilder();
+        for (MovieLookup lookup : lookups) {
+            text.append(lookup.id()).append(": ").append(switch (lookup.status()) {
+                case FOUND -> lookup.releaseDifference() + " days";
+                case NOT_FOUND -> "not found";
+                case INVALID -> "invalid ID";
+            }).append('\n');
+        }
+        return text.toString();
+    }
+    
+    /**
+     * Reports a failed model operation: invalid movie IDs in a dialog box, other errors in the status bar.
+     *
+     * @param e the exception thrown by the operation.
+     */
+    private void showTaskError(Exception e) {
+        if (e instanceof InvalidMovieIdException) {
             view.showErrorDialog(e.getMessage());
+        } else {
+            view.setStatus("Operation failed: " + e.getMessage());
         }
     }
     
@@ -142,8 +364,7 @@ public class Controller  {
         view.getFrame().getRootPane().getActionMap().put("showCountry", new AbstractAction() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                String countryWithMostMovies = model.getCountryWithMostMovies();
-                view.updateCountryLabel(countryWithMostMovies);
+                showCountryWithMostMovies();
             }
         });
 
@@ -0,0 +1,127 @@
+package pl.polsl.controller;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+
+/**
+ * Runs model operations requested by the user interface on a small pool of background threads, so the
+ * Event Dispatch Thread is never blocked by work on a large catalog.
+ * 
+ * <p>Every task is submitted under a key naming the kind of request, e.g. {@code "sort"}. Submitting a
+ * task cancels the unfinished task previously submitted under the same key, so repeated clicks only
+ * produce the result of the latest request. Results and errors are handed back on the Event Dispatch
+ * Thread through {@link SwingUtilities#invokeLater(Runnable)}, and are dropped if the task has been
+ * superseded in the meantime.</p>
+ * 
+ * <p>The pool and its queue are bounded; a request that does not fit is reported to its error handler
+ * instead of being queued without limit. This class is meant to be used from the Event Dispatch Thread
+ * only.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class ModelTaskExecutor {
+    /** 
+     * Number of threads running model operations. 
+     */
+    private static final int THREAD_COUNT = 2;
+    /** 
+     * Maximum number of requests waiting for a free thread. 
+     */
+    private static final int QUEUE_CAPACITY = 32;
+    /** 
+     * The pool running the submitted tasks. 
+     */
+    private final ThreadPoolExecutor executor;
+    /** 
+     * The latest unfinished task for every key; only accessed on the Event Dispatch Thread. 
+     */
+    private final Map<String, Future<?>> pending = new HashMap<>();
+    
+    /**
+     * Constructs an executor with its own pool of daemon threads.
+     */
+    public ModelTaskExecutor() {
+        AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "model-task-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        this.executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_CAPACITY), threadFactory, new ThreadPoolExecutor.AbortPolicy());
+    }
+    
+    /**
+     * Runs a task in the background, cancelling the unfinished task submitted earlier under the same key.
+     *
+     * @param <T> the type of the result.
+     * @param key the kind of request; tasks with equal keys supersede each other.
+     * @param task the model operation to run.
+     * @param onSuccess receives the result on the Event Dispatch Thread.
+     * @param onFailure receives the exception thrown by the task, or the rejection of an overloaded pool,
+     *        on the Event Dispatch Thread.
+     */
+    public <T> void submit(String key, Callable<T> task, Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        Future<?> previous = pending.remove(key);
+        if (previous != null) {
+            previous.cancel(true);
+            // A superseded task still waiting in the queue would otherwise take up its capacity.
+            executor.remove((Runnable) previous);
+        }
+        FutureTask<T> future = new FutureTask<>(task) {
+            @Override
+            protected void done() {
+                if (isCancelled()) {
+                    return;
+                }
+                SwingUtilities.invokeLater(() -> deliver(key, this, onSuccess, onFailure));
+            }
+        };
+        try {
+            executor.execute(future);
+            pending.put(key, future);
+        } catch (RejectedExecutionException e) {
+            onFailure.accept(e);
+        }
+    }
+    
+    /**
+     * Hands the outcome of a finished task to its handlers, unless a newer task with the same key
+     * has been submitted since.
+     *
+     * @param <T> the type of the result.
+     * @param key the kind of request.
+     * @param future the finished task.
+     * @param onSuccess receives the result.
+     * @param onFailure receives the exception thrown by the task.
+     */
+    private <T> void deliver(String key, FutureTask<T> future, Consumer<T> onSuccess, Consumer<Exception> onFailure) {
+        if (!pending.remove(key, future)) {
+            return;
+        }
+        T result;
+        try {
+            result = future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return;
+        } catch (ExecutionException e) {
+            onFailure.accept(e.getCause() instanceof Exception cause ? cause : e);
+            return;
+        }
+        onSuccess.accept(result);
+    }
+}
@@ -6,6 +6,15 @@
  * between the user interface and the application's business logic. It processes user actions,
  * retrieves data from the model, and updates the view accordingly to reflect any changes.
  *
+ * <p>The {@code CatalogLoader} reads the movie catalog in the background and streams it into the
+ * model and view in batches, so the user interface is available while the catalog is loading.
+ *
+ * <p>The {@code ModelTaskExecutor} runs the model operations requested by the user on background threads,
+ * cancels requests superseded by newer ones and hands the results back to the Event Dispatch Thread.
+ *
+ * <p>The {@code BatchController} runs the analytics requested on the command line without the view,
+ * writing tab-separated results for headless servers and scheduled jobs.
+ *
  * <p>The {@code Controller} is also responsible for validating inputs and handling any exceptions
  * that may arise during the interactions between the view and model, ensuring that the application
  * runs smoothly and provides feedback to the user as needed.
@@ -0,0 +1,465 @@
+package pl.polsl.model;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Compact binary copy of a movie catalog that can be loaded much faster than the CSV file it was
+ * created from.
+ *
+ * <p>The file consists of:</p>
+ * <ul>
+ *   <li>a header with a magic number, the format {@link #VERSION} and the fingerprint (size and
+ *       modification time) of the source CSV file,</li>
+ *   <li>a dictionary holding every distinct text value once,</li>
+ *   <li>one section per column: dictionary codes for the text fields, and the type, release year and
+ *       date added (as an epoch day) as primitive arrays,</li>
+ *   <li>a trailing CRC-32 checksum of everything before it.</li>
+ * </ul>
+ *
+ * <p>Snapshots are read through a memory mapping of at most {@link MappedCsvReader#WINDOW_SIZE} bytes
+ * at a time, so snapshots larger than 2 GB are read as well. A snapshot whose fingerprint no longer
+ * matches the source file, whose version differs, or whose checksum is wrong is ignored, so the caller
+ * falls back to parsing the CSV file and writes a fresh snapshot.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class BinarySnapshot {
+    /**
+     * Magic number at the start of every snapshot ("NFXS").
+     */
+    private static final int MAGIC = 0x4E465853;
+    /**
+     * System property naming the directory in which {@link #defaultLocation(Path, Fingerprint)} stores the
+     * snapshots, instead of the cache directory of the current user.
+     */
+    public static final String CACHE_DIRECTORY_PROPERTY = "netflix.analyzer.cache";
+    /**
+     * End of the name of a snapshot stored by {@link #defaultLocation(Path, Fingerprint)}: the size and
+     * the modification time of the CSV file.
+     */
+    private static final Pattern FINGERPRINT_SUFFIX = Pattern.compile("-\\d+--?\\d+\\.snapshot$");
+    /**
+     * Version of the file format; snapshots of other versions are ignored.
+     */
+    public static final int VERSION = 1;
+    /**
+     * Size of the header: magic, version, source size, source modification time and row count.
+     */
+    private static final int HEADER_SIZE = 4 + 4 + 8 + 8 + 4;
+    /**
+     * Accessors of the text columns, in the order in which their sections are stored.
+     */
+    private static final List<Function<Movie, String>> TEXT_COLUMNS = List.of(
+            Movie::showId, Movie::title, Movie::director, Movie::cast, Movie::country, Movie::dateAdded,
+            Movie::rating, Movie::duration, Movie::listedIn, Movie::description);
+
+    /**
+     * Prevents instantiation; all functionality is provided by static methods.
+     */
+    private BinarySnapshot() {
+    }
+
+    /**
+     * Identifies the content of a source CSV file by its size and modification time.
+     *
+     * @param size the size of the file in bytes.
+     * @param lastModified the modification time of the file in milliseconds since the epoch.
+     */
+    public record Fingerprint(long size, long lastModified) {
+    }
+
+    /**
+     * Computes the fingerprint of a CSV file on disk, or of the bundled resource if no file is given.
+     *
+     * @param csvFile the path of the CSV file, or {@code null} for {@link MovieCsvReader#DEFAULT_RESOURCE}.
+     * @return the fingerprint of the file.
+     * @throws InvalidMovieIdException if the file cannot be found.
+     */
+    public static Fingerprint fingerprint(Path csvFile) throws InvalidMovieIdException {
+        try {
+            if (csvFile != null) {
+                return new Fingerprint(Files.size(csvFile), Files.getLastModifiedTime(csvFile).toMillis());
+            }
+            URL url = BinarySnapshot.class.getClassLoader().getResource(MovieCsvReader.DEFAULT_RESOURCE);
+            if (url == null) {
+                throw new InvalidMovieIdException("CSV file not found.");
+            }
+            URLConnection connection = url.openConnection();
+            connection.setUseCaches(false);
+            return new Fingerprint(connection.getContentLengthLong(), connection.getLastModified());
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Returns the default location of the snapshot of a CSV file, in the directory given by the
+     * {@value #CACHE_DIRECTORY_PROPERTY} system property or else in the cache directory of the current
+     * user ({@code $XDG_CACHE_HOME}, or {@code .cache} in the home directory). The name identifies the
+     * CSV file by a name-based UUID of its absolute path and its content by the fingerprint, so different
+     * files and different versions of a file never share a snapshot; older versions are removed with
+     * {@link #deleteOtherVersions(Path)}.
+     *
+     * @param csvFile the path of the CSV file, or {@code null} for {@link MovieCsvReader#DEFAULT_RESOURCE}.
+     * @param source the fingerprint of the CSV file.
+     * @return the path at which the snapshot is stored.
+     */
+    public static Path defaultLocation(Path csvFile, Fingerprint source) {
+        String name = csvFile != null
+                ? csvFile.getFileName() + "-" + UUID.nameUUIDFromBytes(
+                        csvFile.toAbsolutePath().toString().getBytes(StandardCharsets.UTF_8))
+                : MovieCsvReader.DEFAULT_RESOURCE;
+        return cacheDirectory().resolve(name + "-" + source.size() + "-" + source.lastModified() + ".snapshot");
+    }
+
+    /**
+     * Returns the directory in which the snapshots are stored by default.
+     *
+     * @return the directory given by {@value #CACHE_DIRECTORY_PROPERTY}, or {@code netflix-analyzer} in
+     *         the cache directory of the current user.
+     */
+    private static Path cacheDirectory() {
+        String configured = System.getProperty(CACHE_DIRECTORY_PROPERTY);
+        if (configured != null && !configured.isEmpty()) {
+            return Path.of(configured);
+        }
+        String cache = System.getenv("XDG_CACHE_HOME");
+        Path directory = cache != null && !cache.isEmpty() ? Path.of(cache)
+                : Path.of(System.getProperty("user.home"), ".cache");
+        return directory.resolve("netflix-analyzer");
+    }
+
+    /**
+     * Deletes the snapshots of other versions of the same CSV file stored next to a snapshot at its
+     * {@link #defaultLocation(Path, Fingerprint)}, i.e. the files whose names differ only in the
+     * fingerprint. Called once a new snapshot has been written, so that a CSV file that keeps changing
+     * leaves a single snapshot behind.
+     *
+     * @param snapshotFile the snapshot to keep.
+     * @throws IOException if the directory cannot be listed or a snapshot cannot be deleted.
+     */
+    public static void deleteOtherVersions(Path snapshotFile) throws IOException {
+        String fileName = snapshotFile.getFileName().toString();
+        Matcher matcher = FINGERPRINT_SUFFIX.matcher(fileName);
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        if (!matcher.find() || directory == null) {
+            return;
+        }
+        Pattern sibling = Pattern.compile(Pattern.quote(fileName.substring(0, matcher.start()))
+                + FINGERPRINT_SUFFIX.pattern());
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (!name.equals(fileName) && sibling.matcher(name).matches()) {
+                    Files.deleteIfExists(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Writes a snapshot of the given movies. The file is first written under a temporary name and then
+     * moved into place, so readers never observe a partially written snapshot.
+     *
+     * @param snapshotFile the path of the snapshot.
+     * @param movies the movies to store.
+     * @param source the fingerprint of the CSV file the movies were loaded from.
+     * @throws IOException if the snapshot cannot be written.
+     */
+    public static void write(Path snapshotFile, List<Movie> movies, Fingerprint source) throws IOException {
+        StringDictionary dictionary = new StringDictionary();
+        int rows = movies.size();
+        int[][] codes = new int[TEXT_COLUMNS.size()][rows];
+        for (int column = 0; column < codes.length; column++) {
+            Function<Movie, String> accessor = TEXT_COLUMNS.get(column);
+            for (int row = 0; row < rows; row++) {
+                String value = accessor.apply(movies.get(row));
+                codes[column][row] = dictionary.encode(value != null ? value : "");
+            }
+        }
+
+        Path directory = snapshotFile.toAbsolutePath().getParent();
+        Files.createDirectories(directory);
+        Path tempFile = Files.createTempFile(directory, snapshotFile.getFileName().toString(), ".tmp");
+        try {
+            CRC32 checksum = new CRC32();
+            try (OutputStream fileStream = Files.newOutputStream(tempFile);
+                    CheckedOutputStream checkedStream = new CheckedOutputStream(
+                            new BufferedOutputStream(fileStream, 1 << 16), checksum);
+                    DataOutputStream out = new DataOutputStream(checkedStream)) {
+                out.writeInt(MAGIC);
+                out.writeInt(VERSION);
+                out.writeLong(source.size());
+                out.writeLong(source.lastModified());
+                out.writeInt(rows);
+
+                out.writeInt(dictionary.size());
+                for (int code = 0; code < dictionary.size(); code++) {
+                    byte[] bytes = dictionary.decode(code).getBytes(StandardCharsets.UTF_8);
+                    out.writeInt(bytes.length);
+                    out.write(bytes);
+                }
+                for (int[] column : codes) {
+                    for (int code : column) {
+                        out.writeInt(code);
+                    }
+                }
+                for (Movie movie : movies) {
+                    out.writeByte(movie.type().ordinal());
+                }
+                for (Movie movie : movies) {
+                    out.writeInt(movie.releaseYear() != null ? movie.releaseYear() : 0);
+                }
+                for (Movie movie : movies) {
+                    out.writeInt(movie.dateAddedDay());
+                }
+                out.flush();
+                // The checksum covers all bytes written so far and is itself excluded.
+                new DataOutputStream(fileStream).writeLong(checksum.getValue());
+            }
+            Files.move(tempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tempFile);
+        }
+    }
+
+    /**
+     * Reads a snapshot through a memory mapping.
+     *
+     * @param snapshotFile the path of the snapshot.
+     * @param source the current fingerprint of the CSV file the snapshot was created from.
+     * @return the stored movies in their original order, or {@code null} if the snapshot does not exist,
+     *         was created from a different version of the CSV file or in a different format, or is corrupted.
+     */
+    public static List<Movie> read(Path snapshotFile, Fingerprint source) {
+        return read(snapshotFile, source, MappedCsvReader.WINDOW_SIZE);
+    }
+
+    /**
+     * Reads a snapshot through a memory mapping of the given size.
+     *
+     * @param snapshotFile the path of the snapshot.
+     * @param source the current fingerprint of the CSV file the snapshot was created from.
+     * @param windowSize the maximum number of bytes mapped at once.
+     * @return the stored movies in their original order, or {@code null} if the snapshot cannot be used.
+     */
+    static List<Movie> read(Path snapshotFile, Fingerprint source, int windowSize) {
+        if (!Files.isRegularFile(snapshotFile)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(snapshotFile, StandardOpenOption.READ)) {
+            long dataSize = channel.size() - 8;
+            if (dataSize < HEADER_SIZE) {
+                return null;
+            }
+            MappedInput buffer = new MappedInput(channel, dataSize, windowSize);
+            if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION
+                    || buffer.getLong() != source.size() || buffer.getLong() != source.lastModified()) {
+                return null;
+            }
+            CRC32 checksum = new CRC32();
+            for (long offset = 0; offset < dataSize; offset += windowSize) {
+                checksum.update(channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, dataSize - offset)));
+            }
+            if (checksum.getValue() != channel.map(FileChannel.MapMode.READ_ONLY, dataSize, 8).getLong()) {
+                return null;
+            }
+            return readMovies(buffer);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Decodes the dictionary and the column sections of a verified snapshot.
+     *
+     * @param buffer the mapped snapshot, positioned at the row count.
+     * @return the stored movies in their original order.
+     * @throws IOException if the snapshot cannot be mapped.
+     * @throws BufferUnderflowException if the sections are shorter than announced.
+     */
+    private static List<Movie> readMovies(MappedInput buffer) throws IOException {
+        int rows = buffer.getInt();
+        String[] dictionary = new String[buffer.getInt()];
+        byte[] bytes = new byte[256];
+        for (int code = 0; code < dictionary.length; code++) {
+            int length = buffer.getInt();
+            if (length > bytes.length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            buffer.get(bytes, 0, length);
+            dictionary[code] = new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        String[][] text = new String[TEXT_COLUMNS.size()][rows];
+        for (String[] column : text) {
+            for (int row = 0; row < rows; row++) {
+                column[row] = dictionary[buffer.getInt()];
+            }
+        }
+        MovieType[] types = MovieType.values();
+        byte[] type = new byte[rows];
+        buffer.get(type, 0, rows);
+        int[] releaseYear = new int[rows];
+        buffer.getInts(releaseYear);
+        int[] dateAdded = new int[rows];
+        buffer.getInts(dateAdded);
+
+        List<Movie> movies = new ArrayList<>(rows);
+        for (int row = 0; row < rows; row++) {
+            movies.add(new Movie(text[0][row], types[type[row]], text[1][row], text[2][row], text[3][row],
+                    text[4][row], text[5][row], releaseYear[row], text[6][row], text[7][row], text[8][row],
+                    text[9][row], dateAdded[row]));
+        }
+        return movies;
+    }
+
+    /**
+     * Sequential reader over the data of a snapshot, which maps the file in windows and moves the window
+     * forward whenever the next value crosses its end.
+     */
+    private static final class MappedInput {
+        /**
+         * The channel of the snapshot.
+         */
+        private final FileChannel channel;
+        /**
+         * Offset just after the last byte that may be read, i.e. the start of the checksum.
+         */
+        private final long end;
+        /**
+         * Maximum number of bytes mapped at once.
+         */
+        private final int windowSize;
+        /**
+         * The currently mapped window.
+         */
+        private ByteBuffer window;
+        /**
+         * Offset in the file of the first byte of {@link #window}.
+         */
+        private long windowStart;
+
+        /**
+         * Maps the first window of a snapshot.
+         *
+         * @param channel the channel of the snapshot.
+         * @param end the offset just after the last byte that may be read.
+         * @param windowSize the maximum number of bytes mapped at once.
+         * @throws IOException if the file cannot be mapped.
+         */
+        MappedInput(FileChannel channel, long end, int windowSize) throws IOException {
+            this.channel = channel;
+            this.end = end;
+            this.windowSize = windowSize;
+            map(0);
+        }
+
+        /**
+         * Reads the next {@code int}.
+         *
+         * @return the value read.
+         * @throws IOException if the file cannot be mapped.
+         */
+        int getInt() throws IOException {
+            ensure(Integer.BYTES);
+            return window.getInt();
+        }
+
+        /**
+         * Reads the next {@code long}.
+         *
+         * @return the value read.
+         * @throws IOException if the file cannot be mapped.
+         */
+        long getLong() throws IOException {
+            ensure(Long.BYTES);
+            return window.getLong();
+        }
+
+        /**
+         * Reads bytes into an array.
+         *
+         * @param bytes the array to fill.
+         * @param offset the first index to fill.
+         * @param length the number of bytes to read.
+         * @throws IOException if the file cannot be mapped.
+         */
+        void get(byte[] bytes, int offset, int length) throws IOException {
+            while (length > 0) {
+                ensure(1);
+                int count = Math.min(length, window.remaining());
+                window.get(bytes, offset, count);
+                offset += count;
+                length -= count;
+            }
+        }
+
+        /**
+         * Reads {@code int}s into the whole array.
+         *
+         * @param values the array to fill.
+         * @throws IOException if the file cannot be mapped.
+         */
+        void getInts(int[] values) throws IOException {
+            int offset = 0;
+            while (offset < values.length) {
+                ensure(Integer.BYTES);
+                int count = Math.min(values.length - offset, window.remaining() / Integer.BYTES);
+                window.asIntBuffer().get(values, offset, count);
+                window.position(window.position() + count * Integer.BYTES);
+                offset += count;
+            }
+        }
+
+        /**
+         * Moves the window forward if fewer than the given number of bytes remain in it.
+         *
+         * @param bytes the number of bytes about to be read.
+         * @throws IOException if the file cannot be mapped.
+         * @throws BufferUnderflowException if the data ends before the bytes.
+         */
+        private void ensure(int bytes) throws IOException {
+            if (window.remaining() < bytes) {
+                map(windowStart + window.position());
+                if (window.remaining() < bytes) {
+                    throw new BufferUnderflowException();
+                }
+            }
+        }
+
+        /**
+         * Maps the window starting at the given offset.
+         *
+         * @param offset the offset in the file of the first mapped byte.
+         * @throws IOException if the file cannot be mapped.
+         */
+        private void map(long offset) throws IOException {
+            window = channel.map(FileChannel.MapMode.READ_ONLY, offset, Math.min(windowSize, end - offset));
+            windowStart = offset;
+        }
+    }
+}
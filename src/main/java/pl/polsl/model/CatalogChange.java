@@ -0,0 +1,176 @@
+package pl.polsl.model;
+
+import java.beans.PropertyChangeEvent;
+
+/**
+ * Change of the displayed catalog, fired by {@link Model} as a {@link Model#CATALOG} property change
+ * whenever it publishes a new {@link CatalogVersion}. The old and new values are the versions before
+ * and after the change, and the kind and row range tell a listener which displayed rows it affects,
+ * so that a table only repaints those rows.
+ *
+ * <p>Rows are positions in the displayed order: for {@link Kind#ROWS_DELETED} they are positions in
+ * the old version, for the other kinds positions in the new version. Consecutive changes can be merged
+ * with {@link #coalesce(CatalogChange, CatalogChange)}, e.g. to notify the Event Dispatch Thread once
+ * per bulk load instead of once per batch.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class CatalogChange extends PropertyChangeEvent {
+
+    /**
+     * Kind of change.
+     */
+    public enum Kind {
+        /** Movies were appended; they are displayed at the end, in rows {@code firstRow} to {@code lastRow}. */
+        ROWS_INSERTED,
+        /** The movies displayed in rows {@code firstRow} to {@code lastRow} were replaced. */
+        ROWS_UPDATED,
+        /** The movies displayed in rows {@code firstRow} to {@code lastRow} of the old version were removed. */
+        ROWS_DELETED,
+        /** The same movies are displayed in another order. */
+        SORTED,
+        /** Any row may have changed. */
+        RELOADED
+    }
+
+    /**
+     * Kind of change.
+     */
+    private final Kind kind;
+    /**
+     * First affected row.
+     */
+    private final int firstRow;
+    /**
+     * Last affected row.
+     */
+    private final int lastRow;
+
+    /**
+     * Creates a change event.
+     *
+     * @param source the model that published the new version.
+     * @param oldVersion the version before the change.
+     * @param newVersion the version after the change.
+     * @param kind the kind of change.
+     * @param firstRow the first affected row.
+     * @param lastRow the last affected row.
+     */
+    public CatalogChange(Object source, CatalogVersion oldVersion, CatalogVersion newVersion, Kind kind,
+            int firstRow, int lastRow) {
+        super(source, Model.CATALOG, oldVersion, newVersion);
+        this.kind = kind;
+        this.firstRow = firstRow;
+        this.lastRow = lastRow;
+    }
+
+    /**
+     * Creates a change event affecting all rows.
+     *
+     * @param source the model that published the new version.
+     * @param oldVersion the version before the change.
+     * @param newVersion the version after the change.
+     * @param kind the kind of change, {@link Kind#SORTED} or {@link Kind#RELOADED}.
+     */
+    public CatalogChange(Object source, CatalogVersion oldVersion, CatalogVersion newVersion, Kind kind) {
+        this(source, oldVersion, newVersion, kind, 0, Math.max(oldVersion.size(), newVersion.size()) - 1);
+    }
+
+    /**
+     * Merges two consecutive changes into one. Appends of adjacent rows and updates of overlapping or
+     * adjacent rows are merged into one range, and two sorts into one sort; any other pair is merged into
+     * a {@link Kind#RELOADED} change.
+     *
+     * @param first the earlier change.
+     * @param second the later change, whose old version is the new version of {@code first}.
+     * @return a change from the old version of {@code first} to the new version of {@code second}.
+     */
+    public static CatalogChange coalesce(CatalogChange first, CatalogChange second) {
+        Object source = first.getSource();
+        CatalogVersion oldVersion = first.getOldVersion();
+        CatalogVersion newVersion = second.getNewVersion();
+        if (first.kind == second.kind && first.getNewVersion() == second.getOldVersion()) {
+            switch (first.kind) {
+                case ROWS_INSERTED -> {
+                    if (second.firstRow == first.lastRow + 1) {
+                        return new CatalogChange(source, oldVersion, newVersion, Kind.ROWS_INSERTED,
+                                first.firstRow, second.lastRow);
+                    }
+                }
+                case ROWS_UPDATED -> {
+                    if (second.firstRow <= first.lastRow + 1 && first.firstRow <= second.lastRow + 1) {
+                        return new CatalogChange(source, oldVersion, newVersion, Kind.ROWS_UPDATED,
+                                Math.min(first.firstRow, second.firstRow), Math.max(first.lastRow, second.lastRow));
+                    }
+                }
+                case SORTED -> {
+                    return new CatalogChange(source, oldVersion, newVersion, Kind.SORTED);
+                }
+                default -> {
+                }
+            }
+        }
+        return new CatalogChange(source, oldVersion, newVersion, Kind.RELOADED);
+    }
+
+    /**
+     * Returns the kind of change.
+     *
+     * @return the kind of change.
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the first affected row.
+     *
+     * @return the first affected row.
+     */
+    public int getFirstRow() {
+        return firstRow;
+    }
+
+    /**
+     * Returns the last affected row.
+     *
+     * @return the last affected row.
+     */
+    public int getLastRow() {
+        return lastRow;
+    }
+
+    /**
+     * Returns the version before the change.
+     *
+     * @return the old version.
+     */
+    public CatalogVersion getOldVersion() {
+        return (CatalogVersion) getOldValue();
+    }
+
+    /**
+     * Returns the version after the change.
+     *
+     * @return the new version.
+     */
+    public CatalogVersion getNewVersion() {
+        return (CatalogVersion) getNewValue();
+    }
+
+    /**
+     * Tells whether the change invalidates aggregates computed from the catalog, such as the country
+     * with the most movies or the duration statistics. Only sorting keeps them valid.
+     *
+     * @return {@code true} if the content of the catalog changed.
+     */
+    public boolean invalidatesAggregates() {
+        return kind != Kind.SORTED;
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSimpleName() + "[" + kind + " " + firstRow + ".." + lastRow + "]";
+    }
+}
@@ -0,0 +1,186 @@
+package pl.polsl.model;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Set of changes to a movie catalog, keyed by show ID, that {@link Model#applyDelta(CatalogDelta)}
+ * applies to a loaded model without reloading the whole catalog.
+ *
+ * <p>A delta file is a CSV file with a header line. Each row starts with an operation code followed by
+ * the columns of the Netflix titles CSV file:</p>
+ * <ul>
+ *   <li>{@code I} inserts the movie described by the row,</li>
+ *   <li>{@code U} replaces the movie with the same show ID by the one described by the row,</li>
+ *   <li>{@code D} deletes the movie with the show ID of the row; only the operation and the show ID
+ *       are required.</li>
+ * </ul>
+ * <p>Changes are applied in file order, so a movie inserted by a delta may be updated or deleted
+ * further down the same delta.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class CatalogDelta {
+
+    /**
+     * Kind of change.
+     */
+    public enum Operation {
+        /** Adds a movie whose show ID is not in the catalog yet. */
+        INSERT,
+        /** Replaces the movie with the same show ID. */
+        UPDATE,
+        /** Removes the movie with the show ID. */
+        DELETE;
+
+        /**
+         * Parses an operation code of a delta file.
+         *
+         * @param code the code: {@code I}, {@code U} or {@code D}, in any case.
+         * @return the operation.
+         * @throws InvalidMovieIdException if the code is unknown.
+         */
+        public static Operation parse(String code) throws InvalidMovieIdException {
+            return switch (code.trim().toUpperCase()) {
+                case "I" -> INSERT;
+                case "U" -> UPDATE;
+                case "D" -> DELETE;
+                default -> throw new InvalidMovieIdException("Unknown delta operation: " + code);
+            };
+        }
+    }
+
+    /**
+     * A single change.
+     *
+     * @param operation the kind of change.
+     * @param showId the show ID of the changed movie.
+     * @param movie the inserted or updated movie, or {@code null} for a deletion.
+     */
+    public record Change(Operation operation, String showId, Movie movie) {
+    }
+
+    /**
+     * Outcome of applying a delta.
+     *
+     * @param inserted the number of movies inserted.
+     * @param updated the number of movies updated.
+     * @param deleted the number of movies deleted.
+     * @param rejected the show IDs of the changes that could not be applied: insertions of IDs already
+     *        present, and updates and deletions of IDs that are not present.
+     */
+    public record Result(int inserted, int updated, int deleted, List<String> rejected) {
+
+        /**
+         * Describes the outcome for the user, e.g. "2 inserted, 1 updated, 0 deleted, 1 rejected".
+         *
+         * @return the summary of the outcome.
+         */
+        public String summary() {
+            return inserted + " inserted, " + updated + " updated, " + deleted + " deleted, "
+                    + rejected.size() + " rejected";
+        }
+    }
+
+    /**
+     * The changes, in the order they are applied.
+     */
+    private final List<Change> changes;
+
+    /**
+     * Constructs a delta from a list of changes.
+     *
+     * @param changes the changes, in the order they are applied.
+     */
+    public CatalogDelta(List<Change> changes) {
+        this.changes = List.copyOf(changes);
+    }
+
+    /**
+     * Reads a delta file.
+     *
+     * @param deltaFile the path of the delta file.
+     * @return the changes of the file.
+     * @throws InvalidMovieIdException if the file cannot be read or a row is invalid.
+     */
+    public static CatalogDelta read(Path deltaFile) throws InvalidMovieIdException {
+        try (Reader reader = Files.newBufferedReader(deltaFile, StandardCharsets.UTF_8)) {
+            return read(reader);
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the delta file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads the changes of a delta file, including its header line, from a character stream.
+     *
+     * @param reader the source of the delta file.
+     * @return the changes read.
+     * @throws InvalidMovieIdException if the input cannot be read or a row is invalid.
+     */
+    public static CatalogDelta read(Reader reader) throws InvalidMovieIdException {
+        List<Change> changes = new ArrayList<>();
+        try (CSVReader csvReader = new CSVReader(reader)) {
+            csvReader.readNext();
+            String[] row;
+            while ((row = csvReader.readNext()) != null) {
+                if (row.length == 1 && row[0].isBlank()) {
+                    continue;
+                }
+                changes.add(parseRow(row));
+            }
+        } catch (IOException | CsvValidationException e) {
+            throw new InvalidMovieIdException("Error reading the delta file: " + e.getMessage());
+        }
+        return new CatalogDelta(changes);
+    }
+
+    /**
+     * Converts a row of a delta file into a change.
+     *
+     * @param row the operation code followed by the columns of the movie.
+     * @return the change described by the row.
+     * @throws InvalidMovieIdException if the operation is unknown, the show ID is invalid or the movie
+     *         columns are incomplete.
+     */
+    private static Change parseRow(String[] row) throws InvalidMovieIdException {
+        if (row.length < 2) {
+            throw new InvalidMovieIdException("Skipping invalid delta line: " + String.join(",", row));
+        }
+        Operation operation = Operation.parse(row[0]);
+        String showId = row[1].trim();
+        if (!ShowIdIndex.isValid(showId)) {
+            throw new InvalidMovieIdException("Invalid movie ID in delta: " + showId);
+        }
+        Movie movie = operation == Operation.DELETE ? null
+                : MovieCsvReader.parseRow(Arrays.copyOfRange(row, 1, row.length));
+        return new Change(operation, showId, movie);
+    }
+
+    /**
+     * Returns the changes of the delta.
+     *
+     * @return the changes, in the order they are applied.
+     */
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    /**
+     * Returns the number of changes.
+     *
+     * @return the number of changes of the delta.
+     */
+    public int size() {
+        return changes.size();
+    }
+}
@@ -0,0 +1,695 @@
+package pl.polsl.model;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+
+/**
+ * Immutable version of the catalog of a {@link Model}: the movies in catalog order together with the
+ * order in which they are displayed.
+ *
+ * <p>The model publishes every change as a new version through a {@code volatile} reference, so a
+ * reader that takes the current version sees a consistent catalog for as long as it keeps it, without
+ * locking and while the writer keeps publishing newer versions.</p>
+ *
+ * <p>The movies are stored in chunks of at most {@value #CHUNK_SIZE} movies. Every movie receives a
+ * row ID when it is appended; row IDs increase in catalog order and never change, so the position of
+ * a movie is found from its row ID by a binary search over the chunks. Versions are copy-on-write per
+ * chunk: an {@link Editor} that replaces or removes a few movies copies only the chunks holding them
+ * and the small arrays listing the chunks, and shares all other chunks with the previous version.</p>
+ *
+ * <p>Appending does not copy either: consecutive versions share the last chunk and the chunk arrays,
+ * of which each version only reads the prefix it was created with. The writer appends behind the
+ * prefix of the newest version, which no published version reads. The columnar copy of a version is
+ * built on first use and stays valid for the whole life of the version.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public final class CatalogVersion {
+    /**
+     * Base-2 logarithm of {@link #CHUNK_SIZE}.
+     */
+    private static final int CHUNK_SHIFT = 12;
+    /**
+     * Maximum number of movies per chunk.
+     */
+    static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+    /**
+     * Capacity of the first chunk of a catalog, which grows up to {@link #CHUNK_SIZE} as movies are appended.
+     */
+    private static final int FIRST_CHUNK_CAPACITY = 16;
+    /**
+     * Movies of every chunk; each chunk holds its movies in its first elements. May be shared with newer versions.
+     */
+    private final Movie[][] chunks;
+    /**
+     * Row IDs of the movies of every chunk, or {@code null} for a chunk whose row IDs are consecutive
+     * from {@link #firstRowIds}. May be shared with newer versions.
+     */
+    private final int[][] chunkRowIds;
+    /**
+     * Row ID of the first movie of every chunk. May be shared with newer versions.
+     */
+    private final int[] firstRowIds;
+    /**
+     * Position in catalog order of the first movie of every chunk. May be shared with newer versions.
+     */
+    private final int[] chunkStarts;
+    /**
+     * Number of chunks of this version.
+     */
+    private final int chunkCount;
+    /**
+     * Number of movies in this version.
+     */
+    private final int size;
+    /**
+     * Row ID of the next appended movie.
+     */
+    private final int nextRowId;
+    /**
+     * Whether every chunk but the last is full, so that the chunk of a position is found by a shift.
+     */
+    private final boolean uniform;
+    /**
+     * Read-only view of the movies of this version.
+     */
+    private final List<Movie> movies = new MovieList();
+    /**
+     * Number of changes of the content of the catalog up to this version.
+     */
+    private final int modificationCount;
+    /**
+     * The column by which the movies are displayed, or {@code null} for the catalog order.
+     */
+    private final SortColumn sortColumn;
+    /**
+     * Whether the movies are displayed in ascending order of {@link #sortColumn}.
+     */
+    private final boolean sortAscending;
+    /**
+     * Permutation of the movies in which they are displayed, or {@code null} for the catalog order.
+     */
+    private final SortOrder sortOrder;
+    /**
+     * Columnar copy of the movies, or {@code null} until first requested.
+     */
+    private volatile MovieColumns columns;
+
+    /**
+     * Creates a version.
+     *
+     * @param chunks the movies of every chunk.
+     * @param chunkRowIds the row IDs of every chunk, or {@code null} entries for consecutive row IDs.
+     * @param firstRowIds the row ID of the first movie of every chunk.
+     * @param chunkStarts the position of the first movie of every chunk.
+     * @param chunkCount the number of chunks.
+     * @param size the number of movies.
+     * @param nextRowId the row ID of the next appended movie.
+     * @param uniform whether every chunk but the last is full.
+     * @param modificationCount the number of changes of the content up to this version.
+     * @param sortColumn the column by which the movies are displayed, or {@code null}.
+     * @param sortAscending whether the movies are displayed in ascending order.
+     * @param sortOrder the permutation in which the movies are displayed, or {@code null}.
+     */
+    private CatalogVersion(Movie[][] chunks, int[][] chunkRowIds, int[] firstRowIds, int[] chunkStarts,
+            int chunkCount, int size, int nextRowId, boolean uniform, int modificationCount,
+            SortColumn sortColumn, boolean sortAscending, SortOrder sortOrder) {
+        this.chunks = chunks;
+        this.chunkRowIds = chunkRowIds;
+        this.firstRowIds = firstRowIds;
+        this.chunkStarts = chunkStarts;
+        this.chunkCount = chunkCount;
+        this.size = size;
+        this.nextRowId = nextRowId;
+        this.uniform = uniform;
+        this.modificationCount = modificationCount;
+        this.sortColumn = sortColumn;
+        this.sortAscending = sortAscending;
+        this.sortOrder = sortOrder;
+    }
+
+    /**
+     * Creates the first version of the catalog of a model. Every model needs its own empty version, as
+     * appending fills the arrays of the version in place.
+     *
+     * @return a new empty version with arrays of its own.
+     */
+    static CatalogVersion empty() {
+        return new CatalogVersion(new Movie[4][], new int[4][], new int[4], new int[4], 0, 0, 0, true, 0,
+                null, true, null);
+    }
+
+    /**
+     * Returns the movies of this version.
+     *
+     * @return a read-only list of the movies in catalog order.
+     */
+    public List<Movie> getMovies() {
+        return movies;
+    }
+
+    /**
+     * Returns the number of movies of this version.
+     *
+     * @return the number of movies.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of changes made to the content of the catalog up to this version.
+     *
+     * @return the modification count.
+     */
+    public int getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns the column by which the movies are displayed.
+     *
+     * @return the sort column, or {@code null} for the catalog order.
+     */
+    public SortColumn getSortColumn() {
+        return sortColumn;
+    }
+
+    /**
+     * Tells whether the movies are displayed in ascending order of the sort column.
+     *
+     * @return {@code true} for the ascending order.
+     */
+    public boolean isSortAscending() {
+        return sortAscending;
+    }
+
+    /**
+     * Returns the movie displayed at a position. Movies appended after the version was sorted are
+     * displayed after the sorted ones, in the order they were added.
+     *
+     * @param position the position in the displayed list.
+     * @return the movie displayed at that position.
+     * @throws IndexOutOfBoundsException if the position is not within the version.
+     */
+    public Movie getMovieAt(int position) {
+        if (sortOrder == null || position >= sortOrder.size()) {
+            return movies.get(position);
+        }
+        return movieAt(sortOrder.rowAt(position, sortAscending));
+    }
+
+    /**
+     * Returns the columnar copy of the movies, building it on first use.
+     *
+     * @return the columns of this version.
+     */
+    public MovieColumns getColumns() {
+        MovieColumns result = columns;
+        if (result == null) {
+            synchronized (this) {
+                result = columns;
+                if (result == null) {
+                    result = new MovieColumns(movies);
+                    columns = result;
+                }
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns the permutation in which the movies are displayed.
+     *
+     * @return the sort order, or {@code null} for the catalog order.
+     */
+    SortOrder getSortOrder() {
+        return sortOrder;
+    }
+
+    /**
+     * Returns the row ID that the next appended movie receives. The movies appended by
+     * {@link #append(Collection)} receive consecutive row IDs from this one.
+     *
+     * @return the next row ID.
+     */
+    int getNextRowId() {
+        return nextRowId;
+    }
+
+    /**
+     * Finds the position in catalog order of the movie with a row ID.
+     *
+     * @param rowId the row ID of the movie.
+     * @return the position of the movie, or {@code -1} if it is not in this version.
+     */
+    int positionOf(int rowId) {
+        int chunk = Arrays.binarySearch(firstRowIds, 0, chunkCount, rowId);
+        if (chunk < 0) {
+            chunk = -chunk - 2;
+            if (chunk < 0) {
+                return -1;
+            }
+        }
+        int length = chunkLength(chunk);
+        int index = chunkRowIds[chunk] == null ? rowId - firstRowIds[chunk]
+                : Arrays.binarySearch(chunkRowIds[chunk], 0, length, rowId);
+        return index >= 0 && index < length ? chunkStarts[chunk] + index : -1;
+    }
+
+    /**
+     * Returns the movie at a position in catalog order.
+     *
+     * @param position the position of the movie.
+     * @return the movie.
+     */
+    private Movie movieAt(int position) {
+        int chunk = uniform ? position >>> CHUNK_SHIFT : chunkOf(position);
+        return chunks[chunk][position - chunkStarts[chunk]];
+    }
+
+    /**
+     * Finds the chunk holding a position by a binary search over the chunk starts.
+     *
+     * @param position a position within the version.
+     * @return the index of the chunk.
+     */
+    private int chunkOf(int position) {
+        int chunk = Arrays.binarySearch(chunkStarts, 0, chunkCount, position);
+        return chunk >= 0 ? chunk : -chunk - 2;
+    }
+
+    /**
+     * Returns the number of movies of a chunk in this version.
+     *
+     * @param chunk the index of the chunk.
+     * @return the number of movies.
+     */
+    private int chunkLength(int chunk) {
+        return (chunk + 1 < chunkCount ? chunkStarts[chunk + 1] : size) - chunkStarts[chunk];
+    }
+
+    /**
+     * Creates the version following this one with movies appended. Only the writer of the catalog may
+     * call this method, and only on the newest version.
+     *
+     * @param added the movies to append, in order.
+     * @return the new version, sharing the chunks of this version.
+     */
+    CatalogVersion append(Collection<Movie> added) {
+        if (added.isEmpty()) {
+            return this;
+        }
+        Editor editor = new Editor(this, false);
+        for (Movie movie : added) {
+            editor.append(movie);
+        }
+        return editor.build(modificationCount + 1, sortColumn, sortAscending, sortOrder);
+    }
+
+    /**
+     * Creates a version with the same movies displayed in another order.
+     *
+     * @param column the column the order was computed for.
+     * @param order the permutation of the movies.
+     * @param ascending {@code true} for the ascending order, {@code false} for the descending order.
+     * @return the new version, sharing the movies and the columns of this version.
+     */
+    CatalogVersion sorted(SortColumn column, SortOrder order, boolean ascending) {
+        CatalogVersion version = new CatalogVersion(chunks, chunkRowIds, firstRowIds, chunkStarts, chunkCount,
+                size, nextRowId, uniform, modificationCount, column, ascending, order);
+        version.columns = columns;
+        return version;
+    }
+
+    /**
+     * Read-only list of the movies of the version in catalog order.
+     */
+    private final class MovieList extends AbstractList<Movie> implements RandomAccess {
+        @Override
+        public Movie get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", size: " + size);
+            }
+            return movieAt(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+    }
+
+    /**
+     * Builds the version following a given one by appending, replacing and removing movies. Only the
+     * writer of the catalog may use an editor, and only on the newest version.
+     *
+     * <p>Chunks are addressed by the row IDs of their movies. A chunk is copied the first time a movie
+     * in it is replaced or removed and then changed in place; appended movies are written behind the
+     * prefix of the last chunk, which no published version reads. The arrays listing the chunks are
+     * copied once per editor, unless it only appends.</p>
+     */
+    static final class Editor {
+        /**
+         * Movies of every chunk.
+         */
+        private Movie[][] chunks;
+        /**
+         * Row IDs of every chunk, or {@code null} entries for consecutive row IDs.
+         */
+        private int[][] chunkRowIds;
+        /**
+         * Lower bound of the row IDs of every chunk; exact for chunks with consecutive row IDs.
+         */
+        private int[] firstRowIds;
+        /**
+         * Position of the first movie of every chunk, valid up to the first changed chunk.
+         */
+        private int[] chunkStarts;
+        /**
+         * Number of movies of every chunk.
+         */
+        private int[] lengths;
+        /**
+         * Whether the movies of a chunk have been copied by this editor and may be changed in place.
+         */
+        private boolean[] ownsMovies;
+        /**
+         * Whether the row IDs of a chunk have been copied by this editor and may be changed in place.
+         */
+        private boolean[] ownsRowIds;
+        /**
+         * Number of chunks.
+         */
+        private int chunkCount;
+        /**
+         * Number of movies.
+         */
+        private int size;
+        /**
+         * Row ID of the next appended movie.
+         */
+        private int nextRowId;
+        /**
+         * Whether every chunk but the last is full; recomputed on build unless the editor only appends.
+         */
+        private boolean uniform;
+        /**
+         * Whether a movie has been removed, after which the chunk arrays no longer match the base version.
+         */
+        private boolean removed;
+
+        /**
+         * Starts editing a version.
+         *
+         * @param base the newest version.
+         * @param copyChunkArrays {@code true} to copy the arrays listing the chunks, which is required
+         *        before movies are replaced or removed; {@code false} if the editor only appends.
+         */
+        Editor(CatalogVersion base, boolean copyChunkArrays) {
+            chunkCount = base.chunkCount;
+            size = base.size;
+            nextRowId = base.nextRowId;
+            uniform = base.uniform;
+            if (copyChunkArrays) {
+                int capacity = Math.max(4, chunkCount + 1);
+                chunks = Arrays.copyOf(base.chunks, capacity);
+                chunkRowIds = Arrays.copyOf(base.chunkRowIds, capacity);
+                firstRowIds = Arrays.copyOf(base.firstRowIds, capacity);
+                chunkStarts = Arrays.copyOf(base.chunkStarts, capacity);
+                lengths = new int[capacity];
+                for (int chunk = 0; chunk < chunkCount; chunk++) {
+                    lengths[chunk] = base.chunkLength(chunk);
+                }
+                ownsMovies = new boolean[capacity];
+                ownsRowIds = new boolean[capacity];
+            } else {
+                chunks = base.chunks;
+                chunkRowIds = base.chunkRowIds;
+                firstRowIds = base.firstRowIds;
+                chunkStarts = base.chunkStarts;
+            }
+        }
+
+        /**
+         * Returns the row ID that the next appended movie receives.
+         *
+         * @return the next row ID.
+         */
+        int getNextRowId() {
+            return nextRowId;
+        }
+
+        /**
+         * Appends a movie at the end of the catalog.
+         *
+         * @param movie the movie to append.
+         * @return the row ID of the movie.
+         */
+        int append(Movie movie) {
+            int tail = chunkCount - 1;
+            int length = tail < 0 ? CHUNK_SIZE : tailLength();
+            boolean consecutive = tail >= 0 && chunkRowIds[tail] == null;
+            if (length == CHUNK_SIZE || (consecutive && firstRowIds[tail] + length != nextRowId)) {
+                tail = addChunk();
+                length = 0;
+            } else if (length == chunks[tail].length) {
+                growTail();
+            }
+            chunks[tail][length] = movie;
+            if (chunkRowIds[tail] != null) {
+                chunkRowIds[tail][length] = nextRowId;
+            }
+            if (lengths != null) {
+                lengths[tail]++;
+            }
+            size++;
+            return nextRowId++;
+        }
+
+        /**
+         * Replaces the movie with a row ID, which keeps its row ID and position.
+         *
+         * @param rowId the row ID of the movie to replace.
+         * @param movie the replacing movie.
+         * @throws IllegalArgumentException if no movie has the row ID.
+         */
+        void replace(int rowId, Movie movie) {
+            int chunk = chunkOfRowId(rowId);
+            int index = indexInChunk(chunk, rowId);
+            ownMovies(chunk);
+            chunks[chunk][index] = movie;
+        }
+
+        /**
+         * Removes the movie with a row ID. The positions of the following movies shift by one.
+         *
+         * @param rowId the row ID of the movie to remove.
+         * @throws IllegalArgumentException if no movie has the row ID.
+         */
+        void remove(int rowId) {
+            int chunk = chunkOfRowId(rowId);
+            int index = indexInChunk(chunk, rowId);
+            ownMovies(chunk);
+            ownRowIds(chunk);
+            int length = lengths[chunk];
+            System.arraycopy(chunks[chunk], index + 1, chunks[chunk], index, length - index - 1);
+            System.arraycopy(chunkRowIds[chunk], index + 1, chunkRowIds[chunk], index, length - index - 1);
+            chunks[chunk][length - 1] = null;
+            lengths[chunk]--;
+            size--;
+            removed = true;
+        }
+
+        /**
+         * Creates the edited version.
+         *
+         * @param modificationCount the modification count of the new version.
+         * @param sortColumn the column by which the new version is displayed, or {@code null}.
+         * @param sortAscending whether the new version is displayed in ascending order.
+         * @param sortOrder the permutation in which the new version is displayed, or {@code null}.
+         * @return the new version.
+         */
+        CatalogVersion build(int modificationCount, SortColumn sortColumn, boolean sortAscending,
+                SortOrder sortOrder) {
+            if (removed) {
+                compact();
+            }
+            if (lengths != null) {
+                uniform = true;
+                for (int chunk = 0; chunk + 1 < chunkCount; chunk++) {
+                    uniform &= lengths[chunk] == CHUNK_SIZE;
+                }
+            }
+            return new CatalogVersion(chunks, chunkRowIds, firstRowIds, chunkStarts, chunkCount, size,
+                    nextRowId, uniform, modificationCount, sortColumn, sortAscending, sortOrder);
+        }
+
+        /**
+         * Returns the number of movies of the last chunk.
+         *
+         * @return the number of movies.
+         */
+        private int tailLength() {
+            int tail = chunkCount - 1;
+            return lengths != null ? lengths[tail] : size - chunkStarts[tail];
+        }
+
+        /**
+         * Adds an empty chunk after the last one, growing the chunk arrays if needed. New entries are
+         * written behind the chunks of the base version, which it does not read.
+         *
+         * @return the index of the new chunk.
+         */
+        private int addChunk() {
+            if (chunkCount == chunks.length) {
+                int capacity = chunks.length * 2;
+                chunks = Arrays.copyOf(chunks, capacity);
+                chunkRowIds = Arrays.copyOf(chunkRowIds, capacity);
+                firstRowIds = Arrays.copyOf(firstRowIds, capacity);
+                chunkStarts = Arrays.copyOf(chunkStarts, capacity);
+                if (lengths != null) {
+                    lengths = Arrays.copyOf(lengths, capacity);
+                    ownsMovies = Arrays.copyOf(ownsMovies, capacity);
+                    ownsRowIds = Arrays.copyOf(ownsRowIds, capacity);
+                }
+            }
+            int chunk = chunkCount++;
+            if (chunk > 0 && lengths == null && size - chunkStarts[chunk - 1] < CHUNK_SIZE) {
+                uniform = false;
+            }
+            chunks[chunk] = new Movie[chunk == 0 ? FIRST_CHUNK_CAPACITY : CHUNK_SIZE];
+            chunkRowIds[chunk] = null;
+            firstRowIds[chunk] = nextRowId;
+            chunkStarts[chunk] = size;
+            if (lengths != null) {
+                lengths[chunk] = 0;
+                ownsMovies[chunk] = true;
+                ownsRowIds[chunk] = true;
+            }
+            return chunk;
+        }
+
+        /**
+         * Moves the movies of the last chunk into a larger array. The chunk arrays are copied first, as
+         * their entry for the last chunk is read by the base version.
+         */
+        private void growTail() {
+            int tail = chunkCount - 1;
+            if (lengths == null) {
+                chunks = chunks.clone();
+                chunkRowIds = chunkRowIds.clone();
+            }
+            int capacity = Math.min(CHUNK_SIZE, chunks[tail].length * 2);
+            chunks[tail] = Arrays.copyOf(chunks[tail], capacity);
+            if (chunkRowIds[tail] != null) {
+                chunkRowIds[tail] = Arrays.copyOf(chunkRowIds[tail], capacity);
+            }
+        }
+
+        /**
+         * Copies the movies of a chunk before they are changed in place.
+         *
+         * @param chunk the index of the chunk.
+         */
+        private void ownMovies(int chunk) {
+            if (!ownsMovies[chunk]) {
+                chunks[chunk] = Arrays.copyOf(chunks[chunk], CHUNK_SIZE);
+                ownsMovies[chunk] = true;
+            }
+        }
+
+        /**
+         * Copies the row IDs of a chunk, listing them explicitly, before they are changed in place.
+         *
+         * @param chunk the index of the chunk.
+         */
+        private void ownRowIds(int chunk) {
+            if (ownsRowIds[chunk]) {
+                return;
+            }
+            int[] rowIds = new int[CHUNK_SIZE];
+            if (chunkRowIds[chunk] == null) {
+                for (int i = 0; i < lengths[chunk]; i++) {
+                    rowIds[i] = firstRowIds[chunk] + i;
+                }
+            } else {
+                System.arraycopy(chunkRowIds[chunk], 0, rowIds, 0, lengths[chunk]);
+            }
+            chunkRowIds[chunk] = rowIds;
+            ownsRowIds[chunk] = true;
+        }
+
+        /**
+         * Finds the chunk that holds a row ID, if any movie has it.
+         *
+         * @param rowId the row ID.
+         * @return the index of the only chunk that may hold the row ID.
+         * @throws IllegalArgumentException if the row ID precedes every chunk.
+         */
+        private int chunkOfRowId(int rowId) {
+            if (lengths == null) {
+                throw new IllegalStateException("The editor was created for appending only.");
+            }
+            int chunk = Arrays.binarySearch(firstRowIds, 0, chunkCount, rowId);
+            if (chunk < 0) {
+                chunk = -chunk - 2;
+            }
+            if (chunk < 0) {
+                throw new IllegalArgumentException("No movie with row ID " + rowId);
+            }
+            return chunk;
+        }
+
+        /**
+         * Finds the index of a row ID within a chunk.
+         *
+         * @param chunk the index of the chunk.
+         * @param rowId the row ID.
+         * @return the index of the movie within the chunk.
+         * @throws IllegalArgumentException if no movie of the chunk has the row ID.
+         */
+        private int indexInChunk(int chunk, int rowId) {
+            int length = lengths[chunk];
+            int index = chunkRowIds[chunk] == null ? rowId - firstRowIds[chunk]
+                    : Arrays.binarySearch(chunkRowIds[chunk], 0, length, rowId);
+            if (index < 0 || index >= length) {
+                throw new IllegalArgumentException("No movie with row ID " + rowId);
+            }
+            return index;
+        }
+
+        /**
+         * Drops the chunks emptied by removals and recomputes the chunk starts and first row IDs.
+         */
+        private void compact() {
+            int count = 0;
+            int position = 0;
+            for (int chunk = 0; chunk < chunkCount; chunk++) {
+                int length = lengths[chunk];
+                if (length == 0) {
+                    continue;
+                }
+                chunks[count] = chunks[chunk];
+                chunkRowIds[count] = chunkRowIds[chunk];
+                firstRowIds[count] = chunkRowIds[chunk] != null ? chunkRowIds[chunk][0] : firstRowIds[chunk];
+                lengths[count] = length;
+                ownsMovies[count] = ownsMovies[chunk];
+                ownsRowIds[count] = ownsRowIds[chunk];
+                chunkStarts[count] = position;
+                position += length;
+                count++;
+            }
+            for (int chunk = count; chunk < chunkCount; chunk++) {
+                chunks[chunk] = null;
+                chunkRowIds[chunk] = null;
+            }
+            chunkCount = count;
+            removed = false;
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package pl.polsl.model;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Frequency index counting how many movies were produced in each country, maintained incrementally
+ * as movies are added to and removed from the catalog.
+ * 
+ * <p>Multi-country values such as "United States, India" are split, so the movie is counted once for
+ * every distinct listed country, exactly as in the country facet of {@link MovieFacets}. Besides a
+ * hash map of counts, the counter keeps the countries ranked by count in a balanced tree, which makes
+ * an update cost {@code O(log n)}, the most common country available in {@code O(1)} and the top
+ * {@code k} countries in {@code O(k + log n)}, where {@code n} is the number of distinct countries.</p>
+ * 
+ * <p>Countries with the same count are ranked alphabetically.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class CountryCounter {
+    
+    /**
+     * Number of movies produced in a country.
+     *
+     * @param country the name of the country.
+     * @param count the number of movies produced in the country.
+     */
+    public record CountryCount(String country, int count) {
+    }
+    
+    /**
+     * Order of the ranking: descending count, then ascending country name.
+     */
+    private static final Comparator<CountryCount> RANKING_ORDER = Comparator
+            .comparingInt(CountryCount::count).reversed()
+            .thenComparing(CountryCount::country);
+    /**
+     * Current count of every country with at least one movie.
+     */
+    private final Map<String, Integer> counts = new HashMap<>();
+    /**
+     * All countries with at least one movie, ranked by {@link #RANKING_ORDER}.
+     */
+    private final TreeSet<CountryCount> ranking = new TreeSet<>(RANKING_ORDER);
+    /**
+     * The first entry of {@link #ranking}, or {@code null} if the counter is empty.
+     */
+    private CountryCount top;
+    
+    /**
+     * Splits the country field of a movie into the individual countries.
+     *
+     * @param country the country field, e.g. "United States, India"; may be {@code null}.
+     * @return the trimmed, non-blank, distinct country names in the order they first appear.
+     * @see MultiValueIndex#split(String)
+     */
+    public static List<String> splitCountries(String country) {
+        return MultiValueIndex.split(country);
+    }
+    
+    /**
+     * Counts a movie for each of its countries.
+     *
+     * @param movie the movie added to the catalog.
+     */
+    public void add(Movie movie) {
+        add(splitCountries(movie.country()));
+    }
+    
+    /**
+     * Counts a movie for each of its countries, already split by {@link #splitCountries(String)}.
+     *
+     * @param countries the distinct countries of the movie added to the catalog.
+     */
+    public void add(List<String> countries) {
+        for (String country : countries) {
+            update(country, 1);
+        }
+    }
+    
+    /**
+     * Stops counting a movie for each of its countries.
+     *
+     * @param movie the movie removed from the catalog.
+     */
+    public void remove(Movie movie) {
+        remove(splitCountries(movie.country()));
+    }
+    
+    /**
+     * Stops counting a movie for each of its countries, already split by {@link #splitCountries(String)}.
+     *
+     * @param countries the distinct countries of the movie removed from the catalog.
+     */
+    public void remove(List<String> countries) {
+        for (String country : countries) {
+            update(country, -1);
+        }
+    }
+    
+    /**
+     * Returns the country with the most movies.
+     *
+     * @return the most common country, or {@code null} if no movie has a country.
+     */
+    public String getMostCommon() {
+        return top != null ? top.country() : null;
+    }
+    
+    /**
+     * Returns the countries with the most movies.
+     *
+     * @param k the maximum number of countries to return.
+     * @return up to {@code k} countries with their counts, from the most common one.
+     */
+    public List<CountryCount> getTop(int k) {
+        List<CountryCount> result = new ArrayList<>(Math.min(k, ranking.size()));
+        Iterator<CountryCount> iterator = ranking.iterator();
+        while (result.size() < k && iterator.hasNext()) {
+            result.add(iterator.next());
+        }
+        return result;
+    }
+    
+    /**
+     * Returns the number of movies counted for a country.
+     *
+     * @param country the name of the country.
+     * @return the number of movies produced in the country.
+     */
+    public int getCount(String country) {
+        return counts.getOrDefault(country, 0);
+    }
+    
+    /**
+     * Changes the count of a country and moves it to its new place in the ranking.
+     *
+     * @param country the name of the country.
+     * @param delta the change of the count.
+     */
+    private void update(String country, int delta) {
+        int oldCount = counts.getOrDefault(country, 0);
+        int newCount = oldCount + delta;
+        if (oldCount > 0) {
+            ranking.remove(new CountryCount(country, oldCount));
+        }
+        if (newCount > 0) {
+            counts.put(country, newCount);
+            ranking.add(new CountryCount(country, newCount));
+        } else {
+            counts.remove(country);
+        }
+        top = ranking.isEmpty() ? null : ranking.first();
+    }
+}
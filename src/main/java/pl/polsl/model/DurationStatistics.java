@@ -0,0 +1,249 @@
+package pl.polsl.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Duration statistics of the catalog per country, kept separately for movies and TV shows and
+ * maintained incrementally as movies are added to and removed from the catalog.
+ *
+ * <p>Movies are measured by {@link Movie#durationMinutes()} and TV shows by
+ * {@link Movie#durationSeasons()}; titles whose duration is missing or given in the other unit are
+ * not counted. As in {@link CountryCounter}, a title produced in several countries is counted once
+ * for every distinct listed country.</p>
+ *
+ * <p>Every country keeps the count and the sum of the lengths, from which the mean is derived, and a
+ * histogram of the lengths, which keeps the minimum and maximum exact when titles are removed. Each
+ * title is visited once, and statistics built over separate parts of a catalog can be combined with
+ * {@link #merge(DurationStatistics)}, so {@link #of(Collection)} aggregates a whole catalog in a
+ * single parallel pass. The ranked lists returned by {@link #getByCountry(MovieType)} are cached
+ * until the statistics of that type change.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class DurationStatistics {
+
+    /**
+     * Duration statistics of the movies or TV shows produced in a country.
+     *
+     * @param country the name of the country.
+     * @param type the type of the titles described.
+     * @param count the number of titles with a known duration.
+     * @param sum the total length of the titles, in minutes for movies and in seasons for TV shows.
+     * @param min the length of the shortest title.
+     * @param max the length of the longest title.
+     */
+    public record CountryDuration(String country, MovieType type, int count, long sum, int min, int max) {
+
+        /**
+         * Returns the average length of the titles.
+         *
+         * @return the mean length, in minutes for movies and in seasons for TV shows.
+         */
+        public double mean() {
+            return (double) sum / count;
+        }
+    }
+
+    /**
+     * Order of the ranking: descending count, then ascending country name.
+     */
+    private static final Comparator<CountryDuration> RANKING_ORDER = Comparator
+            .comparingInt(CountryDuration::count).reversed()
+            .thenComparing(CountryDuration::country);
+    /**
+     * Accumulated lengths of every country with at least one title, per type.
+     */
+    private final Map<MovieType, Map<String, Accumulator>> accumulators = new EnumMap<>(MovieType.class);
+    /**
+     * Ranked statistics per type, or no entry if the statistics of the type changed since they were ranked.
+     * Synchronized, as concurrent readers fill it.
+     */
+    private final Map<MovieType, List<CountryDuration>> cache = Collections.synchronizedMap(new EnumMap<>(MovieType.class));
+
+    /**
+     * Aggregates the durations of a catalog in one pass, splitting the work between all available cores.
+     *
+     * @param movies the movies to aggregate.
+     * @return the statistics of the movies.
+     */
+    public static DurationStatistics of(Collection<Movie> movies) {
+        return movies.parallelStream()
+                .collect(DurationStatistics::new, DurationStatistics::add, DurationStatistics::merge);
+    }
+
+    /**
+     * Returns the length by which a title is measured: minutes for movies and seasons for TV shows.
+     *
+     * @param movie the title to measure.
+     * @return the length of the title, or {@link Movie#UNKNOWN_DURATION} if it is not given in that unit.
+     */
+    public static int lengthOf(Movie movie) {
+        return movie.type() == MovieType.TV_SHOW ? movie.durationSeasons() : movie.durationMinutes();
+    }
+
+    /**
+     * Counts the length of a title for each of its countries.
+     *
+     * @param movie the movie added to the catalog.
+     */
+    public void add(Movie movie) {
+        update(movie, CountryCounter.splitCountries(movie.country()), 1);
+    }
+
+    /**
+     * Counts the length of a title for each of its countries, already split by
+     * {@link CountryCounter#splitCountries(String)}.
+     *
+     * @param movie the movie added to the catalog.
+     * @param countries the distinct countries of the movie.
+     */
+    public void add(Movie movie, List<String> countries) {
+        update(movie, countries, 1);
+    }
+
+    /**
+     * Stops counting the length of a title for each of its countries.
+     *
+     * @param movie the movie removed from the catalog.
+     */
+    public void remove(Movie movie) {
+        update(movie, CountryCounter.splitCountries(movie.country()), -1);
+    }
+
+    /**
+     * Stops counting the length of a title for each of its countries, already split by
+     * {@link CountryCounter#splitCountries(String)}.
+     *
+     * @param movie the movie removed from the catalog.
+     * @param countries the distinct countries of the movie.
+     */
+    public void remove(Movie movie, List<String> countries) {
+        update(movie, countries, -1);
+    }
+
+    /**
+     * Adds the statistics of another part of the catalog to these statistics.
+     *
+     * @param other the statistics to add; they are not modified.
+     */
+    public void merge(DurationStatistics other) {
+        other.accumulators.forEach((type, byCountry) -> {
+            Map<String, Accumulator> target = accumulators.computeIfAbsent(type, t -> new HashMap<>());
+            byCountry.forEach((country, accumulator) ->
+                    target.computeIfAbsent(country, c -> new Accumulator()).merge(accumulator));
+            cache.remove(type);
+        });
+    }
+
+    /**
+     * Returns the statistics of every country with at least one title of a type.
+     *
+     * @param type the type of the titles.
+     * @return the statistics of the countries, from the one with the most titles.
+     */
+    public List<CountryDuration> getByCountry(MovieType type) {
+        return cache.computeIfAbsent(type, t -> {
+            Map<String, Accumulator> byCountry = accumulators.getOrDefault(t, Map.of());
+            List<CountryDuration> ranked = new ArrayList<>(byCountry.size());
+            byCountry.forEach((country, accumulator) -> ranked.add(accumulator.toCountryDuration(country, t)));
+            ranked.sort(RANKING_ORDER);
+            return List.copyOf(ranked);
+        });
+    }
+
+    /**
+     * Returns the statistics of the titles of a type produced in a country.
+     *
+     * @param country the name of the country.
+     * @param type the type of the titles.
+     * @return the statistics of the country, or {@code null} if it has no title of that type with a known duration.
+     */
+    public CountryDuration get(String country, MovieType type) {
+        Accumulator accumulator = accumulators.getOrDefault(type, Map.of()).get(country);
+        return accumulator != null ? accumulator.toCountryDuration(country, type) : null;
+    }
+
+    /**
+     * Adds or removes the length of a title for each of its countries.
+     *
+     * @param movie the title added or removed.
+     * @param countries the distinct countries of the title.
+     * @param delta {@code 1} to add the title, {@code -1} to remove it.
+     */
+    private void update(Movie movie, List<String> countries, int delta) {
+        int length = lengthOf(movie);
+        if (length == Movie.UNKNOWN_DURATION) {
+            return;
+        }
+        Map<String, Accumulator> byCountry = accumulators.computeIfAbsent(movie.type(), t -> new HashMap<>());
+        for (String country : countries) {
+            Accumulator accumulator = byCountry.computeIfAbsent(country, c -> new Accumulator());
+            accumulator.update(length, delta);
+            if (accumulator.count == 0) {
+                byCountry.remove(country);
+            }
+        }
+        cache.remove(movie.type());
+    }
+
+    /**
+     * Running count, sum and histogram of the lengths of one country and type.
+     */
+    private static final class Accumulator {
+        /**
+         * Number of titles counted.
+         */
+        private int count;
+        /**
+         * Total length of the titles counted.
+         */
+        private long sum;
+        /**
+         * Number of titles counted per length.
+         */
+        private final TreeMap<Integer, Integer> lengths = new TreeMap<>();
+
+        /**
+         * Adds or removes one title.
+         *
+         * @param length the length of the title.
+         * @param delta {@code 1} to add the title, {@code -1} to remove it.
+         */
+        private void update(int length, int delta) {
+            count += delta;
+            sum += (long) delta * length;
+            lengths.merge(length, delta, (current, change) -> current + change == 0 ? null : current + change);
+        }
+
+        /**
+         * Adds the titles counted by another accumulator.
+         *
+         * @param other the accumulator to add.
+         */
+        private void merge(Accumulator other) {
+            count += other.count;
+            sum += other.sum;
+            other.lengths.forEach((length, titles) -> lengths.merge(length, titles, Integer::sum));
+        }
+
+        /**
+         * Describes the titles counted so far.
+         *
+         * @param country the name of the country.
+         * @param type the type of the titles.
+         * @return the statistics of the titles.
+         */
+        private CountryDuration toCountryDuration(String country, MovieType type) {
+            return new CountryDuration(country, type, count, sum, lengths.firstKey(), lengths.lastKey());
+        }
+    }
+}
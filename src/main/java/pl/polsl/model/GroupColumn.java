@@ -0,0 +1,130 @@
+package pl.polsl.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Group keys of every row of a {@link MovieColumns} for one {@link GroupField}, used by {@link MovieQuery}.
+ *
+ * <p>The keys are dictionary-encoded into dense codes and stored in compressed sparse row layout: the
+ * codes of row {@code r} are {@code codes[offsets[r]]} to {@code codes[offsets[r + 1] - 1]}. A
+ * single-valued field has at most one code per row, an exploded field any number, and a row without
+ * a value none. Because the codes are dense, aggregation state can be kept in plain arrays indexed by code.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+final class GroupColumn {
+    /**
+     * Start of the codes of each row in {@link #codes}, followed by the total number of codes.
+     */
+    final int[] offsets;
+    /**
+     * Group codes of all rows, row after row.
+     */
+    final int[] codes;
+    /**
+     * Dictionary of the group values.
+     */
+    private final StringDictionary dictionary;
+
+    /**
+     * Creates a group column from its encoded parts.
+     *
+     * @param offsets the start of the codes of each row, followed by the total number of codes.
+     * @param codes the group codes of all rows.
+     * @param dictionary the dictionary of the group values.
+     */
+    private GroupColumn(int[] offsets, int[] codes, StringDictionary dictionary) {
+        this.offsets = offsets;
+        this.codes = codes;
+        this.dictionary = dictionary;
+    }
+
+    /**
+     * Encodes the group keys of every row. Each distinct raw value is split only once, so the raw
+     * values of low-cardinality columns should be shared strings.
+     *
+     * @param rows the number of rows.
+     * @param rawValue the raw field of a row; never {@code null}.
+     * @param splitter turns a raw field into the group keys of the row.
+     * @return the encoded group keys.
+     */
+    static GroupColumn build(int rows, IntFunction<String> rawValue, Function<String, List<String>> splitter) {
+        StringDictionary dictionary = new StringDictionary();
+        Map<String, int[]> splitCodes = new HashMap<>();
+        int[] offsets = new int[rows + 1];
+        int[] codes = new int[Math.max(16, rows)];
+        int length = 0;
+        for (int row = 0; row < rows; row++) {
+            int[] rowCodes = splitCodes.computeIfAbsent(rawValue.apply(row),
+                    raw -> splitter.apply(raw).stream().mapToInt(dictionary::encode).toArray());
+            if (length + rowCodes.length > codes.length) {
+                codes = Arrays.copyOf(codes, Math.max(codes.length * 2, length + rowCodes.length));
+            }
+            System.arraycopy(rowCodes, 0, codes, length, rowCodes.length);
+            length += rowCodes.length;
+            offsets[row + 1] = length;
+        }
+        return new GroupColumn(offsets, Arrays.copyOf(codes, length), dictionary);
+    }
+
+    /**
+     * Splits a single-valued field: an empty field has no group, any other field is its own group.
+     *
+     * @param value the raw field.
+     * @return the group key of the field, if any.
+     */
+    static List<String> single(String value) {
+        return value.isEmpty() ? List.of() : List.of(value);
+    }
+
+    /**
+     * Returns the number of distinct groups.
+     *
+     * @return the number of group codes.
+     */
+    int cardinality() {
+        return dictionary.size();
+    }
+
+    /**
+     * Returns the value of a group.
+     *
+     * @param code the group code.
+     * @return the value the group stands for.
+     */
+    String decode(int code) {
+        return dictionary.decode(code);
+    }
+
+    /**
+     * Finds the code of a value.
+     *
+     * @param value the value to look up.
+     * @return the code of the value, or {@code -1} if no row has it.
+     */
+    int code(String value) {
+        return dictionary.code(value);
+    }
+
+    /**
+     * Tells whether a row belongs to a group.
+     *
+     * @param row the index of the row.
+     * @param code the group code.
+     * @return {@code true} if the row has the value of the group.
+     */
+    boolean contains(int row, int code) {
+        for (int i = offsets[row]; i < offsets[row + 1]; i++) {
+            if (codes[i] == code) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,73 @@
+package pl.polsl.model;
+
+/**
+ * Enum representing the attributes by which a {@link MovieQuery} can group the movies.
+ * 
+ * <p>Multi-valued attributes are exploded: a movie listed with several countries, genres or cast
+ * members belongs to the group of every listed value. Movies for which the attribute is unknown belong
+ * to no group.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public enum GroupField {
+    /** 
+     * Groups by the type of the title, movie or TV show. 
+     */
+    TYPE(false),
+    /** 
+     * Groups by the country field as listed, e.g. "United States, India". 
+     */
+    COUNTRY(false),
+    /** 
+     * Groups by every individual country of the country field. 
+     */
+    COUNTRIES(true),
+    /** 
+     * Groups by every genre the title is listed in. 
+     */
+    GENRE(true),
+    /** 
+     * Groups by every cast member of the title. 
+     */
+    CAST(true),
+    /** 
+     * Groups by the age rating. 
+     */
+    RATING(false),
+    /** 
+     * Groups by the director field as listed. 
+     */
+    DIRECTOR(false),
+    /** 
+     * Groups by the release year. 
+     */
+    RELEASE_YEAR(false),
+    /** 
+     * Groups by the year the title was added to the platform. 
+     */
+    YEAR_ADDED(false);
+    
+    /** 
+     * Whether a single movie may belong to several groups of this attribute. 
+     */
+    private final boolean multiValued;
+    
+    /**
+     * Constructs a {@code GroupField}.
+     * 
+     * @param multiValued whether a single movie may belong to several groups of this attribute.
+     */
+    GroupField(boolean multiValued) {
+        this.multiValued = multiValued;
+    }
+    
+    /**
+     * Tells whether the attribute is exploded into several groups per movie.
+     * 
+     * @return {@code true} if a single movie may belong to several groups of this attribute.
+     */
+    public boolean isMultiValued() {
+        return multiValued;
+    }
+}
@@ -0,0 +1,38 @@
+package pl.polsl.model;
+
+/**
+ * Enum selecting how a {@link Model} reads its catalog from the CSV file.
+ * 
+ * <p>Each value represents a loading strategy:</p>
+ * <ul>
+ *   <li>{@link #SERIAL} - Parses the file row by row on the calling thread.</li>
+ *   <li>{@link #PARALLEL} - Splits the file into ranges parsed concurrently by {@link ParallelCsvLoader}.</li>
+ *   <li>{@link #MAPPED} - Memory-maps the file and parses its bytes directly with {@link MappedCsvReader}.</li>
+ *   <li>{@link #SNAPSHOT} - Reads a {@link BinarySnapshot} of the file, creating it on the first load.</li>
+ * </ul>
+ * 
+ * <p>All strategies produce the same movies in the same order.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public enum LoadMode {
+    /** 
+     * Parses the file row by row on the calling thread. 
+     */
+    SERIAL,
+    /** 
+     * Parses ranges of the file concurrently on a fork/join pool. 
+     */
+    PARALLEL,
+    /** 
+     * Parses the memory-mapped bytes of the file without a character stream. Falls back to
+     * {@link #SERIAL} when the bundled CSV file is not a plain file, e.g. inside a jar.
+     */
+    MAPPED,
+    /** 
+     * Reads the memory-mapped {@link BinarySnapshot} of the file if it is up to date; otherwise parses
+     * the file as {@link #MAPPED} and writes a new snapshot for the next start.
+     */
+    SNAPSHOT
+}
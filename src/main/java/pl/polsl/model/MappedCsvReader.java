@@ -0,0 +1,433 @@
+package pl.polsl.model;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reader that memory-maps a Netflix titles CSV file and parses its UTF-8 bytes directly.
+ *
+ * <p>In contrast to {@link MovieCsvReader}, no character stream is involved: delimiters, quotes and
+ * line breaks are located by scanning the mapped bytes, and a {@code String} is only created once per
+ * field, from the exact bytes of that field. Surrounding whitespace is skipped before decoding, so
+ * trimming does not allocate either. Line breaks inside quoted fields are normalized to {@code '\n'},
+ * so the movies are identical to those read by {@link MovieCsvReader}.</p>
+ *
+ * <p>Files larger than a single mapping are read through a sliding window that is re-mapped at the
+ * start of the record crossing its end, so a single record must fit within {@link #WINDOW_SIZE}.
+ * All offsets in the file are {@code long}s, so files larger than 2 GB are read as well.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class MappedCsvReader implements Closeable {
+    /**
+     * Maximum number of bytes mapped at once.
+     */
+    static final int WINDOW_SIZE = 1 << 30;
+    /**
+     * The channel of the mapped file.
+     */
+    private final FileChannel channel;
+    /**
+     * Whether {@link #close()} closes {@link #channel}; readers of a range share the channel of their caller.
+     */
+    private final boolean ownsChannel;
+    /**
+     * Offset in the file just after the last byte read by this reader.
+     */
+    private final long end;
+    /**
+     * Maximum number of bytes mapped at once by this reader.
+     */
+    private final int windowSize;
+    /**
+     * The currently mapped window of the file.
+     */
+    private ByteBuffer window;
+    /**
+     * Offset in the file of the first byte of {@link #window}.
+     */
+    private long windowStart;
+    /**
+     * Position within {@link #window} of the next record.
+     */
+    private int position;
+    /**
+     * Fields of the current record; reused between records.
+     */
+    private final String[] fields = new String[MovieCsvReader.COLUMN_COUNT];
+    /**
+     * Buffer collecting the unescaped bytes of a quoted field; grown on demand.
+     */
+    private byte[] scratch = new byte[256];
+    /**
+     * Dictionaries sharing repeated values between movies, or {@code null} to keep values as read.
+     */
+    private MovieInterner interner;
+
+    /**
+     * Opens a reader over the given CSV file and skips its header line.
+     *
+     * @param csvFile the path of the CSV file.
+     * @throws InvalidMovieIdException if the file cannot be opened or mapped.
+     */
+    public MappedCsvReader(Path csvFile) throws InvalidMovieIdException {
+        this(csvFile, WINDOW_SIZE);
+    }
+
+    /**
+     * Opens a reader over the given CSV file with a custom mapping window and skips its header line.
+     *
+     * @param csvFile the path of the CSV file.
+     * @param windowSize the maximum number of bytes mapped at once.
+     * @throws InvalidMovieIdException if the file cannot be opened or mapped.
+     */
+    MappedCsvReader(Path csvFile, int windowSize) throws InvalidMovieIdException {
+        try {
+            this.channel = FileChannel.open(csvFile, StandardOpenOption.READ);
+            this.ownsChannel = true;
+            this.end = channel.size();
+            this.windowSize = windowSize;
+            map(0);
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+        if (!skipRecord()) {
+            throw new InvalidMovieIdException("Error reading the CSV file: record larger than the mapping window.");
+        }
+    }
+
+    /**
+     * Opens a reader over the records between two offsets of an open CSV file. The range must start at
+     * the beginning of a record and is not expected to contain a header line.
+     *
+     * @param channel the channel of the CSV file; it is not closed by the reader.
+     * @param start the offset of the first record of the range.
+     * @param end the offset just after the last record of the range.
+     * @param windowSize the maximum number of bytes mapped at once.
+     * @throws InvalidMovieIdException if the range cannot be mapped.
+     */
+    private MappedCsvReader(FileChannel channel, long start, long end, int windowSize) throws InvalidMovieIdException {
+        this.channel = channel;
+        this.ownsChannel = false;
+        this.end = end;
+        this.windowSize = windowSize;
+        try {
+            map(start);
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads the movies whose records lie between two offsets of an open CSV file. Several ranges of
+     * the same channel may be loaded concurrently.
+     *
+     * @param channel the channel of the CSV file; it is not closed.
+     * @param start the offset of the first record of the range.
+     * @param end the offset just after the last record of the range.
+     * @param interner the dictionaries to use, or {@code null} to keep values as read.
+     * @return the movies of the range in file order.
+     * @throws InvalidMovieIdException if the range cannot be read or any row contains invalid data.
+     */
+    static List<Movie> loadRange(FileChannel channel, long start, long end, MovieInterner interner)
+            throws InvalidMovieIdException {
+        List<Movie> movies = new ArrayList<>();
+        MappedCsvReader reader = new MappedCsvReader(channel, start, end, WINDOW_SIZE);
+        reader.setInterner(interner);
+        Movie movie;
+        while ((movie = reader.readNext()) != null) {
+            movies.add(movie);
+        }
+        return movies;
+    }
+
+    /**
+     * Loads all movies from the given CSV file.
+     *
+     * @param csvFile the path of the CSV file.
+     * @return the movies in file order.
+     * @throws InvalidMovieIdException if the file cannot be read or any row contains invalid data.
+     */
+    public static List<Movie> load(Path csvFile) throws InvalidMovieIdException {
+        return load(csvFile, null);
+    }
+
+    /**
+     * Loads all movies from the given CSV file, sharing repeated values through the given dictionaries.
+     *
+     * @param csvFile the path of the CSV file.
+     * @param interner the dictionaries to use, or {@code null} to keep values as read.
+     * @return the movies in file order.
+     * @throws InvalidMovieIdException if the file cannot be read or any row contains invalid data.
+     */
+    public static List<Movie> load(Path csvFile, MovieInterner interner) throws InvalidMovieIdException {
+        List<Movie> movies = new ArrayList<>();
+        try (MappedCsvReader reader = new MappedCsvReader(csvFile)) {
+            reader.setInterner(interner);
+            Movie movie;
+            while ((movie = reader.readNext()) != null) {
+                movies.add(movie);
+            }
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+        return movies;
+    }
+
+    /**
+     * Resolves the bundled CSV resource to a file that can be memory-mapped.
+     *
+     * @return the path of the bundled CSV file, or {@code null} if it is not a plain file
+     *         (for example when it is packaged inside a jar).
+     */
+    public static Path bundledFile() {
+        URL url = MappedCsvReader.class.getClassLoader().getResource(MovieCsvReader.DEFAULT_RESOURCE);
+        if (url == null || !"file".equals(url.getProtocol())) {
+            return null;
+        }
+        try {
+            return Path.of(url.toURI());
+        } catch (URISyntaxException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Sets the dictionaries used to share repeated values between the movies read.
+     *
+     * @param interner the dictionaries to use, or {@code null} to keep values as read.
+     */
+    public void setInterner(MovieInterner interner) {
+        this.interner = interner;
+    }
+
+    /**
+     * Reads the next movie from the file.
+     *
+     * @return the next movie, or {@code null} if the end of the file has been reached.
+     * @throws InvalidMovieIdException if the file cannot be read or the row contains invalid data.
+     */
+    public Movie readNext() throws InvalidMovieIdException {
+        if (windowStart + position >= end) {
+            return null;
+        }
+        int fieldCount = readRecord();
+        if (fieldCount < 0) {
+            // The record crosses the end of the window: map a new window starting at the record.
+            remap();
+            fieldCount = readRecord();
+            if (fieldCount < 0) {
+                throw new InvalidMovieIdException("Error reading the CSV file: record larger than the mapping window.");
+            }
+        }
+        if (fieldCount < MovieCsvReader.COLUMN_COUNT) {
+            throw new InvalidMovieIdException("Skipping invalid line: "
+                    + String.join(",", Arrays.copyOf(fields, fieldCount)));
+        }
+        return MovieCsvReader.parseRow(fields, interner);
+    }
+
+    /**
+     * Parses the record at the current position into {@link #fields} and advances past it.
+     *
+     * @return the number of fields in the record, or {@code -1} if the record is cut off by the end
+     *         of a window that does not reach the end of the file.
+     */
+    private int readRecord() {
+        int limit = window.limit();
+        boolean lastWindow = windowStart + limit >= end;
+        int pos = position;
+        int fieldCount = 0;
+        while (true) {
+            if (pos < limit && window.get(pos) == '"') {
+                int length = 0;
+                pos++;
+                while (true) {
+                    if (pos >= limit) {
+                        if (!lastWindow) {
+                            return -1;
+                        }
+                        break;
+                    }
+                    byte b = window.get(pos++);
+                    if (b == '"') {
+                        if (pos < limit && window.get(pos) == '"') {
+                            pos++;
+                        } else if (pos >= limit && !lastWindow) {
+                            return -1;
+                        } else {
+                            break;
+                        }
+                    } else if (b == '\r') {
+                        // Line breaks inside quotes are normalized to '\n', as by a line-based reader.
+                        if (pos >= limit && !lastWindow) {
+                            return -1;
+                        }
+                        if (pos < limit && window.get(pos) == '\n') {
+                            continue;
+                        }
+                        b = '\n';
+                    }
+                    length = append(length, b);
+                }
+                // Skip anything between the closing quote and the delimiter.
+                while (pos < limit && window.get(pos) != ',' && window.get(pos) != '\n') {
+                    pos++;
+                }
+                storeField(fieldCount++, decodeScratch(length));
+            } else {
+                int start = pos;
+                while (pos < limit && window.get(pos) != ',' && window.get(pos) != '\n') {
+                    pos++;
+                }
+                storeField(fieldCount++, decode(start, pos));
+            }
+            if (pos >= limit) {
+                if (!lastWindow) {
+                    return -1;
+                }
+                position = pos;
+                return fieldCount;
+            }
+            if (window.get(pos++) == '\n') {
+                position = pos;
+                return fieldCount;
+            }
+        }
+    }
+
+    /**
+     * Advances past the current record without materializing its fields.
+     *
+     * @return {@code false} if the record does not fit within a single window.
+     */
+    private boolean skipRecord() throws InvalidMovieIdException {
+        if (end == 0) {
+            return true;
+        }
+        if (readRecord() < 0) {
+            remap();
+            return readRecord() >= 0;
+        }
+        return true;
+    }
+
+    /**
+     * Stores a decoded field if it belongs to one of the known columns; surplus columns are ignored.
+     *
+     * @param index the position of the field in the record.
+     * @param value the decoded field.
+     */
+    private void storeField(int index, String value) {
+        if (index < fields.length) {
+            fields[index] = value;
+        }
+    }
+
+    /**
+     * Appends a byte to {@link #scratch}, growing it if needed.
+     *
+     * @param length the number of bytes already in the buffer.
+     * @param b the byte to append.
+     * @return the new number of bytes in the buffer.
+     */
+    private int append(int length, byte b) {
+        if (length == scratch.length) {
+            scratch = Arrays.copyOf(scratch, length * 2);
+        }
+        scratch[length] = b;
+        return length + 1;
+    }
+
+    /**
+     * Decodes an unquoted field directly from the mapped window, skipping surrounding whitespace.
+     *
+     * @param start the offset of the first byte of the field.
+     * @param end the offset just after the field.
+     * @return the trimmed field.
+     */
+    private String decode(int start, int end) {
+        while (start < end && (window.get(start) & 0xff) <= ' ') {
+            start++;
+        }
+        while (end > start && (window.get(end - 1) & 0xff) <= ' ') {
+            end--;
+        }
+        int length = end - start;
+        if (length == 0) {
+            return "";
+        }
+        if (length > scratch.length) {
+            scratch = new byte[Math.max(length, scratch.length * 2)];
+        }
+        window.get(start, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the unescaped bytes of a quoted field, skipping surrounding whitespace.
+     *
+     * @param length the number of bytes in {@link #scratch}.
+     * @return the trimmed field.
+     */
+    private String decodeScratch(int length) {
+        int start = 0;
+        while (start < length && (scratch[start] & 0xff) <= ' ') {
+            start++;
+        }
+        while (length > start && (scratch[length - 1] & 0xff) <= ' ') {
+            length--;
+        }
+        return length == start ? "" : new String(scratch, start, length - start, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Maps a new window starting at the current record.
+     *
+     * @throws InvalidMovieIdException if the file cannot be mapped.
+     */
+    private void remap() throws InvalidMovieIdException {
+        try {
+            map(windowStart + position);
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Maps the window starting at the given offset of the file.
+     *
+     * @param offset the offset in the file of the first mapped byte.
+     * @throws IOException if the file cannot be mapped.
+     */
+    private void map(long offset) throws IOException {
+        long size = Math.min(windowSize, end - offset);
+        window = channel.map(FileChannel.MapMode.READ_ONLY, offset, size);
+        windowStart = offset;
+        position = 0;
+    }
+
+    /**
+     * Closes the file channel, unless it belongs to the caller of {@link #loadRange}. The mapped window
+     * is released once it is no longer reachable.
+     *
+     * @throws IOException if closing the channel fails.
+     */
+    @Override
+    public void close() throws IOException {
+        if (ownsChannel) {
+            channel.close();
+        }
+    }
+}
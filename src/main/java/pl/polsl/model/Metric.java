@@ -0,0 +1,36 @@
+package pl.polsl.model;
+
+/**
+ * Enum representing the numeric attributes of a movie that a {@link MovieQuery} can aggregate.
+ * 
+ * <p>Every metric is stored by {@link MovieColumns#getMetric(Metric)} as an {@code int} column, in
+ * which movies without a value hold {@link #MISSING}. Missing values are skipped by every aggregate
+ * except the row count.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public enum Metric {
+    /** 
+     * The year the title was released. 
+     */
+    RELEASE_YEAR,
+    /** 
+     * The length of a movie in minutes; missing for TV shows. 
+     */
+    DURATION_MINUTES,
+    /** 
+     * The number of seasons of a TV show; missing for movies. 
+     */
+    DURATION_SEASONS,
+    /** 
+     * The number of days between the release (January 1 of the release year) and the date the title
+     * was added to the platform, as in {@link Movie#getReleaseDateDifference()}. 
+     */
+    DAYS_TO_PLATFORM;
+    
+    /** 
+     * Value of a metric column for movies without a value. 
+     */
+    public static final int MISSING = Integer.MIN_VALUE;
+}
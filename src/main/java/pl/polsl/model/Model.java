@@ -1,17 +1,21 @@
 package pl.polsl.model;
 
 import javax.swing.event.SwingPropertyChangeSupport;
-import java.time.LocalDate;
-import java.time.format.DateTimeFormatter;
+import java.beans.PropertyChangeEvent;
+import java.io.BufferedInputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import com.opencsv.CSVReader;
-import com.opencsv.exceptions.CsvValidationException;
 import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.*;
-import java.util.stream.Collectors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
 import lombok.Getter;
-import lombok.Setter;
 
 /**
  * Represents the Model component of the application, following the MVC design pattern.
@@ -22,27 +26,109 @@ import lombok.Setter;
  * <p>Functionalities include:</p>
  * <ul>
  *   <li>Loading movies from a CSV file.</li>
- *   <li>Retrieving movies by ID.</li>
+ *   <li>Retrieving movies by ID, one at a time or in bulk.</li>
  *   <li>Calculating release date differences for each movie.</li>
  *   <li>Identifying the country with the most movies.</li>
+ *   <li>Aggregating the durations of movies and TV shows per country.</li>
+ *   <li>Applying delta files of insertions, updates and deletions without reloading the catalog.</li>
  * </ul>
  * 
+ * <p>The catalog is published as immutable {@link CatalogVersion}s through a {@code volatile}
+ * reference. Every change creates a new version, so any number of threads can read the movies, their
+ * display order, their columns and the queries over them from a consistent version without locking,
+ * even while the catalog is being changed. The incrementally maintained indexes (show IDs, full-text
+ * search, facets and per-country statistics) follow the newest version and are guarded by a
+ * read-write lock: changes are applied by a single writer at a time holding the write lock, while any
+ * number of lookups in the indexes share the read lock. The methods that only read the newest version,
+ * e.g. {@link #getVersion()}, {@link #getMovieAt(int)}, {@link #getMovieCount()} and
+ * {@link #getSortColumn()}, take no lock, so the Event Dispatch Thread can display the catalog without
+ * ever waiting for a change or a query running in the background.</p>
+ * 
+ * <p>Sorting never reorders the catalog itself, which always keeps the catalog order. Instead, a
+ * version holds a cached {@link SortOrder} through which the movies are displayed with {@link #getMovieAt(int)}.</p>
+ * 
+ * <p>Every published version is announced to the listeners of {@link #getSwingPropChangeFirer()} as a
+ * {@link CatalogChange}, which tells which displayed rows were inserted, updated or deleted, or whether
+ * the movies were sorted, so that the view only repaints the affected rows.</p>
+ * 
  * @author Karolina Suska
  * @version 3.1
  */
-@Getter
-@Setter
 public class Model {
     /** 
-     * Supports property change notifications for listeners in the Swing framework.
+     * Default maximum number of results returned by {@link #search(String)}.
      */
-    private final SwingPropertyChangeSupport swingPropChangeFirer;
+    public static final int SEARCH_LIMIT = 100;
+    /** 
+     * Number of movies read from the CSV file before they are published as a new version.
+     */
+    private static final int LOAD_BATCH_SIZE = 4096;
+    /** 
+     * Minimum number of IDs looked up at once for which {@link #getMoviesByIds(List, Movie[], MovieLookup.Status[])}
+     * resolves them in parallel.
+     */
+    private static final int PARALLEL_LOOKUP_THRESHOLD = 4096;
+    /** 
+     * Name of the property change fired by {@link #applyDelta(CatalogDelta)} for every inserted movie;
+     * the new value is the movie.
+     */
+    public static final String MOVIE_INSERTED = "movieInserted";
+    /** 
+     * Name of the property change fired by {@link #applyDelta(CatalogDelta)} for every updated movie;
+     * the old and new values are the replaced and the replacing movie.
+     */
+    public static final String MOVIE_UPDATED = "movieUpdated";
     /** 
-     * A list that stores Movie objects managed by the Model.
+     * Name of the property change fired by {@link #applyDelta(CatalogDelta)} for every deleted movie;
+     * the old value is the movie.
+     */
+    public static final String MOVIE_DELETED = "movieDeleted";
+    /** 
+     * Name of the {@link CatalogChange} fired whenever a new version of the catalog is published; the old
+     * and new values are the {@link CatalogVersion}s before and after the change.
+     */
+    public static final String CATALOG = "catalog";
+    /** 
+     * Supports property change notifications for listeners in the Swing framework. Events are fired
+     * synchronously by the thread changing the model, while it holds the write lock of the indexes.
      */
     @Getter
-    private final List<Movie> movies = new ArrayList<>();
-    
+    private final SwingPropertyChangeSupport swingPropChangeFirer;
+    /** 
+     * The newest version of the catalog; replaced, never modified, by every change.
+     */
+    private volatile CatalogVersion version = CatalogVersion.empty();
+    /** 
+     * Primary-key index over the show IDs of the newest version, kept in sync with every change of the catalog.
+     */
+    private final ShowIdIndex showIdIndex = new ShowIdIndex();
+    /** 
+     * Guards the indexes below and the show ID index: changes of the catalog hold the write lock and
+     * lookups in the indexes hold the read lock, so that concurrent lookups never wait for each other.
+     */
+    private final ReentrantReadWriteLock indexLock = new ReentrantReadWriteLock();
+    /** 
+     * Dictionaries sharing repeated values between the movies loaded from the CSV file.
+     */
+    private final MovieInterner interner = new MovieInterner();
+    /** 
+     * Number of movies per individual country, updated whenever a movie is added or removed.
+     */
+    private final CountryCounter countryCounter = new CountryCounter();
+    /** 
+     * Duration statistics per country and type, updated whenever a movie is added or removed.
+     */
+    private final DurationStatistics durationStatistics = new DurationStatistics();
+    /** 
+     * Full-text index over the title, director, cast and description, updated whenever a movie is added or
+     * removed, or {@code null} if the model was created without {@link OptionalIndex#SEARCH}.
+     */
+    private final SearchIndex searchIndex;
+    /** 
+     * Posting lists of the cast members, countries and genres, updated whenever a movie is added or removed,
+     * or {@code null} if the model was created without {@link OptionalIndex#FACETS}.
+     */
+    private final MovieFacets facets;
     /**
      * Constructs a {@code Model} instance, initializes the list of movies, and loads the movie data
      * from a CSV file.
@@ -50,80 +136,243 @@ public class Model {
      * @throws InvalidMovieIdException if an error occurs during loading or parsing the movie data.
      */
     public Model() throws InvalidMovieIdException {
+        this(LoadMode.SERIAL);
+    }
+    
+    /**
+     * Constructs a {@code Model} instance and loads the movie data from the bundled CSV file
+     * using the given loading strategy.
+     * 
+     * @param loadMode the strategy used to parse the CSV file.
+     * @throws InvalidMovieIdException if an error occurs during loading or parsing the movie data.
+     */
+    public Model(LoadMode loadMode) throws InvalidMovieIdException {
+        this(null, loadMode);
+    }
+    
+    /**
+     * Constructs a {@code Model} instance and loads the movie data from the given CSV file
+     * using the given loading strategy.
+     * 
+     * @param csvFile the path of the CSV file, or {@code null} for the bundled CSV file.
+     * @param loadMode the strategy used to parse the CSV file.
+     * @throws InvalidMovieIdException if an error occurs during loading or parsing the movie data.
+     */
+    public Model(Path csvFile, LoadMode loadMode) throws InvalidMovieIdException {
+        this(csvFile, loadMode, EnumSet.allOf(OptionalIndex.class));
+    }
+    
+    /**
+     * Constructs a {@code Model} instance that loads the movie data from the given CSV file using the
+     * given loading strategy and builds only some of the optional indexes. The queries needing an index
+     * that is not built throw an {@link IllegalStateException}.
+     * 
+     * @param csvFile the path of the CSV file, or {@code null} for the bundled CSV file.
+     * @param loadMode the strategy used to parse the CSV file.
+     * @param indexes the optional indexes to build and maintain.
+     * @throws InvalidMovieIdException if an error occurs during loading or parsing the movie data.
+     */
+    public Model(Path csvFile, LoadMode loadMode, Set<OptionalIndex> indexes) throws InvalidMovieIdException {
+        this(List.of(), indexes);
+        switch (loadMode) {
+            case PARALLEL -> addMovies(new ParallelCsvLoader(ForkJoinPool.commonPool(), interner).load(csvFile));
+            case MAPPED -> loadMoviesFromMappedCsv(csvFile != null ? csvFile : MappedCsvReader.bundledFile());
+            case SNAPSHOT -> loadMoviesFromSnapshot(csvFile);
+            default -> loadMoviesFromCsv(csvFile);
+        }
+    }
+    
+    /**
+     * Constructs a {@code Model} instance holding the given movies, without reading any CSV file.
+     * Further movies can be appended with {@link #addMovies(List)}, e.g. while the catalog is read
+     * in the background by {@link #readCatalogInBatches(Path, int, BiConsumer)}.
+     * 
+     * @param movies the initial movies of the model.
+     */
+    public Model(List<Movie> movies) {
+        this(movies, EnumSet.allOf(OptionalIndex.class));
+    }
+    
+    /**
+     * Constructs a {@code Model} instance holding the given movies that builds only some of the optional
+     * indexes.
+     * 
+     * @param movies the initial movies of the model.
+     * @param indexes the optional indexes to build and maintain.
+     */
+    private Model(List<Movie> movies, Set<OptionalIndex> indexes) {
         swingPropChangeFirer = new SwingPropertyChangeSupport(this);
-        loadMoviesFromCsv();
+        searchIndex = indexes.contains(OptionalIndex.SEARCH) ? new SearchIndex() : null;
+        facets = indexes.contains(OptionalIndex.FACETS) ? new MovieFacets() : null;
+        addMovies(movies);
     }
     
     /**
-     * Loads movie data from a CSV file and populates the {@link movies} list with {@link Movie} objects.
+     * Loads movie data from a CSV file and appends the {@link Movie} objects to the catalog.
      * The CSV file should contain information about each movie such as ID, type, title, director, cast, 
      * country, date added, release year, rating, duration, listed genres, and description.
      * 
-     * <p>If any line in the CSV file is invalid or contains missing data, it will be skipped and an error
-     * message will be generated.</p>
+     * <p>Rows are parsed by {@link MovieCsvReader}; if any line in the CSV file is invalid or contains
+     * missing data, loading stops with an error message.</p>
+     * 
+     * @param csvFile the path of the CSV file, or {@code null} for the bundled CSV file.
+     * @throws InvalidMovieIdException if there is an error reading the CSV file or if any required field is invalid.
+     */
+    private void loadMoviesFromCsv(Path csvFile) throws InvalidMovieIdException {
+        try (MovieCsvReader reader = MovieCsvReader.open(csvFile)) {
+            reader.setInterner(interner);
+            List<Movie> batch;
+            while (!(batch = reader.readBatch(LOAD_BATCH_SIZE)).isEmpty()) {
+                addMovies(batch);
+            }
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+    
+    /**
+     * Loads movie data by memory-mapping the CSV file, or through {@link #loadMoviesFromCsv(Path)}
+     * if the bundled file cannot be mapped.
      * 
+     * @param csvFile the path of the CSV file, or {@code null} if the bundled file is not a plain file.
+     * @throws InvalidMovieIdException if there is an error reading the CSV file or if any required field is invalid.
+     */
+    private void loadMoviesFromMappedCsv(Path csvFile) throws InvalidMovieIdException {
+        if (csvFile == null) {
+            loadMoviesFromCsv(null);
+        } else {
+            addMovies(MappedCsvReader.load(csvFile, interner));
+        }
+    }
+    
+    /**
+     * Loads movie data from the binary snapshot of the CSV file. If the snapshot is missing, outdated or
+     * corrupted, the CSV file is parsed instead and a new snapshot is written. Failing to write the
+     * snapshot does not prevent loading, as it only serves to speed up the next start.
+     * 
+     * @param csvFile the path of the CSV file, or {@code null} for the bundled CSV file.
+     * @throws InvalidMovieIdException if there is an error reading the CSV file or if any required field is invalid.
+     * @see BinarySnapshot#defaultLocation(Path, BinarySnapshot.Fingerprint)
+     */
+    private void loadMoviesFromSnapshot(Path csvFile) throws InvalidMovieIdException {
+        BinarySnapshot.Fingerprint fingerprint = BinarySnapshot.fingerprint(csvFile);
+        Path snapshotFile = BinarySnapshot.defaultLocation(csvFile, fingerprint);
+        List<Movie> snapshot = BinarySnapshot.read(snapshotFile, fingerprint);
+        if (snapshot != null) {
+            addMovies(snapshot);
+            return;
+        }
+        loadMoviesFromMappedCsv(csvFile != null ? csvFile : MappedCsvReader.bundledFile());
+        writeSnapshot(snapshotFile, version.getMovies(), fingerprint);
+    }
+    
+    /**
+     * Writes the snapshot of a completely read catalog and deletes the snapshots of older versions of the
+     * CSV file. Failing to write it is not an error, as the snapshot only serves to speed up the next start.
+     * 
+     * @param snapshotFile the path of the snapshot.
+     * @param movies the movies read from the CSV file, in file order.
+     * @param fingerprint the fingerprint of the CSV file the movies were read from.
+     */
+    private static void writeSnapshot(Path snapshotFile, List<Movie> movies, BinarySnapshot.Fingerprint fingerprint) {
+        try {
+            BinarySnapshot.write(snapshotFile, movies, fingerprint);
+            BinarySnapshot.deleteOtherVersions(snapshotFile);
+        } catch (IOException e) {
+            // The catalog is loaded; without a snapshot the next start parses the CSV file again.
+        }
+    }
+    
+    /**
+     * Reads the catalog in batches without adding it to this model, so that the caller can display
+     * the first movies before the whole file has been parsed. The binary snapshot of the CSV file is
+     * used if it is up to date; otherwise the file is streamed through {@link MovieCsvReader} and a new
+     * snapshot is written once it has been read completely.
+     * 
+     * <p>This method does not modify the model and may be called from a background thread; the
+     * batches are typically passed to {@link #addMovies(List)} by the same background thread.</p>
+     *
+     * @param csvFile the path of the CSV file, or {@code null} for the bundled CSV file.
+     * @param batchSize the maximum number of movies per batch.
+     * @param listener receives every batch in file order, together with the loading progress in percent.
      * @throws InvalidMovieIdException if there is an error reading the CSV file or if any required field is invalid.
      */
-    private void loadMoviesFromCsv() throws InvalidMovieIdException {
-        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream("netflix_titles.csv");
-         InputStreamReader inputStreamReader = new InputStreamReader(inputStream);
-         CSVReader csvReader = new CSVReader(inputStreamReader)) {
-            
+    public void readCatalogInBatches(Path csvFile, int batchSize, BiConsumer<List<Movie>, Integer> listener)
+            throws InvalidMovieIdException {
+        BinarySnapshot.Fingerprint fingerprint = BinarySnapshot.fingerprint(csvFile);
+        Path snapshotFile = BinarySnapshot.defaultLocation(csvFile, fingerprint);
+        List<Movie> snapshot = BinarySnapshot.read(snapshotFile, fingerprint);
+        if (snapshot != null) {
+            for (int start = 0; start < snapshot.size(); start += batchSize) {
+                int end = Math.min(start + batchSize, snapshot.size());
+                listener.accept(snapshot.subList(start, end), (int) (100L * end / snapshot.size()));
+            }
+            return;
+        }
+        
+        List<Movie> loaded = new ArrayList<>();
+        try (ProgressInputStream inputStream = new ProgressInputStream(openCsv(csvFile));
+                MovieCsvReader reader = new MovieCsvReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8))) {
+            reader.setInterner(interner);
+            List<Movie> batch;
+            while (!(batch = reader.readBatch(batchSize)).isEmpty()) {
+                loaded.addAll(batch);
+                int progress = fingerprint.size() > 0
+                        ? (int) Math.min(99, 100 * inputStream.getBytesRead() / fingerprint.size()) : 0;
+                listener.accept(batch, progress);
+            }
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+        writeSnapshot(snapshotFile, loaded, fingerprint);
+    }
+    
+    /**
+     * Opens the raw bytes of a CSV file on disk, or of the bundled resource if no file is given.
+     *
+     * @param csvFile the path of the CSV file, or {@code null} for the bundled CSV file.
+     * @return an input stream over the file.
+     * @throws InvalidMovieIdException if the file cannot be opened.
+     */
+    private static InputStream openCsv(Path csvFile) throws InvalidMovieIdException {
+        try {
+            InputStream inputStream = csvFile != null ? Files.newInputStream(csvFile)
+                    : Model.class.getClassLoader().getResourceAsStream(MovieCsvReader.DEFAULT_RESOURCE);
             if (inputStream == null) {
                 throw new InvalidMovieIdException("CSV file not found.");
             }
-            
-            csvReader.readNext();
-            String[] row;
-            
-            while((row = csvReader.readNext()) != null) {
-                if(row.length >= 7)
-                {
-                    String id = row[0].trim();
-                    String typeString = row[1].trim();
-                    String title = row[2].trim();
-                    String director = row[3].trim();
-                    String cast = row[4].trim();
-                    String country = row[5].trim();
-                    String dateAdded = row[6].trim();
-                    String releaseYearStr = row[7].trim();
-                    String rating = row[8].trim();
-                    String duration = row[9].trim();
-                    String listedIn = row[10].trim();
-                    String description = row[11].trim();
-                    
-                    MovieType type;
-                    try {
-                        type = MovieType.valueOf(typeString.toUpperCase().replace(" ", "_"));
-                    } catch (IllegalArgumentException e) {
-                        type = MovieType.MOVIE;
-                    }
-                
-                    int releaseYear = 0;
-                    
-                    try {
-                        if (!releaseYearStr.isEmpty()) {
-                            releaseYear = Integer.parseInt(releaseYearStr);
-                        }
-                    } catch (NumberFormatException e) {
-                        throw new InvalidMovieIdException("Invalid release year: " + releaseYearStr);
-                    } 
-                    
-                    if (duration.isEmpty()) {
-                        duration = "N/A"; 
-                    }
-
-                    movies.add(new Movie(id, type, title, director, cast, country, dateAdded,
-                            releaseYear, rating, duration,listedIn, description));
-                }else {
-                    throw new InvalidMovieIdException("Skipping invalid line: " + String.join(",", row));
-                }
-            }
-        }catch (IOException | CsvValidationException e) {
+            return new BufferedInputStream(inputStream);
+        } catch (IOException e) {
             throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
         }
     }
     
+    /**
+     * Opens a lazy stream over the bundled CSV file without materializing the catalog in memory.
+     * The returned stream must be closed to release the file.
+     * 
+     * <p>Combined with {@link #getCountryWithMostMovies(Stream)}, this allows aggregations to run in
+     * constant memory over catalogs larger than the heap.</p>
+     *
+     * @return an ordered stream of the movies in the bundled CSV file.
+     * @throws InvalidMovieIdException if the CSV file cannot be found.
+     * @see MovieCsvReader#stream()
+     */
+    public static Stream<Movie> streamMoviesFromCsv() throws InvalidMovieIdException {
+        return MovieCsvReader.fromClasspath(MovieCsvReader.DEFAULT_RESOURCE).stream();
+    }
+    
+    /**
+     * Estimates the heap saved by storing repeated director, country, rating, duration and genre
+     * values of the loaded movies only once.
+     *
+     * @return one report per interned column.
+     * @see MovieInterner#report(List)
+     */
+    public List<MovieInterner.ColumnReport> getMemoryReport() {
+        return MovieInterner.report(version.getMovies());
+    }
+    
     /**
      * Retrieves a Movie object by its ID.
      *
@@ -132,69 +381,722 @@ public class Model {
      * @throws InvalidMovieIdException if the ID format is invalid.
      */
     public Movie getMovieById(String id)  throws InvalidMovieIdException {
-        if(!id.matches("^s\\d+$")) {
-            throw new InvalidMovieIdException("Invalid movie ID format. Expected format: 's' followed by a number, e.g., 's1'");
-        }
+        indexLock.readLock().lock();
+        try {
+            if (!ShowIdIndex.isValid(id)) {
+                throw new InvalidMovieIdException("Invalid movie ID format. Expected format: 's' followed by a number, e.g., 's1'");
+            }
         
-        for (Movie movie : movies) {
-            if (movie.showId().equals(id)) { 
-                return movie;
+            return showIdIndex.get(id);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Looks up many movies by their IDs at once. IDs with an invalid format are reported in the results
+     * instead of throwing an {@link InvalidMovieIdException}.
+     *
+     * @param ids the IDs to look up, in any format.
+     * @return one result per ID, in the iteration order of {@code ids}.
+     * @see #getMoviesByIds(List, Movie[], MovieLookup.Status[])
+     */
+    public List<MovieLookup> getMoviesByIds(Collection<String> ids) {
+        List<String> list = ids instanceof RandomAccess && ids instanceof List<String> l ? l : new ArrayList<>(ids);
+        Movie[] movies = new Movie[list.size()];
+        MovieLookup.Status[] statuses = new MovieLookup.Status[list.size()];
+        getMoviesByIds(list, movies, statuses);
+        List<MovieLookup> results = new ArrayList<>(list.size());
+        for (int i = 0; i < movies.length; i++) {
+            results.add(new MovieLookup(list.get(i), statuses[i], movies[i]));
+        }
+        return results;
+    }
+    
+    /**
+     * Looks up many movies by their IDs at once into arrays supplied by the caller, which can reuse them
+     * from one batch to the next so that a stream of millions of IDs allocates no result per ID.
+     * 
+     * <p>The whole batch is resolved against the show ID index under a single acquisition of the lock
+     * of the model; batches of at least {@value #PARALLEL_LOOKUP_THRESHOLD} IDs are resolved in parallel,
+     * as the index is not modified while the lock is held.</p>
+     *
+     * @param ids the IDs to look up, in any format; should provide fast random access.
+     * @param movies receives at index {@code i} the movie with the ID {@code ids.get(i)}, or {@code null};
+     *        at least as long as {@code ids}.
+     * @param statuses receives at index {@code i} the outcome of looking up {@code ids.get(i)}; at least
+     *        as long as {@code ids}.
+     */
+    public void getMoviesByIds(List<String> ids, Movie[] movies, MovieLookup.Status[] statuses) {
+        indexLock.readLock().lock();
+        try {
+            IntStream indexes = IntStream.range(0, ids.size());
+            (ids.size() >= PARALLEL_LOOKUP_THRESHOLD ? indexes.parallel() : indexes).forEach(i -> {
+                String id = ids.get(i);
+                Movie movie = showIdIndex.get(id);
+                movies[i] = movie;
+                statuses[i] = movie != null ? MovieLookup.Status.FOUND
+                        : ShowIdIndex.isValid(id) ? MovieLookup.Status.NOT_FOUND : MovieLookup.Status.INVALID;
+            });
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the newest version of the catalog. A caller that needs several consistent reads, e.g. the
+     * movies and their columns, should take the version once and read everything from it.
+     *
+     * @return the current immutable version of the catalog.
+     */
+    public CatalogVersion getVersion() {
+        return version;
+    }
+    
+    /**
+     * Returns the movies of the newest version of the catalog.
+     *
+     * @return a read-only list of the movies in catalog order.
+     */
+    public List<Movie> getMovies() {
+        return version.getMovies();
+    }
+    
+    /**
+     * Appends a batch of loaded movies to the end of the list and registers them in the indexes.
+     * Unlike {@link #addMovie(Movie)}, duplicated IDs are accepted, as when reading the CSV file;
+     * the first movie with a given ID is the one found by {@link #getMovieById(String)}.
+     * The whole batch is published as a single new version.
+     *
+     * @param batch the movies to append, in order.
+     */
+    public void addMovies(List<Movie> batch) {
+        indexLock.writeLock().lock();
+        try {
+            int rowId = version.getNextRowId();
+            for (Movie movie : batch) {
+                indexLoadedMovie(movie, rowId++);
             }
+            publishAppended(version.append(batch));
+        } finally {
+            indexLock.writeLock().unlock();
         }
-        return null;     
     }
     
-    private LocalDate parseDate(String dateString) {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM d, yyyy");
+    /**
+     * Adds a movie to the end of the list and registers it in the show ID index.
+     *
+     * @param movie the movie to add.
+     * @throws IllegalArgumentException if a movie with the same ID is already present.
+     */
+    public void addMovie(Movie movie) {
+        indexLock.writeLock().lock();
         try {
-            return LocalDate.parse(dateString, formatter);
-        } catch (Exception e) {
-            return null;
+            if (showIdIndex.get(movie.showId()) != null) {
+                throw new IllegalArgumentException("Duplicate movie ID: " + movie.showId());
+            }
+            indexLoadedMovie(movie, version.getNextRowId());
+            publishAppended(version.append(List.of(movie)));
+        } finally {
+            indexLock.writeLock().unlock();
         }
     }
     
+    /**
+     * Removes the movie with the given ID from the list and from the show ID index.
+     * Row indexes after the removed movie shift, so the new version is displayed in catalog order.
+     * Only the chunk of the catalog holding the movie is copied.
+     *
+     * @param id the ID of the movie to remove.
+     * @return the removed movie, or {@code null} if no such movie is found.
+     * @throws InvalidMovieIdException if the ID format is invalid.
+     */
+    public Movie removeMovie(String id) throws InvalidMovieIdException {
+        indexLock.writeLock().lock();
+        try {
+            Movie movie = getMovieById(id);
+            if (movie != null) {
+                CatalogVersion before = version;
+                int rowId = showIdIndex.getRowId(id);
+                int row = before.positionOf(rowId);
+                CatalogVersion.Editor editor = new CatalogVersion.Editor(before, true);
+                editor.remove(rowId);
+                unindexMovie(movie);
+                CatalogVersion next = editor.build(before.getModificationCount() + 1, null, true, null);
+                publish(before.getSortColumn() == null
+                        ? new CatalogChange(this, before, next, CatalogChange.Kind.ROWS_DELETED, row, row)
+                        : new CatalogChange(this, before, next, CatalogChange.Kind.RELOADED));
+            }
+            return movie;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Publishes the version following the newest one with movies appended, and fires the change.
+     *
+     * @param next the new version.
+     */
+    private void publishAppended(CatalogVersion next) {
+        CatalogVersion before = version;
+        if (next != before) {
+            publish(new CatalogChange(this, before, next, CatalogChange.Kind.ROWS_INSERTED, before.size(), next.size() - 1));
+        }
+    }
+    
+    /**
+     * Publishes the new version of a change and fires the change to the {@link #CATALOG} listeners.
+     *
+     * @param change the change whose new version replaces the newest version.
+     */
+    private void publish(CatalogChange change) {
+        version = change.getNewVersion();
+        swingPropChangeFirer.firePropertyChange(change);
+    }
+    
+    /**
+     * Applies a set of insertions, updates and deletions keyed by show ID to the catalog, without
+     * reloading it. Only the changed movies are added to or removed from the show ID, search, facet,
+     * country and duration indexes, and the whole delta is published as a single new version.
+     * 
+     * <p>Changes are applied in order. A change that does not fit the catalog, i.e. the insertion of an
+     * ID already present or the update or deletion of an ID that is not, is skipped and reported in the
+     * result. Once the new version is published, a {@link #MOVIE_INSERTED}, {@link #MOVIE_UPDATED} or
+     * {@link #MOVIE_DELETED} event is fired for every applied change, followed by one {@link CatalogChange}
+     * for the whole delta, but only to the listeners registered for them. A delta that deletes no movie
+     * keeps the displayed order, with updated movies staying at their positions until the next sort;
+     * a delta that deletes movies resets it to the catalog order, like {@link #removeMovie(String)}.</p>
+     *
+     * <p>The catalog is not copied: movies are found by the row IDs kept in the show ID index, and only
+     * the chunks of the catalog holding changed movies are copied into the new version.</p>
+     *
+     * @param delta the changes to apply.
+     * @return the number of applied changes of each kind and the rejected show IDs.
+     */
+    public CatalogDelta.Result applyDelta(CatalogDelta delta) {
+        indexLock.writeLock().lock();
+        try {
+            CatalogVersion before = version;
+            CatalogVersion.Editor editor = new CatalogVersion.Editor(before, true);
+            List<PropertyChangeEvent> events = new ArrayList<>();
+            List<String> rejected = new ArrayList<>();
+            int inserted = 0;
+            int updated = 0;
+            int deleted = 0;
+            int firstUpdatedRow = Integer.MAX_VALUE;
+            int lastUpdatedRow = -1;
+            for (CatalogDelta.Change change : delta.getChanges()) {
+                Movie existing = showIdIndex.get(change.showId());
+                if (change.operation() == CatalogDelta.Operation.INSERT ? existing != null : existing == null) {
+                    rejected.add(change.showId());
+                    continue;
+                }
+                switch (change.operation()) {
+                    case INSERT -> {
+                        indexLoadedMovie(change.movie(), editor.getNextRowId());
+                        editor.append(change.movie());
+                        addEvent(events, MOVIE_INSERTED, null, change.movie());
+                        inserted++;
+                    }
+                    case UPDATE -> {
+                        int rowId = showIdIndex.getRowId(change.showId());
+                        unindexMovie(existing);
+                        indexLoadedMovie(change.movie(), rowId);
+                        editor.replace(rowId, change.movie());
+                        int row = before.positionOf(rowId);
+                        if (row >= 0) {
+                            firstUpdatedRow = Math.min(firstUpdatedRow, row);
+                            lastUpdatedRow = Math.max(lastUpdatedRow, row);
+                        }
+                        addEvent(events, MOVIE_UPDATED, existing, change.movie());
+                        updated++;
+                    }
+                    case DELETE -> {
+                        editor.remove(showIdIndex.getRowId(change.showId()));
+                        unindexMovie(existing);
+                        addEvent(events, MOVIE_DELETED, existing, null);
+                        deleted++;
+                    }
+                }
+            }
+            if (inserted + updated + deleted == 0) {
+                return new CatalogDelta.Result(0, 0, 0, List.copyOf(rejected));
+            }
+            int modificationCount = before.getModificationCount() + 1;
+            CatalogChange catalogChange;
+            if (deleted > 0) {
+                CatalogVersion next = editor.build(modificationCount, null, true, null);
+                catalogChange = new CatalogChange(this, before, next, CatalogChange.Kind.RELOADED);
+            } else {
+                // Without deletions every movie keeps its position, so the displayed order stays valid.
+                CatalogVersion next = editor.build(modificationCount, before.getSortColumn(), before.isSortAscending(),
+                        before.getSortOrder());
+                if (updated == 0) {
+                    catalogChange = new CatalogChange(this, before, next, CatalogChange.Kind.ROWS_INSERTED, before.size(), next.size() - 1);
+                } else if (inserted == 0 && before.getSortColumn() == null) {
+                    catalogChange = new CatalogChange(this, before, next, CatalogChange.Kind.ROWS_UPDATED, firstUpdatedRow, lastUpdatedRow);
+                } else {
+                    catalogChange = new CatalogChange(this, before, next, CatalogChange.Kind.RELOADED);
+                }
+            }
+            version = catalogChange.getNewVersion();
+            events.forEach(swingPropChangeFirer::firePropertyChange);
+            swingPropChangeFirer.firePropertyChange(catalogChange);
+            return new CatalogDelta.Result(inserted, updated, deleted, List.copyOf(rejected));
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+    }
+    
+    /**
+     * Adds the event of one applied change of a delta, unless no listener would receive it.
+     *
+     * @param events the events to fire once the delta is published.
+     * @param propertyName {@link #MOVIE_INSERTED}, {@link #MOVIE_UPDATED} or {@link #MOVIE_DELETED}.
+     * @param oldValue the replaced or deleted movie, or {@code null}.
+     * @param newValue the inserted or replacing movie, or {@code null}.
+     */
+    private void addEvent(List<PropertyChangeEvent> events, String propertyName, Movie oldValue, Movie newValue) {
+        if (swingPropChangeFirer.hasListeners(propertyName)) {
+            events.add(new PropertyChangeEvent(this, propertyName, oldValue, newValue));
+        }
+    }
+    
+    /**
+     * Registers a movie appended to the catalog in the show ID index and the other indexes. The country
+     * field is split once and shared by every index counting countries, so they always agree.
+     *
+     * @param movie the appended movie.
+     * @param rowId the row ID of the movie in the catalog.
+     */
+    private void indexLoadedMovie(Movie movie, int rowId) {
+        indexMovie(movie, rowId);
+        List<String> countries = CountryCounter.splitCountries(movie.country());
+        countryCounter.add(countries);
+        durationStatistics.add(movie, countries);
+        if (searchIndex != null) {
+            searchIndex.add(movie);
+        }
+        if (facets != null) {
+            facets.add(movie, countries);
+        }
+    }
+    
+    /**
+     * Removes a movie that is no longer in the catalog from the show ID index and the other indexes.
+     *
+     * @param movie the removed movie, as found in the show ID index.
+     */
+    private void unindexMovie(Movie movie) {
+        showIdIndex.remove(movie.showId());
+        List<String> countries = CountryCounter.splitCountries(movie.country());
+        countryCounter.remove(countries);
+        durationStatistics.remove(movie, countries);
+        if (searchIndex != null) {
+            searchIndex.remove(movie);
+        }
+        if (facets != null) {
+            facets.remove(movie);
+        }
+    }
+    
+    /**
+     * Returns the columnar copy of the newest version of the catalog, building it on first use.
+     *
+     * @return the columns describing the current content and order of the movie list.
+     * @see CatalogVersion#getColumns()
+     */
+    public MovieColumns getColumns() {
+        return version.getColumns();
+    }
+    
+    /**
+     * Registers a movie in the show ID index. IDs that do not follow the expected format cannot be
+     * looked up and are not indexed; for duplicated IDs the first movie wins, as in a linear search.
+     *
+     * @param movie the movie to index.
+     * @param rowId the row ID of the movie in the catalog.
+     */
+    private void indexMovie(Movie movie, int rowId) {
+        if (ShowIdIndex.isValid(movie.showId()) && showIdIndex.get(movie.showId()) == null) {
+            showIdIndex.put(movie.showId(), movie, rowId);
+        }
+    }
+    
+    /**
+     * Sorts the displayed movies by the date they were added to the platform.
+     * Movies with an unknown date added are always placed at the end.
+     *
+     * @param ascending {@code true} to sort from the oldest to the newest date, {@code false} for the reverse order.
+     * @see #sortMovies(SortColumn, boolean)
+     */
     public void sortMoviesByDateAdded(boolean ascending) {
-    movies.sort((movie1, movie2) -> {
-        LocalDate date1 = parseDate(movie1.dateAdded());
-        LocalDate date2 = parseDate(movie2.dateAdded());
-        
-        if (date1 == null && date2 == null) {
-            return 0;
-        } else if (date1 == null) {
-            return 1;
-        } else if (date2 == null) {
-            return -1;
-        } else {
-            return ascending ? date1.compareTo(date2) : date2.compareTo(date1);
+        sortMovies(SortColumn.DATE_ADDED, ascending);
+    }
+    
+    /**
+     * Sorts the displayed movies by a column. The list returned by {@link #getMovies()} keeps the
+     * catalog order; the sorted order is read with {@link #getMovieAt(int)}.
+     * 
+     * <p>The permutation of each column is computed once by {@link MovieColumns#getSortOrder(SortColumn)}
+     * and reused until the list changes, and both directions share it, so repeated sorts only
+     * switch the displayed order. The order is computed from the newest version without locking and
+     * computed again if the catalog changes in the meantime.</p>
+     *
+     * @param column the column to sort by.
+     * @param ascending {@code true} for the ascending order, {@code false} for the descending order.
+     */
+    public void sortMovies(SortColumn column, boolean ascending) {
+        CatalogVersion current;
+        do {
+            current = version;
+        } while (!applySortOrder(column, current.getColumns().getSortOrder(column), ascending,
+                current.getModificationCount()));
+    }
+    
+    /**
+     * Returns the order of the movies sorted by a column without changing the displayed order.
+     * 
+     * <p>This is the expensive part of {@link #sortMovies(SortColumn, boolean)} when the order has
+     * not been computed yet, and may run on a background thread; the result is displayed afterwards
+     * with {@link #applySortOrder(SortColumn, SortOrder, boolean, int)}.</p>
+     *
+     * @param column the column to sort by.
+     * @return the permutation of the current list sorted by the column.
+     */
+    public SortOrder getSortOrder(SortColumn column) {
+        return getColumns().getSortOrder(column);
+    }
+    
+    /**
+     * Returns the number of changes made so far to the content of the movie list.
+     * A result computed from the list is still valid if this number has not changed in the meantime.
+     * Sorting does not change the content and therefore does not count as a change.
+     *
+     * @return the current modification count.
+     */
+    public int getModificationCount() {
+        return version.getModificationCount();
+    }
+    
+    /**
+     * Displays the movies in an order computed earlier by {@link #getSortOrder(SortColumn)},
+     * unless the list has been changed since.
+     *
+     * @param column the column the order was computed for.
+     * @param order the permutation of the movie list.
+     * @param ascending {@code true} for the ascending order, {@code false} for the descending order.
+     * @param expectedModificationCount the value of {@link #getModificationCount()} at the time
+     *        the order was computed.
+     * @return {@code true} if the order was applied, {@code false} if it was outdated.
+     */
+    public boolean applySortOrder(SortColumn column, SortOrder order, boolean ascending,
+            int expectedModificationCount) {
+        indexLock.writeLock().lock();
+        try {
+            CatalogVersion before = version;
+            if (expectedModificationCount != before.getModificationCount()) {
+                return false;
+            }
+            publish(new CatalogChange(this, before, before.sorted(column, order, ascending), CatalogChange.Kind.SORTED));
+            return true;
+        } finally {
+            indexLock.writeLock().unlock();
         }
-    });
-}
-
+    }
+    
+    /**
+     * Returns the number of displayed movies.
+     *
+     * @return the number of movies in the list.
+     */
+    public int getMovieCount() {
+        return version.size();
+    }
+    
+    /**
+     * Returns the movie displayed at a position of the current sort order. Movies added after the
+     * list was sorted are displayed after the sorted ones, in the order they were added.
+     *
+     * @param position the position in the displayed list.
+     * @return the movie displayed at that position.
+     */
+    public Movie getMovieAt(int position) {
+        return version.getMovieAt(position);
+    }
+    
+    /**
+     * Returns the column by which the movies are displayed.
+     *
+     * @return the sort column, or {@code null} for the catalog order.
+     */
+    public SortColumn getSortColumn() {
+        return version.getSortColumn();
+    }
+    
+    /**
+     * Tells whether the movies are displayed in ascending order of the sort column.
+     *
+     * @return {@code true} for the ascending order, {@code false} for the descending order.
+     */
+    public boolean isSortAscending() {
+        return version.isSortAscending();
+    }
+    
+    /**
+     * Searches the title, director, cast and description of the movies and returns the
+     * {@value #SEARCH_LIMIT} most relevant ones.
+     *
+     * @param query the words to find; see {@link SearchIndex} for the supported AND, OR and prefix syntax.
+     * @return the matching movies with their relevance, from the most relevant one.
+     * @see #search(String, int)
+     */
+    public List<SearchIndex.Hit> search(String query) {
+        return search(query, SEARCH_LIMIT);
+    }
+    
+    /**
+     * Returns the posting lists of the cast members, countries and genres.
+     *
+     * @return the facets of the model.
+     * @throws IllegalStateException if the model was created without {@link OptionalIndex#FACETS}.
+     */
+    private MovieFacets requireFacets() {
+        if (facets == null) {
+            throw new IllegalStateException("The model was created without the facet index.");
+        }
+        return facets;
+    }
+    
+    /**
+     * Searches the title, director, cast and description of the movies.
+     * 
+     * <p>The query is answered from an inverted index maintained on every change of the list, so its
+     * cost depends on the number of movies containing the query words rather than on the size of the
+     * catalog.</p>
+     *
+     * @param query the words to find; see {@link SearchIndex} for the supported AND, OR and prefix syntax.
+     * @param limit the maximum number of results.
+     * @return up to {@code limit} matching movies with their relevance, from the most relevant one.
+     * @throws IllegalStateException if the model was created without {@link OptionalIndex#SEARCH}.
+     */
+    public List<SearchIndex.Hit> search(String query, int limit) {
+        if (searchIndex == null) {
+            throw new IllegalStateException("The model was created without the search index.");
+        }
+        indexLock.readLock().lock();
+        try {
+            return searchIndex.search(query, limit);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns all movies in which a person appears.
+     *
+     * @param name the name of the cast member, as listed in the catalog, e.g. "Sami Bouajila".
+     * @return the movies with the cast member, in the order they were added to the model; a movie updated by
+     *         {@link #applyDelta(CatalogDelta)} counts as added by the update.
+     * @throws IllegalStateException if the model was created without {@link OptionalIndex#FACETS}.
+     */
+    public List<Movie> getMoviesWithCastMember(String name) {
+        MovieFacets index = requireFacets();
+        indexLock.readLock().lock();
+        try {
+            return index.getMoviesWithCastMember(name);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns all movies produced in a country, including those produced in several countries.
+     *
+     * @param country the name of the country, e.g. "Poland".
+     * @return the movies from the country, in the order they were added to the model; a movie updated by
+     *         {@link #applyDelta(CatalogDelta)} counts as added by the update.
+     * @throws IllegalStateException if the model was created without {@link OptionalIndex#FACETS}.
+     */
+    public List<Movie> getMoviesFromCountry(String country) {
+        MovieFacets index = requireFacets();
+        indexLock.readLock().lock();
+        try {
+            return index.getMoviesFromCountry(country);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns all movies listed in a genre.
+     *
+     * @param genre the name of the genre, e.g. "Documentaries".
+     * @return the movies of the genre, in the order they were added to the model; a movie updated by
+     *         {@link #applyDelta(CatalogDelta)} counts as added by the update.
+     * @throws IllegalStateException if the model was created without {@link OptionalIndex#FACETS}.
+     */
+    public List<Movie> getMoviesInGenre(String genre) {
+        MovieFacets index = requireFacets();
+        indexLock.readLock().lock();
+        try {
+            return index.getMoviesInGenre(genre);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Counts the movies of every genre among the movies produced in a country.
+     * 
+     * <p>The cast, country and genre fields are split once when a movie is added, and the answer is
+     * computed from their posting lists, so no fields are re-split for the query.</p>
+     *
+     * @param country the name of the country, e.g. "Poland".
+     * @return the genres of the country with their movie counts, from the most common one.
+     * @throws IllegalStateException if the model was created without {@link OptionalIndex#FACETS}.
+     */
+    public List<MultiValueIndex.ValueCount> getGenreCountsByCountry(String country) {
+        MovieFacets index = requireFacets();
+        indexLock.readLock().lock();
+        try {
+            return index.getGenreCountsByCountry(country);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
     
     /**
      * Finds the country with the highest number of movies in the list.
+     * Movies produced in several countries are counted for each of them.
+     *
+     * <p>The answer is read from a frequency index maintained on every change of the list, so this
+     * method runs in constant time.</p>
      *
      * @return The country with the most movies; returns "Unknown" if no valid country is found.
      */
     public String getCountryWithMostMovies() {
-        return movies.stream()
-                .filter(movie -> movie.country() != null && !movie.country().isBlank())
-                .collect(Collectors.groupingBy(Movie::country, Collectors.counting()))
-                .entrySet().stream()
-                .max(Map.Entry.comparingByValue())
-                .map(Map.Entry::getKey)
-                .orElse("Unknown");
+        indexLock.readLock().lock();
+        try {
+            String country = countryCounter.getMostCommon();
+            return country != null ? country : "Unknown";
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the countries with the highest numbers of movies.
+     * Movies produced in several countries are counted for each of them.
+     *
+     * @param k the maximum number of countries to return.
+     * @return up to {@code k} countries with their movie counts, from the most common one.
+     */
+    public List<CountryCounter.CountryCount> getTopCountries(int k) {
+        indexLock.readLock().lock();
+        try {
+            return countryCounter.getTop(k);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the average, shortest and longest duration of the titles of a type produced in every country.
+     * Movies are measured in minutes and TV shows in seasons; titles produced in several countries are
+     * counted for each of them, and titles without a duration in that unit are skipped.
+     * 
+     * <p>The durations are parsed once when a movie is created and aggregated on every change of the
+     * list, so this method only ranks the countries, and not even that if nothing changed since the
+     * last call.</p>
+     *
+     * @param type the type of the titles.
+     * @return the statistics of the countries, from the one with the most titles.
+     */
+    public List<DurationStatistics.CountryDuration> getDurationsByCountry(MovieType type) {
+        indexLock.readLock().lock();
+        try {
+            return durationStatistics.getByCountry(type);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Returns the duration statistics of the titles of a type produced in a country.
+     *
+     * @param country the name of the country, e.g. "Poland".
+     * @param type the type of the titles.
+     * @return the statistics of the country, or {@code null} if it has no title of that type with a known duration.
+     * @see #getDurationsByCountry(MovieType)
+     */
+    public DurationStatistics.CountryDuration getDuration(String country, MovieType type) {
+        indexLock.readLock().lock();
+        try {
+            return durationStatistics.get(country, type);
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * Runs a group-by query over the current catalog, e.g. the average duration of the movies of
+     * every genre or the 90th percentile of the days to platform per country.
+     * 
+     * <p>The query reads the columnar copy of the list, which is built once per change of the list and
+     * whose group keys and metrics are cached per field, and aggregates its ranges in parallel.</p>
+     *
+     * @param query the query to run.
+     * @return the groups with their aggregates.
+     * @throws IllegalArgumentException if the query orders by an aggregate it does not compute.
+     */
+    public MovieQuery.Result query(MovieQuery query) {
+        return query.execute(getColumns());
+    }
+    
+    /**
+     * Finds the country with the highest number of movies in a stream of movies.
+     * Movies produced in several countries are counted for each of them.
+     * Only one counter per distinct country is kept, so the stream may be backed by a file
+     * that does not fit in memory.
+     *
+     * @param movies the movies to analyze; the stream is consumed by this call.
+     * @return The country with the most movies; returns "Unknown" if no valid country is found.
+     */
+    public static String getCountryWithMostMovies(Stream<Movie> movies) {
+        CountryCounter counter = new CountryCounter();
+        movies.forEach(counter::add);
+        String country = counter.getMostCommon();
+        return country != null ? country : "Unknown";
     }
     
     /**
      * Generates a list of movie titles along with their release date differences.
+     * 
+     * <p>The differences are read from the release date difference column of {@link #getColumns()},
+     * which is computed once after each change of the list.</p>
      *
      * @return A list of strings, each containing a movie title and its release date difference in days.
      */
     public List<String> getMoviesWithReleaseDifferences() {
-        return movies.stream()
-                .map(movie -> String.format("%s: %d days", movie.title(), movie.getReleaseDateDifference()))
-                .collect(Collectors.toList());
+        MovieColumns columns = getColumns();
+        long[] differences = columns.getReleaseDifferences();
+        List<String> result = new ArrayList<>(differences.length);
+        for (int row = 0; row < differences.length; row++) {
+            result.add(formatReleaseDifference(columns.getTitle(row), differences[row]));
+        }
+        return result;
+    }
+    
+    /**
+     * Describes the release date difference of a movie, e.g. "Title: 42 days".
+     *
+     * @param title the title of the movie.
+     * @param difference the release date difference in days.
+     * @return the title followed by the difference.
+     */
+    public static String formatReleaseDifference(String title, long difference) {
+        return title + ": " + difference + " days";
     }
 }
-       
\ No newline at end of file
@@ -2,7 +2,8 @@ package pl.polsl.model;
 
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
-import java.time.temporal.ChronoUnit;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
 
 /**
  * Represents a movie in the system, containing attributes such as title, director, country,
@@ -101,28 +102,149 @@ public record Movie (
      *
      * @param description a description or summary of the movie.
      */
-    String description){
+    String description,
+    /**
+     * Date the movie was added to the platform as the number of days since January 1, 1970,
+     * parsed once from {@code dateAdded} when the movie is created.
+     * Equal to {@link #UNKNOWN_DATE} if the date could not be parsed.
+     *
+     * @param dateAddedDay the epoch day of the date the movie was added to the platform.
+     */
+    int dateAddedDay,
+    /**
+     * Length of the movie in minutes, parsed once from {@code duration} (e.g. "90 min") when the movie
+     * is created. Equal to {@link #UNKNOWN_DURATION} if the duration is not given in minutes.
+     *
+     * @param durationMinutes the length of the movie in minutes.
+     */
+    int durationMinutes,
+    /**
+     * Number of seasons of the series, parsed once from {@code duration} (e.g. "2 Seasons") when the
+     * movie is created. Equal to {@link #UNKNOWN_DURATION} if the duration is not given in seasons.
+     *
+     * @param durationSeasons the number of seasons of the series.
+     */
+    int durationSeasons){
+    
+    /**
+     * Value of {@link #dateAddedDay()} for movies whose date added is missing or cannot be parsed.
+     */
+    public static final int UNKNOWN_DATE = Integer.MIN_VALUE;
+    
+    /**
+     * Value of {@link #durationMinutes()} and {@link #durationSeasons()} when the duration is missing
+     * or given in the other unit.
+     */
+    public static final int UNKNOWN_DURATION = -1;
+    
+    /**
+     * Format of the {@code dateAdded} field in the CSV file, e.g. "January 1, 2020".
+     */
+    private static final DateTimeFormatter DATE_ADDED_FORMAT = DateTimeFormatter.ofPattern("MMMM d, yyyy", Locale.ENGLISH);
+    
+    /**
+     * Creates a movie and parses its duration into {@link #durationMinutes()} and {@link #durationSeasons()}.
+     *
+     * @param showId the unique identifier for the movie.
+     * @param type the type of the content (movie or series).
+     * @param title the title of the movie.
+     * @param director the director of the movie.
+     * @param cast the cast of the movie.
+     * @param country the country where the movie was produced.
+     * @param dateAdded the date the movie was added to the platform, in the format "MMMM d, yyyy".
+     * @param releaseYear the release year of the movie.
+     * @param rating the age rating of the movie.
+     * @param duration the duration of the movie or the series.
+     * @param listedIn the categories or genres the movie belongs to.
+     * @param description a description or summary of the movie.
+     * @param dateAddedDay the epoch day of the date the movie was added to the platform.
+     */
+    public Movie(String showId, MovieType type, String title, String director, String cast, String country,
+            String dateAdded, Integer releaseYear, String rating, String duration, String listedIn, String description,
+            int dateAddedDay) {
+        this(showId, type, title, director, cast, country, dateAdded, releaseYear, rating, duration, listedIn,
+                description, dateAddedDay, parseDuration(duration, " min"), parseDuration(duration, " Season"));
+    }
+    
+    /**
+     * Creates a movie and parses its date added into {@link #dateAddedDay()} and its duration into
+     * {@link #durationMinutes()} and {@link #durationSeasons()}.
+     *
+     * @param showId the unique identifier for the movie.
+     * @param type the type of the content (movie or series).
+     * @param title the title of the movie.
+     * @param director the director of the movie.
+     * @param cast the cast of the movie.
+     * @param country the country where the movie was produced.
+     * @param dateAdded the date the movie was added to the platform, in the format "MMMM d, yyyy".
+     * @param releaseYear the release year of the movie.
+     * @param rating the age rating of the movie.
+     * @param duration the duration of the movie or the series.
+     * @param listedIn the categories or genres the movie belongs to.
+     * @param description a description or summary of the movie.
+     */
+    public Movie(String showId, MovieType type, String title, String director, String cast, String country,
+            String dateAdded, Integer releaseYear, String rating, String duration, String listedIn, String description) {
+        this(showId, type, title, director, cast, country, dateAdded, releaseYear, rating, duration, listedIn,
+                description, parseDateAdded(dateAdded));
+    }
+    
+    /**
+     * Parses a date in the format "MMMM d, yyyy" into an epoch day.
+     *
+     * @param dateAdded the date to parse; may be empty or {@code null}.
+     * @return the number of days since January 1, 1970, or {@link #UNKNOWN_DATE} if the date cannot be parsed.
+     */
+    public static int parseDateAdded(String dateAdded) {
+        if (dateAdded == null || dateAdded.isBlank()) {
+            return UNKNOWN_DATE;
+        }
+        try {
+            return (int) LocalDate.parse(dateAdded.trim(), DATE_ADDED_FORMAT).toEpochDay();
+        } catch (DateTimeParseException e) {
+            return UNKNOWN_DATE;
+        }
+    }
+    
+    /**
+     * Parses a duration such as "90 min", "1 Season" or "3 Seasons" if it is given in the expected unit.
+     *
+     * @param duration the duration to parse; may be {@code null}.
+     * @param unit the unit preceded by a space, e.g. " min" or " Season"; a plural "s" after it is accepted.
+     * @return the number before the unit, or {@link #UNKNOWN_DURATION} if the duration is given in
+     *         another unit or cannot be parsed.
+     */
+    static int parseDuration(String duration, String unit) {
+        if (duration == null) {
+            return UNKNOWN_DURATION;
+        }
+        int end = duration.indexOf(unit);
+        int suffix = end + unit.length();
+        if (end <= 0 || !(suffix == duration.length()
+                || (suffix + 1 == duration.length() && duration.charAt(suffix) == 's'))) {
+            return UNKNOWN_DURATION;
+        }
+        try {
+            return Integer.parseInt(duration.substring(0, end).trim());
+        } catch (NumberFormatException e) {
+            return UNKNOWN_DURATION;
+        }
+    }
     
     /**
      * Calculates the difference in days between the movie's release date (January 1 of the release year)
      * and the date it was added to the platform.
      * 
-     * <p>If the date cannot be parsed, the method returns {@code Long.MAX_VALUE}.</p>
+     * <p>If the date could not be parsed, the method returns {@code Long.MAX_VALUE}.</p>
      *
      * @return the number of days between the release date and the added date,
-     *         or {@code Long.MAX_VALUE} if parsing fails.
+     *         or {@code Long.MAX_VALUE} if parsing failed.
      */
     public long getReleaseDateDifference() {
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMMM d, yyyy");
-        LocalDate releaseDate = LocalDate.of(releaseYear, 1, 1);
-        LocalDate addedDate;
-        try{
-            addedDate = LocalDate.parse(dateAdded, formatter);
-        } catch(Exception e) {
-            System.out.println("Error parsing dateAdded: " + dateAdded);
+        if (dateAddedDay == UNKNOWN_DATE) {
             return Long.MAX_VALUE;
         }
-        return ChronoUnit.DAYS.between(releaseDate, addedDate);
+        return dateAddedDay - LocalDate.of(releaseYear, 1, 1).toEpochDay();
     }
     
     /**
@@ -0,0 +1,375 @@
+package pl.polsl.model;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Column-oriented copy of a movie catalog used for analytics.
+ * 
+ * <p>Instead of one object per movie, every analyzed attribute is stored in its own primitive array,
+ * indexed by the position of the movie in the catalog. Low-cardinality text attributes are
+ * dictionary-encoded into {@code int} codes, so scans read small contiguous arrays instead of
+ * following references to records and strings.</p>
+ * 
+ * <p>Stored columns:</p>
+ * <ul>
+ *   <li>release year, date added (epoch day, see {@link Movie#dateAddedDay()}) and duration in minutes as {@code int} arrays,</li>
+ *   <li>type as a {@code byte} array of {@link MovieType} ordinals,</li>
+ *   <li>country, rating and director as codes into a {@link StringDictionary} per column,</li>
+ *   <li>title as references to the strings of the movies and the numeric key of the show ID, used only for sorting,</li>
+ *   <li>the release date difference in days as a {@code long} array, computed on first request,</li>
+ *   <li>number of seasons as an {@code int} array, and genres and cast as references to the strings of the
+ *       movies, used only by queries.</li>
+ * </ul>
+ * 
+ * <p>The group keys of every {@link GroupField} and the values of every {@link Metric} read by
+ * {@link MovieQuery} are derived from these columns on first request and cached in the same way.</p>
+ * 
+ * <p>The sort orders of the rows are computed by a {@link MovieSorter} on primitive keys on first
+ * request for each {@link SortColumn} and cached, so repeated sorts of the same columns only cost a lookup.</p>
+ * 
+ * <p>The columns are a snapshot: they do not follow later changes of the list they were built from.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class MovieColumns {
+    /**
+     * Value of the duration column for movies whose duration is not given in minutes, e.g. TV shows.
+     */
+    public static final int NO_MINUTES = Movie.UNKNOWN_DURATION;
+    /**
+     * Number of rows in the columns.
+     */
+    private final int size;
+    /**
+     * Release year of each row.
+     */
+    final int[] releaseYear;
+    /**
+     * Date added of each row as an epoch day, or {@link Movie#UNKNOWN_DATE}.
+     */
+    final int[] dateAdded;
+    /**
+     * Duration of each row in minutes, or {@link #NO_MINUTES}.
+     */
+    final int[] durationMinutes;
+    /**
+     * Number of seasons of each row, or {@link Movie#UNKNOWN_DURATION}.
+     */
+    final int[] durationSeasons;
+    /**
+     * {@link MovieType} ordinal of each row.
+     */
+    final byte[] type;
+    /**
+     * Country code of each row in {@link #countries}.
+     */
+    final int[] country;
+    /**
+     * Rating code of each row in {@link #ratings}.
+     */
+    final int[] rating;
+    /**
+     * Director code of each row in {@link #directors}.
+     */
+    final int[] director;
+    /**
+     * Title of each row.
+     */
+    final String[] title;
+    /**
+     * Genres of each row, as listed.
+     */
+    final String[] listedIn;
+    /**
+     * Cast of each row, as listed.
+     */
+    final String[] cast;
+    /**
+     * Numeric key of the show ID of each row (see {@link ShowIdIndex#parseKey(CharSequence)}), or {@code -1}.
+     */
+    final int[] showIdKey;
+    /**
+     * Sorting engine ranking the rows by show ID; created on the first sort.
+     */
+    private MovieSorter sorter;
+    /**
+     * Cached sort orders, indexed by {@link SortColumn} ordinal; {@code null} until first requested.
+     */
+    private final SortOrder[] sortOrders = new SortOrder[SortColumn.values().length];
+    /**
+     * Cached group keys, indexed by {@link GroupField} ordinal; {@code null} until first requested.
+     */
+    private final GroupColumn[] groupColumns = new GroupColumn[GroupField.values().length];
+    /**
+     * Cached metric columns, indexed by {@link Metric} ordinal; {@code null} until first requested.
+     */
+    private final int[][] metrics = new int[Metric.values().length][];
+    /**
+     * Release date difference of each row in days (see {@link Movie#getReleaseDateDifference()});
+     * {@code null} until first requested.
+     */
+    private long[] releaseDifferences;
+    /**
+     * Dictionary of the distinct countries.
+     */
+    private final StringDictionary countries = new StringDictionary();
+    /**
+     * Dictionary of the distinct ratings.
+     */
+    private final StringDictionary ratings = new StringDictionary();
+    /**
+     * Dictionary of the distinct directors.
+     */
+    private final StringDictionary directors = new StringDictionary();
+    
+    /**
+     * Builds the columns from a list of movies in a single pass.
+     *
+     * @param movies the movies to store; row {@code i} of every column describes {@code movies.get(i)}.
+     */
+    public MovieColumns(List<Movie> movies) {
+        size = movies.size();
+        releaseYear = new int[size];
+        dateAdded = new int[size];
+        durationMinutes = new int[size];
+        durationSeasons = new int[size];
+        type = new byte[size];
+        country = new int[size];
+        rating = new int[size];
+        director = new int[size];
+        title = new String[size];
+        showIdKey = new int[size];
+        listedIn = new String[size];
+        cast = new String[size];
+        
+        for (int row = 0; row < size; row++) {
+            Movie movie = movies.get(row);
+            releaseYear[row] = movie.releaseYear() != null ? movie.releaseYear() : 0;
+            dateAdded[row] = movie.dateAddedDay();
+            durationMinutes[row] = movie.durationMinutes();
+            durationSeasons[row] = movie.durationSeasons();
+            type[row] = (byte) movie.type().ordinal();
+            country[row] = countries.encode(movie.country() != null ? movie.country() : "");
+            rating[row] = ratings.encode(movie.rating() != null ? movie.rating() : "");
+            director[row] = directors.encode(movie.director() != null ? movie.director() : "");
+            title[row] = movie.title() != null ? movie.title() : "";
+            showIdKey[row] = ShowIdIndex.parseKey(movie.showId());
+            listedIn[row] = movie.listedIn() != null ? movie.listedIn() : "";
+            cast[row] = movie.cast() != null ? movie.cast() : "";
+        }
+    }
+    
+    /**
+     * Returns the number of rows in the columns.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return size;
+    }
+    
+    /**
+     * Returns the release year of a row.
+     *
+     * @param row the index of the row.
+     * @return the release year.
+     */
+    public int getReleaseYear(int row) {
+        return releaseYear[row];
+    }
+    
+    /**
+     * Returns the date added of a row.
+     *
+     * @param row the index of the row.
+     * @return the date added as an epoch day, or {@link Movie#UNKNOWN_DATE}.
+     */
+    public int getDateAdded(int row) {
+        return dateAdded[row];
+    }
+    
+    /**
+     * Returns the duration of a row in minutes.
+     *
+     * @param row the index of the row.
+     * @return the duration in minutes, or {@link #NO_MINUTES}.
+     */
+    public int getDurationMinutes(int row) {
+        return durationMinutes[row];
+    }
+    
+    /**
+     * Returns the title of a row.
+     *
+     * @param row the index of the row.
+     * @return the title, or an empty string if unknown.
+     */
+    public String getTitle(int row) {
+        return title[row];
+    }
+    
+    /**
+     * Returns the number of days between the release and the date added of a row.
+     *
+     * @param row the index of the row.
+     * @return the release date difference in days, or {@code Long.MAX_VALUE} if the date added is unknown.
+     * @see #getReleaseDifferences()
+     */
+    public long getReleaseDifference(int row) {
+        return getReleaseDifferences()[row];
+    }
+    
+    /**
+     * Returns the release date difference of every row, computing the whole column on the first request.
+     * Unlike {@link Movie#getReleaseDateDifference()}, the start of each release year is converted to
+     * an epoch day only once per distinct year.
+     *
+     * @return the cached release date differences in days, {@code Long.MAX_VALUE} for rows whose date
+     *         added is unknown; must not be modified.
+     */
+    public synchronized long[] getReleaseDifferences() {
+        if (releaseDifferences == null) {
+            long[] differences = new long[size];
+            Map<Integer, Long> yearStarts = new HashMap<>();
+            for (int row = 0; row < size; row++) {
+                differences[row] = dateAdded[row] == Movie.UNKNOWN_DATE ? Long.MAX_VALUE
+                        : dateAdded[row] - yearStarts.computeIfAbsent(releaseYear[row],
+                                year -> LocalDate.of(year, 1, 1).toEpochDay());
+            }
+            releaseDifferences = differences;
+        }
+        return releaseDifferences;
+    }
+    
+    /**
+     * Returns the type of a row.
+     *
+     * @param row the index of the row.
+     * @return the type of the movie.
+     */
+    public MovieType getType(int row) {
+        return MovieType.values()[type[row]];
+    }
+    
+    /**
+     * Returns the country of a row.
+     *
+     * @param row the index of the row.
+     * @return the country, or an empty string if unknown.
+     */
+    public String getCountry(int row) {
+        return countries.decode(country[row]);
+    }
+    
+    /**
+     * Returns the rating of a row.
+     *
+     * @param row the index of the row.
+     * @return the rating, or an empty string if unknown.
+     */
+    public String getRating(int row) {
+        return ratings.decode(rating[row]);
+    }
+    
+    /**
+     * Returns the director of a row.
+     *
+     * @param row the index of the row.
+     * @return the director, or an empty string if unknown.
+     */
+    public String getDirector(int row) {
+        return directors.decode(director[row]);
+    }
+    
+    /**
+     * Returns the order of the rows sorted by a column, computing it on the first request.
+     * Rows with an unknown value (see {@link SortColumn}) are placed last, and rows with equal values
+     * are ordered by show ID.
+     *
+     * @param column the column to sort by.
+     * @return the cached sort order of the rows.
+     */
+    public synchronized SortOrder getSortOrder(SortColumn column) {
+        SortOrder order = sortOrders[column.ordinal()];
+        if (order == null) {
+            order = switch (column) {
+                case DATE_ADDED -> getSorter().sortByKey(dateAdded, Movie.UNKNOWN_DATE);
+                case RELEASE_YEAR -> getSorter().sortByKey(releaseYear, 0);
+                case DURATION -> getSorter().sortByKey(durationMinutes, NO_MINUTES);
+                case TITLE -> getSorter().sortByKey(MovieSorter.rank(title, String.CASE_INSENSITIVE_ORDER), -1);
+            };
+            sortOrders[column.ordinal()] = order;
+        }
+        return order;
+    }
+    
+    /**
+     * Returns the group keys of every row for a field, encoding them on the first request.
+     * Each distinct country, genre list or director is split only once.
+     *
+     * @param field the field to group by.
+     * @return the cached group keys.
+     */
+    synchronized GroupColumn getGroupColumn(GroupField field) {
+        GroupColumn column = groupColumns[field.ordinal()];
+        if (column == null) {
+            column = switch (field) {
+                case TYPE -> GroupColumn.build(size, row -> MovieType.values()[type[row]].name(), GroupColumn::single);
+                case COUNTRY -> GroupColumn.build(size, row -> countries.decode(country[row]), GroupColumn::single);
+                case COUNTRIES -> GroupColumn.build(size, row -> countries.decode(country[row]), MultiValueIndex::split);
+                case GENRE -> GroupColumn.build(size, row -> listedIn[row], MultiValueIndex::split);
+                case CAST -> GroupColumn.build(size, row -> cast[row], MultiValueIndex::split);
+                case RATING -> GroupColumn.build(size, row -> ratings.decode(rating[row]), GroupColumn::single);
+                case DIRECTOR -> GroupColumn.build(size, row -> directors.decode(director[row]), GroupColumn::single);
+                case RELEASE_YEAR -> GroupColumn.build(size,
+                        row -> releaseYear[row] != 0 ? String.valueOf(releaseYear[row]) : "", GroupColumn::single);
+                case YEAR_ADDED -> GroupColumn.build(size, row -> dateAdded[row] != Movie.UNKNOWN_DATE
+                        ? String.valueOf(LocalDate.ofEpochDay(dateAdded[row]).getYear()) : "", GroupColumn::single);
+            };
+            groupColumns[field.ordinal()] = column;
+        }
+        return column;
+    }
+    
+    /**
+     * Returns the values of a metric for every row, deriving them on the first request.
+     *
+     * @param metric the metric to read.
+     * @return the cached metric column, holding {@link Metric#MISSING} for rows without a value;
+     *         must not be modified.
+     */
+    synchronized int[] getMetric(Metric metric) {
+        int[] values = metrics[metric.ordinal()];
+        if (values == null) {
+            values = new int[size];
+            for (int row = 0; row < size; row++) {
+                values[row] = switch (metric) {
+                    case RELEASE_YEAR -> releaseYear[row] != 0 ? releaseYear[row] : Metric.MISSING;
+                    case DURATION_MINUTES -> durationMinutes[row] != NO_MINUTES ? durationMinutes[row] : Metric.MISSING;
+                    case DURATION_SEASONS -> durationSeasons[row] != Movie.UNKNOWN_DURATION
+                            ? durationSeasons[row] : Metric.MISSING;
+                    case DAYS_TO_PLATFORM -> dateAdded[row] != Movie.UNKNOWN_DATE && releaseYear[row] != 0
+                            ? dateAdded[row] - (int) LocalDate.of(releaseYear[row], 1, 1).toEpochDay() : Metric.MISSING;
+                };
+            }
+            metrics[metric.ordinal()] = values;
+        }
+        return values;
+    }
+    
+    /**
+     * Returns the sorting engine of the columns, ranking the rows by show ID on first use.
+     *
+     * @return the sorting engine.
+     */
+    private MovieSorter getSorter() {
+        if (sorter == null) {
+            sorter = new MovieSorter(showIdKey);
+        }
+        return sorter;
+    }
+}
@@ -0,0 +1,281 @@
+package pl.polsl.model;
+
+import com.opencsv.CSVReader;
+import com.opencsv.exceptions.CsvValidationException;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming reader that turns rows of a Netflix titles CSV file into {@link Movie} objects one at a time.
+ * Unlike {@link Model}, which keeps the whole catalog in memory, this reader only holds the current row,
+ * so it can be used to run aggregations over files larger than the available heap.
+ *
+ * <p>The catalog can be consumed in three ways:</p>
+ * <ul>
+ *   <li>row by row with {@link #readNext()},</li>
+ *   <li>in chunks with {@link #readBatch(int)},</li>
+ *   <li>as a lazy, ordered {@link Stream} with {@link #stream()}.</li>
+ * </ul>
+ *
+ * <p>The first line of the input is treated as the header and skipped.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class MovieCsvReader implements Closeable {
+    /**
+     * Name of the CSV resource bundled with the application.
+     */
+    public static final String DEFAULT_RESOURCE = "netflix_titles.csv";
+    /**
+     * Number of columns in a row of the Netflix titles CSV file.
+     */
+    public static final int COLUMN_COUNT = 12;
+    /**
+     * The underlying CSV parser.
+     */
+    private final CSVReader csvReader;
+    /**
+     * Whether the header line has already been consumed.
+     */
+    private boolean headerSkipped;
+    /**
+     * Dictionaries sharing repeated values between movies, or {@code null} to keep values as read.
+     */
+    private MovieInterner interner;
+
+    /**
+     * Constructs a reader over the given character stream.
+     *
+     * @param reader the source of CSV data, including the header line.
+     */
+    public MovieCsvReader(Reader reader) {
+        this(reader, true);
+    }
+
+    /**
+     * Constructs a reader over the given character stream, which may be a fragment of a larger file.
+     *
+     * @param reader the source of CSV data.
+     * @param hasHeader whether the first line of the input is a header that should be skipped.
+     */
+    public MovieCsvReader(Reader reader, boolean hasHeader) {
+        this.csvReader = new CSVReader(reader);
+        this.headerSkipped = !hasHeader;
+    }
+
+    /**
+     * Opens a reader over a CSV resource available on the classpath.
+     *
+     * @param resource the name of the resource, e.g. {@link #DEFAULT_RESOURCE}.
+     * @return a reader positioned before the first movie.
+     * @throws InvalidMovieIdException if the resource cannot be found.
+     */
+    public static MovieCsvReader fromClasspath(String resource) throws InvalidMovieIdException {
+        InputStream inputStream = MovieCsvReader.class.getClassLoader().getResourceAsStream(resource);
+        if (inputStream == null) {
+            throw new InvalidMovieIdException("CSV file not found.");
+        }
+        return new MovieCsvReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Opens a reader over a CSV file on disk.
+     *
+     * @param csvFile the path of the CSV file.
+     * @return a reader positioned before the first movie.
+     * @throws InvalidMovieIdException if the file cannot be opened.
+     */
+    public static MovieCsvReader fromFile(Path csvFile) throws InvalidMovieIdException {
+        try {
+            return new MovieCsvReader(Files.newBufferedReader(csvFile, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Opens a reader over a CSV file on disk, or over the bundled resource if no file is given.
+     *
+     * @param csvFile the path of the CSV file, or {@code null} for {@link #DEFAULT_RESOURCE}.
+     * @return a reader positioned before the first movie.
+     * @throws InvalidMovieIdException if the file or resource cannot be opened.
+     */
+    public static MovieCsvReader open(Path csvFile) throws InvalidMovieIdException {
+        return csvFile != null ? fromFile(csvFile) : fromClasspath(DEFAULT_RESOURCE);
+    }
+
+    /**
+     * Sets the dictionaries used to share repeated values between the movies read.
+     *
+     * @param interner the dictionaries to use, or {@code null} to keep values as read.
+     */
+    public void setInterner(MovieInterner interner) {
+        this.interner = interner;
+    }
+
+    /**
+     * Reads the next movie from the input.
+     *
+     * @return the next movie, or {@code null} if the end of the input has been reached.
+     * @throws InvalidMovieIdException if the input cannot be read or the row contains invalid data.
+     */
+    public Movie readNext() throws InvalidMovieIdException {
+        try {
+            if (!headerSkipped) {
+                csvReader.readNext();
+                headerSkipped = true;
+            }
+            String[] row = csvReader.readNext();
+            return row != null ? parseRow(row, interner) : null;
+        } catch (IOException | CsvValidationException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Reads up to {@code size} movies from the input.
+     *
+     * @param size the maximum number of movies to read.
+     * @return the movies read, in file order; an empty list once the end of the input has been reached.
+     * @throws InvalidMovieIdException if the input cannot be read or a row contains invalid data.
+     */
+    public List<Movie> readBatch(int size) throws InvalidMovieIdException {
+        List<Movie> batch = new ArrayList<>(size);
+        Movie movie;
+        while (batch.size() < size && (movie = readNext()) != null) {
+            batch.add(movie);
+        }
+        return batch;
+    }
+
+    /**
+     * Exposes the remaining movies as a lazy, sequential stream. Closing the stream closes this reader.
+     *
+     * <p>Since streams cannot propagate checked exceptions, read errors are rethrown as
+     * {@link IllegalStateException} with the original {@link InvalidMovieIdException} as the cause.</p>
+     *
+     * @return an ordered stream of the remaining movies.
+     */
+    public Stream<Movie> stream() {
+        Spliterator<Movie> spliterator = new Spliterators.AbstractSpliterator<Movie>(Long.MAX_VALUE,
+                Spliterator.ORDERED | Spliterator.NONNULL) {
+            @Override
+            public boolean tryAdvance(Consumer<? super Movie> action) {
+                Movie movie;
+                try {
+                    movie = readNext();
+                } catch (InvalidMovieIdException e) {
+                    throw new IllegalStateException(e.getMessage(), e);
+                }
+                if (movie == null) {
+                    return false;
+                }
+                action.accept(movie);
+                return true;
+            }
+        };
+        return StreamSupport.stream(spliterator, false).onClose(() -> {
+            try {
+                close();
+            } catch (IOException e) {
+                throw new IllegalStateException("Error closing the CSV file: " + e.getMessage(), e);
+            }
+        });
+    }
+
+    /**
+     * Converts a single CSV row into a {@link Movie}. Fields are trimmed, unknown types default to
+     * {@link MovieType#MOVIE}, and an empty duration is replaced with {@code "N/A"}.
+     *
+     * @param row the fields of the row: ID, type, title, director, cast, country, date added,
+     *            release year, rating, duration, listed genres and description.
+     * @return the movie described by the row.
+     * @throws InvalidMovieIdException if the row has missing columns or an invalid release year.
+     */
+    public static Movie parseRow(String[] row) throws InvalidMovieIdException {
+        return parseRow(row, null);
+    }
+
+    /**
+     * Converts a single CSV row into a {@link Movie}, replacing low-cardinality values with their
+     * canonical instances from the given dictionaries.
+     *
+     * @param row the fields of the row, as for {@link #parseRow(String[])}.
+     * @param interner the dictionaries to use, or {@code null} to keep values as read.
+     * @return the movie described by the row.
+     * @throws InvalidMovieIdException if the row has missing columns or an invalid release year.
+     */
+    public static Movie parseRow(String[] row, MovieInterner interner) throws InvalidMovieIdException {
+        if (row.length < COLUMN_COUNT) {
+            throw new InvalidMovieIdException("Skipping invalid line: " + String.join(",", row));
+        }
+        String id = row[0].trim();
+        String typeString = row[1].trim();
+        String title = row[2].trim();
+        String director = row[3].trim();
+        String cast = row[4].trim();
+        String country = row[5].trim();
+        String dateAdded = row[6].trim();
+        String releaseYearStr = row[7].trim();
+        String rating = row[8].trim();
+        String duration = row[9].trim();
+        String listedIn = row[10].trim();
+        String description = row[11].trim();
+
+        MovieType type;
+        try {
+            type = MovieType.valueOf(typeString.toUpperCase().replace(" ", "_"));
+        } catch (IllegalArgumentException e) {
+            type = MovieType.MOVIE;
+        }
+
+        int releaseYear = 0;
+
+        try {
+            if (!releaseYearStr.isEmpty()) {
+                releaseYear = Integer.parseInt(releaseYearStr);
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidMovieIdException("Invalid release year: " + releaseYearStr);
+        }
+
+        if (duration.isEmpty()) {
+            duration = "N/A";
+        }
+
+        if (interner != null) {
+            director = interner.director(director);
+            country = interner.country(country);
+            rating = interner.rating(rating);
+            duration = interner.duration(duration);
+            listedIn = interner.listedIn(listedIn);
+        }
+
+        return new Movie(id, type, title, director, cast, country, dateAdded,
+                releaseYear, rating, duration, listedIn, description);
+    }
+
+    /**
+     * Closes the underlying CSV parser and its input.
+     *
+     * @throws IOException if closing the input fails.
+     */
+    @Override
+    public void close() throws IOException {
+        csvReader.close();
+    }
+}
@@ -0,0 +1,197 @@
+package pl.polsl.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Posting lists of the multi-valued fields of the catalog: the cast, the countries and the genres
+ * ({@code listedIn}) of every movie, maintained incrementally as movies are added and removed.
+ * 
+ * <p>Each field is held in a {@link MultiValueIndex}. All three share the document numbers assigned
+ * here, so a question spanning two fields, such as the genre counts of one country, reads the
+ * posting list of the country and the genre codes of its movies without touching any strings.</p>
+ * 
+ * <p>Removed movies are skipped by the posting lists; once they outnumber the remaining movies,
+ * the lists are rebuilt. Movies are listed in the order they were added, which is not the catalog
+ * order once a movie has been replaced: a replacing movie is added after all others.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class MovieFacets {
+    /**
+     * Order of the counts: descending count, then ascending value.
+     */
+    private static final Comparator<MultiValueIndex.ValueCount> COUNT_ORDER = Comparator
+            .comparingInt(MultiValueIndex.ValueCount::count).reversed()
+            .thenComparing(MultiValueIndex.ValueCount::value);
+    /**
+     * Movie of every document number, or {@code null} if the movie has been removed.
+     */
+    private Movie[] documents = new Movie[16];
+    /**
+     * Document number of every movie in the facets.
+     */
+    private final Map<Movie, Integer> documentIds = new IdentityHashMap<>();
+    /**
+     * Number of document numbers assigned so far, including those of removed movies.
+     */
+    private int documentCount;
+    /**
+     * Posting lists of the cast members.
+     */
+    private MultiValueIndex cast = new MultiValueIndex();
+    /**
+     * Posting lists of the countries.
+     */
+    private MultiValueIndex countries = new MultiValueIndex();
+    /**
+     * Posting lists of the genres.
+     */
+    private MultiValueIndex genres = new MultiValueIndex();
+    
+    /**
+     * Adds a movie to the posting lists.
+     *
+     * @param movie the movie to add.
+     */
+    public void add(Movie movie) {
+        add(movie, MultiValueIndex.split(movie.country()));
+    }
+    
+    /**
+     * Adds a movie to the posting lists, reusing its countries already split by
+     * {@link MultiValueIndex#split(String)}.
+     *
+     * @param movie the movie to add.
+     * @param movieCountries the distinct countries of the movie.
+     */
+    public void add(Movie movie, List<String> movieCountries) {
+        int document = documentCount++;
+        if (document == documents.length) {
+            documents = Arrays.copyOf(documents, document * 2);
+        }
+        documents[document] = movie;
+        documentIds.put(movie, document);
+        cast.add(document, movie.cast());
+        countries.add(document, movieCountries);
+        genres.add(document, movie.listedIn());
+    }
+    
+    /**
+     * Removes a movie from the posting lists.
+     *
+     * @param movie the movie to remove; the same instance that was added.
+     */
+    public void remove(Movie movie) {
+        Integer document = documentIds.remove(movie);
+        if (document == null) {
+            return;
+        }
+        documents[document] = null;
+        cast.remove(document);
+        countries.remove(document);
+        genres.remove(document);
+        if (documentCount - documentIds.size() > documentIds.size()) {
+            rebuild();
+        }
+    }
+    
+    /**
+     * Returns the movies in which a person appears.
+     *
+     * @param name the name of the cast member, as listed in the catalog.
+     * @return the movies with the cast member, in the order they were added.
+     */
+    public List<Movie> getMoviesWithCastMember(String name) {
+        return getMovies(cast.getDocuments(name));
+    }
+    
+    /**
+     * Returns the movies produced in a country.
+     *
+     * @param country the name of the country.
+     * @return the movies from the country, in the order they were added.
+     */
+    public List<Movie> getMoviesFromCountry(String country) {
+        return getMovies(countries.getDocuments(country));
+    }
+    
+    /**
+     * Returns the movies listed in a genre.
+     *
+     * @param genre the name of the genre, e.g. "Documentaries".
+     * @return the movies of the genre, in the order they were added.
+     */
+    public List<Movie> getMoviesInGenre(String genre) {
+        return getMovies(genres.getDocuments(genre));
+    }
+    
+    /**
+     * Counts the movies of every genre among the movies produced in a country.
+     *
+     * @param country the name of the country.
+     * @return the genres of the country with their movie counts, from the most common one.
+     */
+    public List<MultiValueIndex.ValueCount> getGenreCountsByCountry(String country) {
+        int[] counts = new int[genres.size()];
+        for (int document : countries.getDocuments(country)) {
+            for (int genre : genres.getValues(document)) {
+                counts[genre]++;
+            }
+        }
+        List<MultiValueIndex.ValueCount> result = new ArrayList<>();
+        for (int genre = 0; genre < counts.length; genre++) {
+            if (counts[genre] > 0) {
+                result.add(new MultiValueIndex.ValueCount(genres.decode(genre), counts[genre]));
+            }
+        }
+        result.sort(COUNT_ORDER);
+        return result;
+    }
+    
+    /**
+     * Returns the number of movies in which a person appears.
+     *
+     * @param name the name of the cast member.
+     * @return the number of movies with the cast member.
+     */
+    public int getCastMemberCount(String name) {
+        return cast.getCount(name);
+    }
+    
+    /**
+     * Resolves document numbers to movies.
+     *
+     * @param documentNumbers ascending document numbers of movies that have not been removed.
+     * @return the movies.
+     */
+    private List<Movie> getMovies(int[] documentNumbers) {
+        List<Movie> movies = new ArrayList<>(documentNumbers.length);
+        for (int document : documentNumbers) {
+            movies.add(documents[document]);
+        }
+        return movies;
+    }
+    
+    /**
+     * Rebuilds the posting lists from the movies that have not been removed, in the order they were added.
+     */
+    private void rebuild() {
+        Movie[] live = Arrays.stream(documents, 0, documentCount).filter(Objects::nonNull).toArray(Movie[]::new);
+        documents = new Movie[Math.max(16, live.length)];
+        documentIds.clear();
+        documentCount = 0;
+        cast = new MultiValueIndex();
+        countries = new MultiValueIndex();
+        genres = new MultiValueIndex();
+        for (Movie movie : live) {
+            add(movie);
+        }
+    }
+}
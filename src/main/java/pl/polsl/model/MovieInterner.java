@@ -0,0 +1,180 @@
+package pl.polsl.model;
+
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Set of per-column dictionaries used while loading the catalog, so that values repeated across rows
+ * are stored once and shared by all movies that contain them.
+ * 
+ * <p>The interned columns are the ones with low cardinality: director, country, rating, duration and
+ * listed genres. Titles, cast lists and descriptions are nearly unique and are left as read.</p>
+ * 
+ * <p>{@link #report(List)} estimates how much heap the sharing saves for a given list of movies.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class MovieInterner {
+    /**
+     * Names of the interned columns, in the order used by {@link #report(List)}.
+     */
+    private static final String[] COLUMN_NAMES = {"director", "country", "rating", "duration", "listedIn"};
+    /**
+     * Accessors of the interned columns, in the same order as {@link #COLUMN_NAMES}.
+     */
+    private static final List<Function<Movie, String>> COLUMNS = List.of(
+            Movie::director, Movie::country, Movie::rating, Movie::duration, Movie::listedIn);
+    /**
+     * Dictionary of the distinct directors.
+     */
+    private final StringDictionary directors = new StringDictionary();
+    /**
+     * Dictionary of the distinct countries.
+     */
+    private final StringDictionary countries = new StringDictionary();
+    /**
+     * Dictionary of the distinct ratings.
+     */
+    private final StringDictionary ratings = new StringDictionary();
+    /**
+     * Dictionary of the distinct durations.
+     */
+    private final StringDictionary durations = new StringDictionary();
+    /**
+     * Dictionary of the distinct genre lists.
+     */
+    private final StringDictionary genres = new StringDictionary();
+    
+    /**
+     * Estimated heap usage of one column with and without interning.
+     *
+     * @param column the name of the column.
+     * @param rows the number of rows analyzed.
+     * @param distinct the number of distinct values in the column.
+     * @param bytesWithout the estimated bytes of the column if every row held its own string.
+     * @param bytesWith the estimated bytes of the column when each distinct string is stored once.
+     */
+    public record ColumnReport(String column, long rows, int distinct, long bytesWithout, long bytesWith) {
+        
+        /**
+         * Returns the estimated number of bytes saved by interning.
+         *
+         * @return the difference between {@code bytesWithout} and {@code bytesWith}.
+         */
+        public long bytesSaved() {
+            return bytesWithout - bytesWith;
+        }
+        
+        /**
+         * Returns a one-line summary of the report.
+         *
+         * @return a string with the column name, row and distinct counts, and the saved kilobytes.
+         */
+        @Override
+        public String toString() {
+            return String.format("%-9s rows=%d distinct=%d without=%d KB with=%d KB saved=%d KB",
+                    column, rows, distinct, bytesWithout / 1024, bytesWith / 1024, bytesSaved() / 1024);
+        }
+    }
+    
+    /**
+     * Returns the canonical instance of a director.
+     *
+     * @param director the director read from the CSV file.
+     * @return the shared instance equal to {@code director}.
+     */
+    public String director(String director) {
+        return directors.intern(director);
+    }
+    
+    /**
+     * Returns the canonical instance of a country.
+     *
+     * @param country the country read from the CSV file.
+     * @return the shared instance equal to {@code country}.
+     */
+    public String country(String country) {
+        return countries.intern(country);
+    }
+    
+    /**
+     * Returns the canonical instance of a rating.
+     *
+     * @param rating the rating read from the CSV file.
+     * @return the shared instance equal to {@code rating}.
+     */
+    public String rating(String rating) {
+        return ratings.intern(rating);
+    }
+    
+    /**
+     * Returns the canonical instance of a duration.
+     *
+     * @param duration the duration read from the CSV file.
+     * @return the shared instance equal to {@code duration}.
+     */
+    public String duration(String duration) {
+        return durations.intern(duration);
+    }
+    
+    /**
+     * Returns the canonical instance of a list of genres.
+     *
+     * @param listedIn the listed genres read from the CSV file.
+     * @return the shared instance equal to {@code listedIn}.
+     */
+    public String listedIn(String listedIn) {
+        return genres.intern(listedIn);
+    }
+    
+    /**
+     * Estimates the heap used by the interned columns of the given movies, compared with storing a
+     * separate string for every row. Strings are counted only once per distinct instance, so the
+     * estimate reflects how the movies actually share their values.
+     *
+     * @param movies the movies to analyze.
+     * @return one report per interned column.
+     */
+    public static List<ColumnReport> report(List<Movie> movies) {
+        ColumnReport[] reports = new ColumnReport[COLUMNS.size()];
+        for (int column = 0; column < reports.length; column++) {
+            Function<Movie, String> accessor = COLUMNS.get(column);
+            Map<String, Boolean> instances = new IdentityHashMap<>();
+            Set<String> distinct = new HashSet<>();
+            long without = 0;
+            long with = 0;
+            for (Movie movie : movies) {
+                String value = accessor.apply(movie);
+                long bytes = estimateBytes(value);
+                without += bytes;
+                if (instances.put(value, Boolean.TRUE) == null) {
+                    with += bytes;
+                }
+                distinct.add(value);
+            }
+            reports[column] = new ColumnReport(COLUMN_NAMES[column], movies.size(), distinct.size(), without, with);
+        }
+        return List.of(reports);
+    }
+    
+    /**
+     * Estimates the heap footprint of a string on a 64-bit JVM with compressed references:
+     * a 24-byte {@code String} object plus a byte array with a 16-byte header, padded to 8 bytes.
+     *
+     * @param value the string to measure.
+     * @return the estimated number of bytes, or {@code 0} for {@code null}.
+     */
+    private static long estimateBytes(String value) {
+        if (value == null) {
+            return 0;
+        }
+        boolean latin1 = value.chars().allMatch(c -> c <= 0xFF);
+        long array = 16L + (long) value.length() * (latin1 ? 1 : 2);
+        return 24 + ((array + 7) & ~7L);
+    }
+}
@@ -0,0 +1,39 @@
+package pl.polsl.model;
+
+/**
+ * Result of looking up one show ID with {@link Model#getMoviesByIds(java.util.Collection)}. Unlike
+ * {@link Model#getMovieById(String)}, an ID with an invalid format is reported by the status of the
+ * result instead of an exception, so that bulk lookups of untrusted IDs stay cheap.
+ *
+ * @param id the show ID looked up.
+ * @param status the outcome of the lookup.
+ * @param movie the movie found, or {@code null} unless the status is {@link Status#FOUND}.
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public record MovieLookup(String id, Status status, Movie movie) {
+
+    /**
+     * Outcome of a lookup.
+     */
+    public enum Status {
+        /** A movie with the ID is in the catalog. */
+        FOUND,
+        /** The ID has a valid format, but no movie with it is in the catalog. */
+        NOT_FOUND,
+        /** The ID does not match the format 's' followed by a number. */
+        INVALID
+    }
+
+    /**
+     * Returns the number of days between the release and the date added of the movie found.
+     *
+     * @return the release date difference in days, or {@code Long.MAX_VALUE} if no movie was found or its
+     *         date added is unknown.
+     * @see Movie#getReleaseDateDifference()
+     */
+    public long releaseDifference() {
+        return movie != null ? movie.getReleaseDateDifference() : Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,588 @@
+package pl.polsl.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+
+/**
+ * Group-by query over the columns of a catalog: filters the movies, groups them by a {@link GroupField}
+ * and computes aggregates of {@link Metric} values per group, optionally ordered and limited.
+ *
+ * <p>A query is described fluently and run with {@link Model#query(MovieQuery)}:</p>
+ * <pre>
+ * MovieQuery.groupBy(GroupField.COUNTRIES)
+ *         .where(MovieQuery.typeIs(MovieType.MOVIE))
+ *         .aggregate(Aggregate.count(), Aggregate.avg(Metric.DURATION_MINUTES),
+ *                 Aggregate.percentile(Metric.DURATION_MINUTES, 90))
+ *         .orderBy(0, false)
+ *         .limit(10);
+ * </pre>
+ *
+ * <p>The query never touches {@link Movie} objects. It reads the primitive arrays of a
+ * {@link MovieColumns}, where the group keys are dense dictionary codes, so every partial result is
+ * a set of arrays indexed by group code. The rows are cut into ranges that are aggregated in
+ * parallel and the partial results are merged; only the percentiles keep the individual values of
+ * a group, which are sorted once at the end.</p>
+ *
+ * <p>Groups are ordered by their key unless {@link #orderBy(int, boolean)} selects an aggregate;
+ * ties are always broken by key.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class MovieQuery {
+
+    /**
+     * Function computed over the values of a group.
+     */
+    public enum Function {
+        /** Number of rows in the group, including rows without a value of the metric. */
+        COUNT,
+        /** Sum of the values. */
+        SUM,
+        /** Mean of the values. */
+        AVG,
+        /** Smallest value. */
+        MIN,
+        /** Largest value. */
+        MAX,
+        /** Value at a percentile, by the nearest-rank method. */
+        PERCENTILE
+    }
+
+    /**
+     * One computed column of the result. Aggregates other than {@link Function#COUNT} skip rows
+     * without a value of their metric and yield {@code NaN} for a group without values.
+     *
+     * @param function the function to compute.
+     * @param metric the metric the function is computed over, or {@code null} for {@link Function#COUNT}.
+     * @param percentile the percentile between 0 and 100 for {@link Function#PERCENTILE}, otherwise ignored.
+     */
+    public record Aggregate(Function function, Metric metric, double percentile) {
+
+        /**
+         * Validates the aggregate.
+         *
+         * @throws IllegalArgumentException if the metric is missing or the percentile is out of range.
+         */
+        public Aggregate {
+            if (function != Function.COUNT && metric == null) {
+                throw new IllegalArgumentException("Aggregate " + function + " requires a metric.");
+            }
+            if (function == Function.PERCENTILE && !(percentile >= 0 && percentile <= 100)) {
+                throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+            }
+        }
+
+        /**
+         * Counts the rows of every group.
+         *
+         * @return the aggregate.
+         */
+        public static Aggregate count() {
+            return new Aggregate(Function.COUNT, null, 0);
+        }
+
+        /**
+         * Sums a metric.
+         *
+         * @param metric the metric to sum.
+         * @return the aggregate.
+         */
+        public static Aggregate sum(Metric metric) {
+            return new Aggregate(Function.SUM, metric, 0);
+        }
+
+        /**
+         * Averages a metric.
+         *
+         * @param metric the metric to average.
+         * @return the aggregate.
+         */
+        public static Aggregate avg(Metric metric) {
+            return new Aggregate(Function.AVG, metric, 0);
+        }
+
+        /**
+         * Finds the smallest value of a metric.
+         *
+         * @param metric the metric to inspect.
+         * @return the aggregate.
+         */
+        public static Aggregate min(Metric metric) {
+            return new Aggregate(Function.MIN, metric, 0);
+        }
+
+        /**
+         * Finds the largest value of a metric.
+         *
+         * @param metric the metric to inspect.
+         * @return the aggregate.
+         */
+        public static Aggregate max(Metric metric) {
+            return new Aggregate(Function.MAX, metric, 0);
+        }
+
+        /**
+         * Finds the value of a metric at a percentile, e.g. 50 for the median.
+         *
+         * @param metric the metric to inspect.
+         * @param percentile the percentile between 0 and 100.
+         * @return the aggregate.
+         */
+        public static Aggregate percentile(Metric metric, double percentile) {
+            return new Aggregate(Function.PERCENTILE, metric, percentile);
+        }
+
+        /**
+         * Returns the name of the aggregate as a result column, e.g. "avg(DURATION_MINUTES)".
+         *
+         * @return the name of the aggregate.
+         */
+        public String label() {
+            return switch (function) {
+                case COUNT -> "count";
+                case PERCENTILE -> "p" + (percentile == Math.rint(percentile) ? String.valueOf((long) percentile)
+                        : String.valueOf(percentile)) + "(" + metric + ")";
+                default -> function.name().toLowerCase() + "(" + metric + ")";
+            };
+        }
+    }
+
+    /**
+     * Condition a movie must meet to be aggregated.
+     */
+    @FunctionalInterface
+    public interface Filter {
+        /**
+         * Resolves the condition against the columns of a catalog, e.g. by looking up dictionary codes once.
+         *
+         * @param columns the columns the query runs on.
+         * @return a predicate over the row indexes of the columns; it is called concurrently.
+         */
+        IntPredicate bind(MovieColumns columns);
+    }
+
+    /**
+     * One group of the result.
+     *
+     * @param key the value of the grouped field.
+     * @param values the aggregates of the group, in the order they were requested.
+     */
+    public record Row(String key, List<Double> values) {
+
+        /**
+         * Returns one aggregate of the group.
+         *
+         * @param index the position of the aggregate in the query.
+         * @return the value of the aggregate.
+         */
+        public double value(int index) {
+            return values.get(index);
+        }
+    }
+
+    /**
+     * Result of a query.
+     *
+     * @param columns the name of the grouped field followed by the labels of the aggregates.
+     * @param rows the groups, ordered and limited as requested.
+     */
+    public record Result(List<String> columns, List<Row> rows) {
+    }
+
+    /**
+     * Smallest number of rows worth aggregating on a separate task.
+     */
+    private static final int MIN_RANGE_SIZE = 4096;
+    /**
+     * The field the movies are grouped by.
+     */
+    private final GroupField groupField;
+    /**
+     * Conditions every aggregated movie meets.
+     */
+    private final List<Filter> filters = new ArrayList<>();
+    /**
+     * Columns computed for every group.
+     */
+    private final List<Aggregate> aggregates = new ArrayList<>();
+    /**
+     * Index of the aggregate the groups are ordered by, or {@code -1} for the group key.
+     */
+    private int orderIndex = -1;
+    /**
+     * Whether the groups are ordered ascending.
+     */
+    private boolean ascending = true;
+    /**
+     * Maximum number of groups returned.
+     */
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * Constructs a query grouping by a field.
+     *
+     * @param groupField the field to group by.
+     */
+    private MovieQuery(GroupField groupField) {
+        this.groupField = groupField;
+    }
+
+    /**
+     * Starts a query grouping by a field.
+     *
+     * @param field the field to group by.
+     * @return a query without filters and aggregates.
+     */
+    public static MovieQuery groupBy(GroupField field) {
+        return new MovieQuery(field);
+    }
+
+    /**
+     * Adds a condition; a movie is aggregated only if it meets all conditions.
+     *
+     * @param filter the condition to add.
+     * @return this query.
+     */
+    public MovieQuery where(Filter filter) {
+        filters.add(filter);
+        return this;
+    }
+
+    /**
+     * Adds columns computed for every group.
+     *
+     * @param aggregates the aggregates to add, in the order of the result columns.
+     * @return this query.
+     */
+    public MovieQuery aggregate(Aggregate... aggregates) {
+        this.aggregates.addAll(Arrays.asList(aggregates));
+        return this;
+    }
+
+    /**
+     * Orders the groups by an aggregate.
+     *
+     * @param aggregateIndex the position of the aggregate, or {@code -1} to order by the group key.
+     * @param ascending {@code true} for the ascending order, {@code false} for the descending order.
+     * @return this query.
+     */
+    public MovieQuery orderBy(int aggregateIndex, boolean ascending) {
+        this.orderIndex = aggregateIndex;
+        this.ascending = ascending;
+        return this;
+    }
+
+    /**
+     * Limits the number of groups returned.
+     *
+     * @param limit the maximum number of groups.
+     * @return this query.
+     */
+    public MovieQuery limit(int limit) {
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Accepts movies of one type.
+     *
+     * @param type the accepted type.
+     * @return the condition.
+     */
+    public static Filter typeIs(MovieType type) {
+        return columns -> row -> columns.type[row] == type.ordinal();
+    }
+
+    /**
+     * Accepts movies whose metric lies within a range; movies without a value are rejected.
+     *
+     * @param metric the metric to test.
+     * @param min the smallest accepted value.
+     * @param max the largest accepted value.
+     * @return the condition.
+     */
+    public static Filter between(Metric metric, int min, int max) {
+        return columns -> {
+            int[] values = columns.getMetric(metric);
+            return row -> values[row] != Metric.MISSING && values[row] >= min && values[row] <= max;
+        };
+    }
+
+    /**
+     * Accepts movies with a value of a field, e.g. produced in a country or listed in a genre.
+     *
+     * @param field the field to test; multi-valued fields match any of their values.
+     * @param value the required value.
+     * @return the condition.
+     */
+    public static Filter has(GroupField field, String value) {
+        return columns -> {
+            GroupColumn column = columns.getGroupColumn(field);
+            int code = column.code(value);
+            return code < 0 ? row -> false : row -> column.contains(row, code);
+        };
+    }
+
+    /**
+     * Runs the query over the columns of a catalog.
+     *
+     * @param columns the columns to aggregate.
+     * @return the ordered and limited groups.
+     * @throws IllegalArgumentException if the order refers to a missing aggregate.
+     */
+    public Result execute(MovieColumns columns) {
+        if (orderIndex < -1 || orderIndex >= aggregates.size()) {
+            throw new IllegalArgumentException("No aggregate to order by at index " + orderIndex);
+        }
+        GroupColumn groups = columns.getGroupColumn(groupField);
+        IntPredicate filter = row -> true;
+        for (Filter condition : filters) {
+            filter = filter.and(condition.bind(columns));
+        }
+        int[][] metricValues = new int[aggregates.size()][];
+        boolean[] keepValues = new boolean[aggregates.size()];
+        for (int i = 0; i < metricValues.length; i++) {
+            Aggregate aggregate = aggregates.get(i);
+            metricValues[i] = aggregate.metric() != null ? columns.getMetric(aggregate.metric()) : null;
+            keepValues[i] = aggregate.function() == Function.PERCENTILE;
+        }
+
+        int rows = columns.size();
+        int ranges = Math.max(1, Math.min(ForkJoinPool.getCommonPoolParallelism(), rows / MIN_RANGE_SIZE));
+        IntPredicate accepted = filter;
+        Partial total = IntStream.range(0, ranges).parallel()
+                .mapToObj(range -> new Partial(groups.cardinality(), metricValues, keepValues)
+                        .aggregate(groups, accepted, (int) ((long) rows * range / ranges),
+                                (int) ((long) rows * (range + 1) / ranges)))
+                .reduce(Partial::merge)
+                .orElseGet(() -> new Partial(groups.cardinality(), metricValues, keepValues));
+
+        List<Row> result = new ArrayList<>();
+        for (int group = 0; group < groups.cardinality(); group++) {
+            if (total.rowCount[group] > 0) {
+                Double[] values = new Double[aggregates.size()];
+                for (int i = 0; i < values.length; i++) {
+                    values[i] = total.finish(i, aggregates.get(i), group);
+                }
+                result.add(new Row(groups.decode(group), List.of(values)));
+            }
+        }
+        result.sort(rowOrder());
+        List<String> names = new ArrayList<>();
+        names.add(groupField.name());
+        aggregates.forEach(aggregate -> names.add(aggregate.label()));
+        return new Result(List.copyOf(names), List.copyOf(result.subList(0, Math.min(limit, result.size()))));
+    }
+
+    /**
+     * Returns the order of the result groups: the selected aggregate, then the key.
+     *
+     * @return the comparator of the groups.
+     */
+    private Comparator<Row> rowOrder() {
+        Comparator<Row> byKey = Comparator.comparing(Row::key);
+        if (orderIndex < 0) {
+            return ascending ? byKey : byKey.reversed();
+        }
+        Comparator<Row> byValue = Comparator.comparingDouble(row -> row.value(orderIndex));
+        return (ascending ? byValue : byValue.reversed()).thenComparing(byKey);
+    }
+
+    /**
+     * Aggregation state of a range of rows, indexed by group code and by aggregate.
+     */
+    private static final class Partial {
+        /**
+         * Metric column of each aggregate, or {@code null} for a count.
+         */
+        private final int[][] metricValues;
+        /**
+         * Number of accepted rows per group.
+         */
+        private final long[] rowCount;
+        /**
+         * Number of values per aggregate and group.
+         */
+        private final long[][] valueCount;
+        /**
+         * Sum of the values per aggregate and group.
+         */
+        private final long[][] sum;
+        /**
+         * Smallest value per aggregate and group.
+         */
+        private final int[][] min;
+        /**
+         * Largest value per aggregate and group.
+         */
+        private final int[][] max;
+        /**
+         * Values per aggregate and group, or {@code null} for aggregates other than percentiles;
+         * lengths are in {@link #valueCount}.
+         */
+        private final int[][][] values;
+
+        /**
+         * Creates an empty state.
+         *
+         * @param groups the number of groups.
+         * @param metricValues the metric column of each aggregate, or {@code null} for a count.
+         * @param keepValues whether each aggregate needs the individual values of the groups.
+         */
+        private Partial(int groups, int[][] metricValues, boolean[] keepValues) {
+            int aggregates = metricValues.length;
+            this.metricValues = metricValues;
+            rowCount = new long[groups];
+            valueCount = new long[aggregates][];
+            sum = new long[aggregates][];
+            min = new int[aggregates][];
+            max = new int[aggregates][];
+            values = new int[aggregates][][];
+            for (int i = 0; i < aggregates; i++) {
+                if (metricValues[i] != null) {
+                    valueCount[i] = new long[groups];
+                    sum[i] = new long[groups];
+                    min[i] = new int[groups];
+                    max[i] = new int[groups];
+                    Arrays.fill(min[i], Integer.MAX_VALUE);
+                    Arrays.fill(max[i], Integer.MIN_VALUE);
+                }
+                if (keepValues[i]) {
+                    values[i] = new int[groups][];
+                }
+            }
+        }
+
+        /**
+         * Aggregates a range of rows into this state.
+         *
+         * @param groups the group keys of the rows.
+         * @param filter the condition of the query.
+         * @param start the first row of the range.
+         * @param end the row just after the range.
+         * @return this state.
+         */
+        private Partial aggregate(GroupColumn groups, IntPredicate filter, int start, int end) {
+            for (int row = start; row < end; row++) {
+                int first = groups.offsets[row];
+                int last = groups.offsets[row + 1];
+                if (first == last || !filter.test(row)) {
+                    continue;
+                }
+                for (int i = first; i < last; i++) {
+                    int group = groups.codes[i];
+                    rowCount[group]++;
+                    for (int aggregate = 0; aggregate < metricValues.length; aggregate++) {
+                        if (metricValues[aggregate] != null) {
+                            add(aggregate, group, metricValues[aggregate][row]);
+                        }
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Adds one value to an aggregate of a group.
+         *
+         * @param aggregate the index of the aggregate.
+         * @param group the group code.
+         * @param value the value, or {@link Metric#MISSING}.
+         */
+        private void add(int aggregate, int group, int value) {
+            if (value == Metric.MISSING) {
+                return;
+            }
+            long count = valueCount[aggregate][group]++;
+            sum[aggregate][group] += value;
+            min[aggregate][group] = Math.min(min[aggregate][group], value);
+            max[aggregate][group] = Math.max(max[aggregate][group], value);
+            if (values[aggregate] == null) {
+                return;
+            }
+            int[] groupValues = values[aggregate][group];
+            if (groupValues == null) {
+                groupValues = values[aggregate][group] = new int[8];
+            } else if (count == groupValues.length) {
+                groupValues = values[aggregate][group] = Arrays.copyOf(groupValues, groupValues.length * 2);
+            }
+            groupValues[(int) count] = value;
+        }
+
+        /**
+         * Adds the state of another range to this state.
+         *
+         * @param other the state to add; it is not used afterwards.
+         * @return this state.
+         */
+        private Partial merge(Partial other) {
+            for (int group = 0; group < rowCount.length; group++) {
+                rowCount[group] += other.rowCount[group];
+            }
+            for (int aggregate = 0; aggregate < metricValues.length; aggregate++) {
+                if (metricValues[aggregate] == null) {
+                    continue;
+                }
+                for (int group = 0; group < rowCount.length; group++) {
+                    long count = valueCount[aggregate][group];
+                    long otherCount = other.valueCount[aggregate][group];
+                    if (otherCount == 0) {
+                        continue;
+                    }
+                    valueCount[aggregate][group] = count + otherCount;
+                    sum[aggregate][group] += other.sum[aggregate][group];
+                    min[aggregate][group] = Math.min(min[aggregate][group], other.min[aggregate][group]);
+                    max[aggregate][group] = Math.max(max[aggregate][group], other.max[aggregate][group]);
+                    if (values[aggregate] == null) {
+                        continue;
+                    }
+                    int[] groupValues = values[aggregate][group];
+                    if (groupValues == null) {
+                        values[aggregate][group] = other.values[aggregate][group];
+                    } else {
+                        groupValues = Arrays.copyOf(groupValues, (int) (count + otherCount));
+                        System.arraycopy(other.values[aggregate][group], 0, groupValues, (int) count, (int) otherCount);
+                        values[aggregate][group] = groupValues;
+                    }
+                }
+            }
+            return this;
+        }
+
+        /**
+         * Computes the final value of an aggregate of a group.
+         *
+         * @param index the index of the aggregate.
+         * @param aggregate the aggregate.
+         * @param group the group code.
+         * @return the value of the aggregate, or {@code NaN} if the group has no value of its metric.
+         */
+        private double finish(int index, Aggregate aggregate, int group) {
+            if (aggregate.function() == Function.COUNT) {
+                return rowCount[group];
+            }
+            long count = valueCount[index][group];
+            if (count == 0) {
+                return Double.NaN;
+            }
+            return switch (aggregate.function()) {
+                case SUM -> sum[index][group];
+                case AVG -> (double) sum[index][group] / count;
+                case MIN -> min[index][group];
+                case MAX -> max[index][group];
+                default -> {
+                    int[] sorted = Arrays.copyOf(values[index][group], (int) count);
+                    Arrays.sort(sorted);
+                    int rank = (int) Math.ceil(aggregate.percentile() / 100 * count);
+                    yield sorted[Math.max(0, rank - 1)];
+                }
+            };
+        }
+    }
+}
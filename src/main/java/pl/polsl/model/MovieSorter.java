@@ -0,0 +1,118 @@
+package pl.polsl.model;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sorting engine behind {@link MovieColumns#getSortOrder(SortColumn)}.
+ * 
+ * <p>Rows are never compared through objects or comparators. For every row, the value of the sorted
+ * column (an epoch day, a year, a number of minutes or the rank of a title) is packed into the high
+ * 32 bits of a {@code long} and the rank of the show ID of the row into the low 32 bits, and the
+ * packed keys are sorted with {@link Arrays#parallelSort(long[], int, int)}. Equal values are
+ * therefore ordered by show ID, which makes the result independent of the catalog order, and the
+ * row is recovered from the rank after sorting.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+final class MovieSorter {
+    /**
+     * Rank of each row in the order of the show IDs.
+     */
+    private final int[] rankOfRow;
+    /**
+     * Row at each rank; the inverse of {@link #rankOfRow}.
+     */
+    private final int[] rowOfRank;
+
+    /**
+     * Ranks the rows by show ID. IDs are compared by their numeric key (see
+     * {@link ShowIdIndex#parseKey(CharSequence)}); rows with an ID that is not canonical are ranked
+     * after all others, and rows with the same key keep their catalog order.
+     *
+     * @param showIdKey the numeric key of the show ID of each row, or {@code -1} if it is not canonical.
+     */
+    MovieSorter(int[] showIdKey) {
+        int size = showIdKey.length;
+        long[] keys = new long[size];
+        for (int row = 0; row < size; row++) {
+            long key = showIdKey[row] < 0 ? Integer.MAX_VALUE : showIdKey[row];
+            keys[row] = (key << 32) | row;
+        }
+        Arrays.parallelSort(keys);
+        rankOfRow = new int[size];
+        rowOfRank = new int[size];
+        for (int rank = 0; rank < size; rank++) {
+            int row = (int) keys[rank];
+            rowOfRank[rank] = row;
+            rankOfRow[row] = rank;
+        }
+    }
+
+    /**
+     * Computes the ascending order of the rows by an {@code int} column, ordering equal values by show ID.
+     *
+     * @param values the column to sort by.
+     * @param unknown the value marking rows whose value is unknown; they are placed last, by show ID.
+     * @return the sort order of the rows.
+     */
+    SortOrder sortByKey(int[] values, int unknown) {
+        int size = values.length;
+        long[] keys = new long[size];
+        int[] unknownRanks = new int[size];
+        int knownCount = 0;
+        int unknownCount = 0;
+        for (int row = 0; row < size; row++) {
+            if (values[row] == unknown) {
+                unknownRanks[unknownCount++] = rankOfRow[row];
+            } else {
+                keys[knownCount++] = ((long) values[row] << 32) | rankOfRow[row];
+            }
+        }
+        Arrays.parallelSort(keys, 0, knownCount);
+        Arrays.parallelSort(unknownRanks, 0, unknownCount);
+
+        int[] order = new int[size];
+        BitSet runStarts = new BitSet(knownCount);
+        for (int i = 0; i < knownCount; i++) {
+            order[i] = rowOfRank[(int) keys[i]];
+            if (i == 0 || keys[i] >> 32 != keys[i - 1] >> 32) {
+                runStarts.set(i);
+            }
+        }
+        for (int i = 0; i < unknownCount; i++) {
+            order[knownCount + i] = rowOfRank[unknownRanks[i]];
+        }
+        return new SortOrder(order, knownCount, runStarts);
+    }
+
+    /**
+     * Replaces text values with dense ranks, so that they can be sorted by {@link #sortByKey(int[], int)}.
+     * Values that the comparator considers equal receive the same rank.
+     *
+     * @param values the text of each row.
+     * @param comparator the order of the text values.
+     * @return the rank of the value of each row, or {@code -1} for empty values.
+     */
+    static int[] rank(String[] values, Comparator<String> comparator) {
+        String[] distinct = Arrays.stream(values).filter(value -> !value.isEmpty()).distinct().toArray(String[]::new);
+        Arrays.parallelSort(distinct, comparator);
+        Map<String, Integer> ranks = new HashMap<>(distinct.length * 2);
+        int rank = -1;
+        for (int i = 0; i < distinct.length; i++) {
+            if (i == 0 || comparator.compare(distinct[i - 1], distinct[i]) != 0) {
+                rank++;
+            }
+            ranks.put(distinct[i], rank);
+        }
+        int[] result = new int[values.length];
+        for (int row = 0; row < values.length; row++) {
+            result[row] = values[row].isEmpty() ? -1 : ranks.get(values[row]);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,209 @@
+package pl.polsl.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Dictionary-coded copy of one multi-valued field of the movies, such as the cast, with a posting
+ * list of the movies for every distinct value.
+ * 
+ * <p>Fields such as "Sami Bouajila, Tracy Gotoas" are split on commas once, when a movie is added.
+ * Each distinct value receives a code in a {@link StringDictionary}, and the index keeps both
+ * directions: the sorted codes of every movie, and the ascending movie numbers of every value.
+ * Questions such as "all movies with actor X" are therefore answered by reading one posting list,
+ * without splitting or comparing any strings.</p>
+ * 
+ * <p>Movies are identified by document numbers assigned by the caller in ascending order. Removed
+ * movies are dropped from the counts immediately, but stay in the posting lists until the caller
+ * rebuilds the index; they are skipped when the lists are read.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class MultiValueIndex {
+    
+    /**
+     * Number of movies with a value.
+     *
+     * @param value the value, e.g. the name of an actor.
+     * @param count the number of movies with the value.
+     */
+    public record ValueCount(String value, int count) {
+    }
+    
+    /**
+     * Codes shared by all occurrences of a value.
+     */
+    private final StringDictionary dictionary = new StringDictionary();
+    /**
+     * Ascending document numbers of the movies with each value, indexed by code.
+     */
+    private int[][] postings = new int[16][];
+    /**
+     * Number of used entries of each posting list.
+     */
+    private int[] postingLengths = new int[16];
+    /**
+     * Number of movies with each value that have not been removed.
+     */
+    private int[] counts = new int[16];
+    /**
+     * Sorted, distinct codes of every document, or {@code null} for removed documents.
+     */
+    private int[][] documentValues = new int[16][];
+    
+    /**
+     * Splits a multi-valued field into its distinct values. A value listed twice, as in
+     * "Poland, Poland", is returned once, so every index built from the split counts a movie at most
+     * once per value.
+     *
+     * @param field the field, e.g. "United States, India"; may be {@code null}.
+     * @return the trimmed, non-blank, distinct values in the order they first appear.
+     */
+    public static List<String> split(String field) {
+        List<String> values = new ArrayList<>(1);
+        if (field == null) {
+            return values;
+        }
+        int start = 0;
+        while (start <= field.length()) {
+            int end = field.indexOf(',', start);
+            if (end < 0) {
+                end = field.length();
+            }
+            String value = field.substring(start, end).trim();
+            if (!value.isEmpty() && !values.contains(value)) {
+                values.add(value);
+            }
+            start = end + 1;
+        }
+        return values;
+    }
+    
+    /**
+     * Adds the field of a movie to the index.
+     *
+     * @param document the document number of the movie; higher than that of every movie added before.
+     * @param field the multi-valued field of the movie.
+     */
+    public void add(int document, String field) {
+        add(document, split(field));
+    }
+    
+    /**
+     * Adds the values of a movie, already split by {@link #split(String)}, to the index.
+     *
+     * @param document the document number of the movie; higher than that of every movie added before.
+     * @param values the distinct values of the movie.
+     */
+    public void add(int document, List<String> values) {
+        int[] codes = new int[values.size()];
+        for (int i = 0; i < codes.length; i++) {
+            codes[i] = dictionary.encode(values.get(i));
+        }
+        Arrays.sort(codes);
+        int distinct = 0;
+        for (int i = 0; i < codes.length; i++) {
+            if (i == 0 || codes[i] != codes[i - 1]) {
+                codes[distinct++] = codes[i];
+            }
+        }
+        codes = Arrays.copyOf(codes, distinct);
+        
+        if (document >= documentValues.length) {
+            documentValues = Arrays.copyOf(documentValues, Math.max(document + 1, documentValues.length * 2));
+        }
+        documentValues[document] = codes;
+        if (dictionary.size() > postings.length) {
+            int capacity = Math.max(dictionary.size(), postings.length * 2);
+            postings = Arrays.copyOf(postings, capacity);
+            postingLengths = Arrays.copyOf(postingLengths, capacity);
+            counts = Arrays.copyOf(counts, capacity);
+        }
+        for (int code : codes) {
+            int[] list = postings[code];
+            if (list == null) {
+                list = postings[code] = new int[4];
+            } else if (postingLengths[code] == list.length) {
+                list = postings[code] = Arrays.copyOf(list, list.length * 2);
+            }
+            list[postingLengths[code]++] = document;
+            counts[code]++;
+        }
+    }
+    
+    /**
+     * Removes a movie from the counts; its postings are skipped from now on.
+     *
+     * @param document the document number of the movie.
+     */
+    public void remove(int document) {
+        for (int code : documentValues[document]) {
+            counts[code]--;
+        }
+        documentValues[document] = null;
+    }
+    
+    /**
+     * Returns the document numbers of the movies with a value.
+     *
+     * @param value the value to look up.
+     * @return the ascending document numbers of the movies with the value that have not been removed.
+     */
+    public int[] getDocuments(String value) {
+        int code = dictionary.code(value);
+        if (code < 0) {
+            return new int[0];
+        }
+        int[] documents = new int[counts[code]];
+        int count = 0;
+        int[] list = postings[code];
+        for (int i = 0; i < postingLengths[code]; i++) {
+            if (documentValues[list[i]] != null) {
+                documents[count++] = list[i];
+            }
+        }
+        return documents;
+    }
+    
+    /**
+     * Returns the codes of the values of a movie.
+     *
+     * @param document the document number of the movie.
+     * @return the sorted, distinct codes of the values of the movie.
+     */
+    public int[] getValues(int document) {
+        return documentValues[document];
+    }
+    
+    /**
+     * Returns the number of movies with a value.
+     *
+     * @param value the value to look up.
+     * @return the number of movies with the value.
+     */
+    public int getCount(String value) {
+        int code = dictionary.code(value);
+        return code < 0 ? 0 : counts[code];
+    }
+    
+    /**
+     * Returns the value with the given code.
+     *
+     * @param code a code returned by {@link #getValues(int)}.
+     * @return the value.
+     */
+    public String decode(int code) {
+        return dictionary.decode(code);
+    }
+    
+    /**
+     * Returns the number of distinct values ever added; codes range from zero to this number.
+     *
+     * @return the number of codes.
+     */
+    public int size() {
+        return dictionary.size();
+    }
+}
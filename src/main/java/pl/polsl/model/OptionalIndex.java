@@ -0,0 +1,24 @@
+package pl.polsl.model;
+
+/**
+ * Enum naming the indexes that a {@link Model} may be created without.
+ *
+ * <p>By default a model builds every index while the catalog is loaded, so that the first query is
+ * answered as fast as the following ones. A caller that never runs the queries of an index, such as the
+ * headless batch mode, can leave it out to save the time and memory of building it; the queries that
+ * need a missing index throw an {@link IllegalStateException}.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public enum OptionalIndex {
+    /**
+     * The full-text {@link SearchIndex} used by {@link Model#search(String)}.
+     */
+    SEARCH,
+    /**
+     * The {@link MovieFacets} used by the queries by cast member, country and genre, e.g.
+     * {@link Model#getMoviesFromCountry(String)}.
+     */
+    FACETS
+}
@@ -0,0 +1,353 @@
+package pl.polsl.model;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+/**
+ * Loads a Netflix titles CSV file using all available cores.
+ *
+ * <p>The file is memory-mapped and its raw bytes are cut into ranges that start and end on record
+ * boundaries. Offsets are {@code long}s and the file is only ever mapped in windows of at most
+ * {@link MappedCsvReader#WINDOW_SIZE} bytes, so files larger than 2 GB are loaded as well.
+ * Because quoted fields may contain line breaks, a boundary is only accepted at a newline that lies
+ * outside of quotes. The quote state at the start of each range is derived from the parity of the
+ * quote characters counted before it, so the boundaries are found in parallel as well.</p>
+ *
+ * <p>Each range is then parsed by its own {@link MappedCsvReader} on a {@link ForkJoinPool}, and the
+ * partial results are concatenated in file order, so the resulting list is identical to the one
+ * produced by a serial load.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class ParallelCsvLoader {
+    /**
+     * Number of ranges created per worker thread, which balances uneven row lengths between workers.
+     */
+    private static final int RANGES_PER_THREAD = 4;
+    /**
+     * Smallest range worth parsing on a separate task.
+     */
+    private static final int MIN_RANGE_SIZE = 64 * 1024;
+    /**
+     * Number of bytes mapped at once while looking for range boundaries.
+     */
+    private static final int SCAN_WINDOW = 1 << 24;
+    /**
+     * The pool on which ranges are scanned and parsed.
+     */
+    private final ForkJoinPool pool;
+    /**
+     * Dictionaries shared by all ranges, or {@code null} to keep values as read.
+     */
+    private final MovieInterner interner;
+
+    /**
+     * Constructs a loader that runs on the common {@link ForkJoinPool}.
+     */
+    public ParallelCsvLoader() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Constructs a loader that runs on the given pool.
+     *
+     * @param pool the pool on which ranges are scanned and parsed.
+     */
+    public ParallelCsvLoader(ForkJoinPool pool) {
+        this(pool, null);
+    }
+
+    /**
+     * Constructs a loader that runs on the given pool and shares repeated values through the given
+     * dictionaries, which are used concurrently by all ranges.
+     *
+     * @param pool the pool on which ranges are scanned and parsed.
+     * @param interner the dictionaries to use, or {@code null} to keep values as read.
+     */
+    public ParallelCsvLoader(ForkJoinPool pool, MovieInterner interner) {
+        this.pool = pool;
+        this.interner = interner;
+    }
+
+    /**
+     * Loads all movies from a CSV file on disk, or from the bundled resource if no file is given.
+     *
+     * @param csvFile the path of the CSV file, or {@code null} for {@link MovieCsvReader#DEFAULT_RESOURCE}.
+     * @return the movies in file order.
+     * @throws InvalidMovieIdException if the file cannot be read or any row contains invalid data.
+     */
+    public List<Movie> load(Path csvFile) throws InvalidMovieIdException {
+        Path file = csvFile != null ? csvFile : MappedCsvReader.bundledFile();
+        if (file == null) {
+            return load(readBundledResource());
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long[] bounds = findRangeBounds(channel.size(),
+                    (offset, length) -> channel.map(FileChannel.MapMode.READ_ONLY, offset, length));
+            return parseRanges(bounds, (start, end) -> MappedCsvReader.loadRange(channel, start, end, interner));
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Loads all movies from the bytes of a CSV file, including its header line.
+     *
+     * @param data the UTF-8 encoded content of the CSV file.
+     * @return the movies in file order.
+     * @throws InvalidMovieIdException if any row contains invalid data.
+     */
+    public List<Movie> load(byte[] data) throws InvalidMovieIdException {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        try {
+            long[] bounds = findRangeBounds(data.length, (offset, length) -> buffer.slice((int) offset, length));
+            return parseRanges(bounds, (start, end) -> parseRange(data, (int) start, (int) end));
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Parses all ranges concurrently and concatenates their movies in file order.
+     *
+     * @param bounds ascending offsets, where each consecutive pair delimits one range.
+     * @param parser parses the records of one range.
+     * @return the movies in file order.
+     * @throws InvalidMovieIdException if any row contains invalid data.
+     */
+    private List<Movie> parseRanges(long[] bounds, RangeParser parser) throws InvalidMovieIdException {
+        List<ForkJoinTask<List<Movie>>> tasks = new ArrayList<>(bounds.length - 1);
+        for (int i = 0; i + 1 < bounds.length; i++) {
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            if (start < end) {
+                tasks.add(pool.submit(() -> parser.parse(start, end)));
+            }
+        }
+
+        List<Movie> movies = new ArrayList<>();
+        try {
+            for (ForkJoinTask<List<Movie>> task : tasks) {
+                movies.addAll(task.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InvalidMovieIdException("Loading the CSV file was interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof InvalidMovieIdException cause) {
+                throw cause;
+            }
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getCause().getMessage());
+        } finally {
+            tasks.forEach(task -> task.cancel(false));
+        }
+        return movies;
+    }
+
+    /**
+     * Splits the data into ranges of whole records. The first range starts after the header line.
+     *
+     * @param size the length of the content of the CSV file in bytes.
+     * @param mapper gives access to windows of the content.
+     * @return ascending offsets, where each consecutive pair delimits one range.
+     * @throws IOException if the content cannot be mapped.
+     */
+    long[] findRangeBounds(long size, WindowMapper mapper) throws IOException {
+        long headerEnd = nextRecordStart(mapper, size, 0, false);
+        long length = size - headerEnd;
+        int rangeCount = (int) Math.max(1, Math.min(pool.getParallelism() * RANGES_PER_THREAD, length / MIN_RANGE_SIZE));
+        long rangeSize = length / rangeCount + 1;
+
+        long[] rawStarts = new long[rangeCount];
+        for (int i = 0; i < rangeCount; i++) {
+            rawStarts[i] = headerEnd + Math.min(length, i * rangeSize);
+        }
+
+        // Count quotes per raw range in parallel; their prefix parity tells whether a range starts inside quotes.
+        List<ForkJoinTask<Long>> counts = new ArrayList<>(rangeCount);
+        for (int i = 0; i < rangeCount; i++) {
+            long start = rawStarts[i];
+            long end = i + 1 < rangeCount ? rawStarts[i + 1] : size;
+            counts.add(pool.submit(() -> countQuotes(mapper, start, end)));
+        }
+        boolean[] startsInQuotes = new boolean[rangeCount];
+        long quotes = 0;
+        for (int i = 0; i < rangeCount; i++) {
+            startsInQuotes[i] = (quotes & 1) == 1;
+            quotes += join(counts.get(i));
+        }
+
+        List<ForkJoinTask<Long>> starts = new ArrayList<>(rangeCount);
+        for (int i = 0; i < rangeCount; i++) {
+            long rawStart = rawStarts[i];
+            boolean inQuotes = startsInQuotes[i];
+            starts.add(pool.submit(() -> rawStart == headerEnd ? headerEnd : nextRecordStart(mapper, size, rawStart, inQuotes)));
+        }
+        long[] bounds = new long[rangeCount + 1];
+        for (int i = 0; i < rangeCount; i++) {
+            // A record longer than a whole range pushes the boundary past the next raw start.
+            bounds[i] = Math.max(join(starts.get(i)), i > 0 ? bounds[i - 1] : headerEnd);
+        }
+        bounds[rangeCount] = size;
+        return bounds;
+    }
+
+    /**
+     * Waits for a scanning task, passing on the {@link IOException} it failed with.
+     *
+     * @param task the task to wait for.
+     * @return the result of the task.
+     * @throws IOException if the task could not map the content.
+     */
+    private static long join(ForkJoinTask<Long> task) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Loading the CSV file was interrupted.");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException cause) {
+                throw cause;
+            }
+            throw new IOException(e.getCause());
+        }
+    }
+
+    /**
+     * Finds the offset of the first record that starts at or after {@code from}.
+     *
+     * @param mapper gives access to windows of the content of the CSV file.
+     * @param size the length of the content in bytes.
+     * @param from the offset at which scanning starts.
+     * @param inQuotes whether {@code from} lies inside a quoted field.
+     * @return the offset just after the first newline outside of quotes, or the length of the content.
+     * @throws IOException if the content cannot be mapped.
+     */
+    private static long nextRecordStart(WindowMapper mapper, long size, long from, boolean inQuotes) throws IOException {
+        for (long windowStart = from; windowStart < size; windowStart += SCAN_WINDOW) {
+            int length = (int) Math.min(SCAN_WINDOW, size - windowStart);
+            ByteBuffer window = mapper.map(windowStart, length);
+            for (int i = 0; i < length; i++) {
+                byte b = window.get(i);
+                if (b == '"') {
+                    inQuotes = !inQuotes;
+                } else if (b == '\n' && !inQuotes) {
+                    return windowStart + i + 1;
+                }
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Counts the quote characters in a range. Escaped quotes ({@code ""}) count twice and therefore
+     * do not change the parity.
+     *
+     * @param mapper gives access to windows of the content of the CSV file.
+     * @param start the first offset of the range.
+     * @param end the offset just after the range.
+     * @return the number of quote characters in the range.
+     * @throws IOException if the content cannot be mapped.
+     */
+    private static long countQuotes(WindowMapper mapper, long start, long end) throws IOException {
+        long count = 0;
+        for (long windowStart = start; windowStart < end; windowStart += SCAN_WINDOW) {
+            int length = (int) Math.min(SCAN_WINDOW, end - windowStart);
+            ByteBuffer window = mapper.map(windowStart, length);
+            for (int i = 0; i < length; i++) {
+                if (window.get(i) == '"') {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Parses the records of one range of an in-memory file.
+     *
+     * @param data the content of the CSV file.
+     * @param start the offset of the first record of the range.
+     * @param end the offset just after the last record of the range.
+     * @return the movies of the range in file order.
+     * @throws InvalidMovieIdException if any row contains invalid data.
+     */
+    private List<Movie> parseRange(byte[] data, int start, int end) throws InvalidMovieIdException {
+        List<Movie> movies = new ArrayList<>();
+        try (MovieCsvReader reader = new MovieCsvReader(new InputStreamReader(
+                new ByteArrayInputStream(data, start, end - start), StandardCharsets.UTF_8), false)) {
+            reader.setInterner(interner);
+            Movie movie;
+            while ((movie = reader.readNext()) != null) {
+                movies.add(movie);
+            }
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+        return movies;
+    }
+
+    /**
+     * Reads the whole content of the bundled resource, used when it cannot be memory-mapped because it
+     * is packaged inside a jar.
+     *
+     * @return the bytes of the resource.
+     * @throws InvalidMovieIdException if the resource cannot be read.
+     */
+    private static byte[] readBundledResource() throws InvalidMovieIdException {
+        try (InputStream inputStream = ParallelCsvLoader.class.getClassLoader()
+                .getResourceAsStream(MovieCsvReader.DEFAULT_RESOURCE)) {
+            if (inputStream == null) {
+                throw new InvalidMovieIdException("CSV file not found.");
+            }
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new InvalidMovieIdException("Error reading the CSV file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Gives access to a window of the content of a CSV file.
+     */
+    @FunctionalInterface
+    interface WindowMapper {
+        /**
+         * Returns the bytes of a window, indexed from zero.
+         *
+         * @param offset the offset of the first byte of the window.
+         * @param length the number of bytes in the window.
+         * @return the bytes of the window.
+         * @throws IOException if the window cannot be mapped.
+         */
+        ByteBuffer map(long offset, int length) throws IOException;
+    }
+
+    /**
+     * Parses the records of one range of a CSV file.
+     */
+    @FunctionalInterface
+    private interface RangeParser {
+        /**
+         * Parses the records between two offsets.
+         *
+         * @param start the offset of the first record of the range.
+         * @param end the offset just after the last record of the range.
+         * @return the movies of the range in file order.
+         * @throws InvalidMovieIdException if the range cannot be read or any row contains invalid data.
+         */
+        List<Movie> parse(long start, long end) throws InvalidMovieIdException;
+    }
+}
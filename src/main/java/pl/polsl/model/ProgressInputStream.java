@@ -0,0 +1,61 @@
+package pl.polsl.model;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Input stream that counts the bytes read through it, used to report the progress of loading a file.
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class ProgressInputStream extends FilterInputStream {
+    /**
+     * Number of bytes read so far.
+     */
+    private long bytesRead;
+    
+    /**
+     * Constructs a counting stream over the given input.
+     *
+     * @param in the underlying input stream.
+     */
+    public ProgressInputStream(InputStream in) {
+        super(in);
+    }
+    
+    /**
+     * Returns the number of bytes read so far.
+     *
+     * @return the number of bytes read through this stream.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+    
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) {
+            bytesRead++;
+        }
+        return b;
+    }
+    
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = super.read(buffer, offset, length);
+        if (count > 0) {
+            bytesRead += count;
+        }
+        return count;
+    }
+    
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        bytesRead += skipped;
+        return skipped;
+    }
+}
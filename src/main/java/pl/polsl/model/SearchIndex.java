@@ -0,0 +1,666 @@
+package pl.polsl.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * In-memory inverted index for full-text search over the title, director, cast and description
+ * of movies, maintained incrementally as movies are added to and removed from the catalog.
+ *
+ * <p>Text is split into lower-case tokens of letters and digits. For every distinct token the index
+ * keeps a posting list of the documents containing it, compressed as variable-length deltas of the
+ * document numbers followed by the frequency of the token in the document. Tokens found in the title
+ * count three times and tokens in the director and cast twice, so matches in those fields rank higher.</p>
+ *
+ * <p>Queries are lists of words that must all match. The keyword {@code OR} separates alternatives,
+ * a trailing {@code *} matches every token starting with the word, and the keyword {@code AND} may
+ * be used for readability. For example, {@code "star wars OR trek*"} finds movies containing both
+ * "star" and "wars", or any token starting with "trek". Results are ranked by BM25.</p>
+ *
+ * <p>Prefix queries scan a sorted array of all tokens, which is sorted again after new tokens have
+ * been added.</p>
+ *
+ * <p>Removed movies are only marked as deleted in the posting lists; once they outnumber the
+ * remaining movies, the index is rebuilt.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class SearchIndex {
+
+    /**
+     * A movie matching a query.
+     *
+     * @param movie the matching movie.
+     * @param score the BM25 score of the movie for the query; higher is more relevant.
+     */
+    public record Hit(Movie movie, double score) {
+    }
+
+    /**
+     * BM25 saturation of the term frequency.
+     */
+    private static final double K1 = 1.2;
+    /**
+     * BM25 normalization by the document length.
+     */
+    private static final double B = 0.75;
+    /**
+     * Number of times a token of the title is counted.
+     */
+    private static final int TITLE_WEIGHT = 3;
+    /**
+     * Number of times a token of the director or cast is counted.
+     */
+    private static final int PEOPLE_WEIGHT = 2;
+    /**
+     * Posting lists of all tokens in an open-addressing hash table with linear probing, which is
+     * probed with the characters of a token directly, so tokens that are already known are never
+     * materialized as strings while indexing.
+     */
+    private PostingList[] terms = new PostingList[1024];
+    /**
+     * Number of distinct tokens in {@link #terms}.
+     */
+    private int termCount;
+    /**
+     * All tokens in alphabetical order, so that prefix queries are range scans, or {@code null} if
+     * tokens have been added since the array was last sorted. Sorted lazily by a search, which may run
+     * concurrently with other searches.
+     */
+    private volatile String[] sortedTerms;
+    /**
+     * Movie of every document number, or {@code null} if the movie has been removed.
+     */
+    private Movie[] documents = new Movie[16];
+    /**
+     * Weighted number of tokens of every document.
+     */
+    private int[] documentLengths = new int[16];
+    /**
+     * Document number of every indexed movie.
+     */
+    private final Map<Movie, Integer> documentIds = new IdentityHashMap<>();
+    /**
+     * Number of document numbers assigned so far, including those of removed movies.
+     */
+    private int documentCount;
+    /**
+     * Sum of the lengths of the documents that have not been removed.
+     */
+    private long totalLength;
+    /**
+     * Characters of the token being read, in lower case; grown on demand.
+     */
+    private char[] token = new char[32];
+    /**
+     * Posting lists of the distinct tokens of the movie being indexed or removed.
+     */
+    private PostingList[] touched = new PostingList[64];
+    /**
+     * Number of used entries of {@link #touched}.
+     */
+    private int touchedCount;
+    /**
+     * Number of movies tokenized so far; marks the posting lists already added to {@link #touched}.
+     */
+    private int visit;
+
+    /**
+     * Posting list of one token: the documents containing it, in ascending order, with the
+     * frequency of the token in each of them.
+     */
+    private static final class PostingList {
+        /**
+         * The token of the list.
+         */
+        private final String token;
+        /**
+         * Hash code of {@link #token} as computed while reading it.
+         */
+        private final int hash;
+        /**
+         * The last {@link #visit} in which the token was seen.
+         */
+        private int lastVisit = -1;
+        /**
+         * Weighted frequency of the token in the movie of {@link #lastVisit}.
+         */
+        private int pendingFrequency;
+        /**
+         * Pairs of variable-length integers: the difference to the previous document number and the frequency.
+         */
+        private byte[] data = new byte[4];
+        /**
+         * Number of used bytes of {@link #data}.
+         */
+        private int length;
+        /**
+         * Number of the last document appended, or {@code -1}.
+         */
+        private int lastDocument = -1;
+        /**
+         * Number of documents that contain the token and have not been removed.
+         */
+        private int documentFrequency;
+
+        /**
+         * Constructs an empty posting list.
+         *
+         * @param token the token of the list.
+         * @param hash the hash code of the token.
+         */
+        private PostingList(String token, int hash) {
+            this.token = token;
+            this.hash = hash;
+        }
+
+        /**
+         * Appends a document, which must have a higher number than all documents in the list.
+         *
+         * @param document the document number.
+         * @param frequency the weighted frequency of the token in the document.
+         */
+        private void add(int document, int frequency) {
+            if (length + 10 > data.length) {
+                data = Arrays.copyOf(data, Math.max(data.length * 2, length + 10));
+            }
+            writeVarInt(document - lastDocument);
+            writeVarInt(frequency);
+            lastDocument = document;
+            documentFrequency++;
+        }
+
+        /**
+         * Appends a non-negative integer in 7-bit groups, least significant group first.
+         *
+         * @param value the value to append.
+         */
+        private void writeVarInt(int value) {
+            while ((value & ~0x7F) != 0) {
+                data[length++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            data[length++] = (byte) value;
+        }
+    }
+
+    /**
+     * Documents matching part of a query, in ascending order of document number, with their scores.
+     *
+     * @param documents the matching document numbers.
+     * @param scores the score of each matching document.
+     */
+    private record Matches(int[] documents, double[] scores) {
+    }
+
+    /**
+     * A word of a query.
+     *
+     * @param token the normalized token.
+     * @param prefix whether every token starting with {@code token} matches.
+     */
+    private record QueryTerm(String token, boolean prefix) {
+    }
+
+    /**
+     * Splits text into lower-case tokens of letters and digits.
+     *
+     * @param text the text to split; may be {@code null}.
+     * @return the tokens in the order they appear.
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean tokenChar = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (tokenChar && start < 0) {
+                start = i;
+            } else if (!tokenChar && start >= 0) {
+                char[] chars = new char[i - start];
+                for (int j = start; j < i; j++) {
+                    chars[j - start] = Character.toLowerCase(text.charAt(j));
+                }
+                tokens.add(new String(chars));
+                start = -1;
+            }
+        }
+        return tokens;
+    }
+
+    /**
+     * Adds a movie to the index.
+     *
+     * @param movie the movie to add.
+     */
+    public void add(Movie movie) {
+        int length = collectTokens(movie);
+        int document = documentCount++;
+        if (document == documents.length) {
+            documents = Arrays.copyOf(documents, document * 2);
+            documentLengths = Arrays.copyOf(documentLengths, document * 2);
+        }
+        for (int i = 0; i < touchedCount; i++) {
+            touched[i].add(document, touched[i].pendingFrequency);
+        }
+        documents[document] = movie;
+        documentLengths[document] = length;
+        documentIds.put(movie, document);
+        totalLength += length;
+    }
+
+    /**
+     * Removes a movie from the index.
+     *
+     * @param movie the movie to remove; the same instance that was added.
+     */
+    public void remove(Movie movie) {
+        Integer document = documentIds.remove(movie);
+        if (document == null) {
+            return;
+        }
+        collectTokens(movie);
+        for (int i = 0; i < touchedCount; i++) {
+            touched[i].documentFrequency--;
+        }
+        documents[document] = null;
+        totalLength -= documentLengths[document];
+        if (documentCount - documentIds.size() > documentIds.size()) {
+            rebuild();
+        }
+    }
+
+    /**
+     * Returns the number of movies in the index.
+     *
+     * @return the number of indexed movies.
+     */
+    public int size() {
+        return documentIds.size();
+    }
+
+    /**
+     * Finds the movies matching a query, as described in the class documentation.
+     *
+     * @param query the query.
+     * @param limit the maximum number of results.
+     * @return up to {@code limit} matching movies, from the most relevant one.
+     */
+    public List<Hit> search(String query, int limit) {
+        Matches result = null;
+        for (List<QueryTerm> alternative : parse(query)) {
+            Matches matches = null;
+            for (QueryTerm term : alternative) {
+                Matches termMatches = match(term);
+                matches = matches == null ? termMatches : intersect(matches, termMatches);
+            }
+            if (matches != null) {
+                result = result == null ? matches : union(result, matches);
+            }
+        }
+        return result == null ? List.of() : top(result, limit);
+    }
+
+    /**
+     * Splits a query into alternatives of required terms.
+     *
+     * @param query the query.
+     * @return the alternatives; each is a list of terms that must all match.
+     */
+    private static List<List<QueryTerm>> parse(String query) {
+        List<List<QueryTerm>> alternatives = new ArrayList<>();
+        List<QueryTerm> current = new ArrayList<>();
+        for (String word : query.trim().split("\\s+")) {
+            if (word.equals("OR")) {
+                if (!current.isEmpty()) {
+                    alternatives.add(current);
+                    current = new ArrayList<>();
+                }
+                continue;
+            }
+            if (word.equals("AND")) {
+                continue;
+            }
+            List<String> tokens = tokenize(word);
+            for (int i = 0; i < tokens.size(); i++) {
+                boolean prefix = i == tokens.size() - 1 && word.endsWith("*");
+                current.add(new QueryTerm(tokens.get(i), prefix));
+            }
+        }
+        if (!current.isEmpty()) {
+            alternatives.add(current);
+        }
+        return alternatives;
+    }
+
+    /**
+     * Finds the documents containing a query term, scored by BM25. A prefix term is expanded to all
+     * tokens starting with it, and the scores of the expanded tokens are added up.
+     *
+     * @param term the query term.
+     * @return the matching documents.
+     */
+    private Matches match(QueryTerm term) {
+        if (!term.prefix()) {
+            PostingList postings = lookup(term.token());
+            return postings != null ? score(postings) : new Matches(new int[0], new double[0]);
+        }
+        String[] sorted = sortedTerms;
+        if (sorted == null) {
+            sorted = Arrays.stream(terms).filter(postings -> postings != null)
+                    .map(postings -> postings.token).sorted().toArray(String[]::new);
+            sortedTerms = sorted;
+        }
+        int first = Arrays.binarySearch(sorted, term.token());
+        List<PostingList> expansions = new ArrayList<>();
+        for (int i = first >= 0 ? first : -first - 1; i < sorted.length && sorted[i].startsWith(term.token()); i++) {
+            expansions.add(lookup(sorted[i]));
+        }
+        if (expansions.isEmpty()) {
+            return new Matches(new int[0], new double[0]);
+        }
+        if (expansions.size() == 1) {
+            return score(expansions.get(0));
+        }
+        double[] accumulated = new double[documentCount];
+        BitSet matchedDocuments = new BitSet(documentCount);
+        for (PostingList postings : expansions) {
+            Matches matches = score(postings);
+            for (int i = 0; i < matches.documents().length; i++) {
+                accumulated[matches.documents()[i]] += matches.scores()[i];
+                matchedDocuments.set(matches.documents()[i]);
+            }
+        }
+        int[] matched = matchedDocuments.stream().toArray();
+        double[] matchedScores = new double[matched.length];
+        for (int i = 0; i < matched.length; i++) {
+            matchedScores[i] = accumulated[matched[i]];
+        }
+        return new Matches(matched, matchedScores);
+    }
+
+    /**
+     * Decodes a posting list and scores every document of it that has not been removed.
+     *
+     * @param postings the posting list of a token.
+     * @return the documents containing the token.
+     */
+    private Matches score(PostingList postings) {
+        int liveCount = documentIds.size();
+        double averageLength = liveCount > 0 ? (double) totalLength / liveCount : 1;
+        double idf = Math.log(1 + (liveCount - postings.documentFrequency + 0.5) / (postings.documentFrequency + 0.5));
+        int[] matched = new int[postings.documentFrequency];
+        double[] scores = new double[postings.documentFrequency];
+        int count = 0;
+        byte[] data = postings.data;
+        int position = 0;
+        int document = -1;
+        while (position < postings.length) {
+            int delta = 0;
+            int frequency = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                delta |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            for (int shift = 0; ; shift += 7) {
+                byte b = data[position++];
+                frequency |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    break;
+                }
+            }
+            document += delta;
+            if (documents[document] != null) {
+                double norm = K1 * (1 - B + B * documentLengths[document] / averageLength);
+                matched[count] = document;
+                scores[count++] = idf * frequency * (K1 + 1) / (frequency + norm);
+            }
+        }
+        return new Matches(matched, scores);
+    }
+
+    /**
+     * Keeps the documents found in both matches and adds up their scores.
+     *
+     * @param a the first matches.
+     * @param b the second matches.
+     * @return the documents of both matches.
+     */
+    private static Matches intersect(Matches a, Matches b) {
+        int size = Math.min(a.documents().length, b.documents().length);
+        int[] matched = new int[size];
+        double[] scores = new double[size];
+        int count = 0;
+        for (int i = 0, j = 0; i < a.documents().length && j < b.documents().length; ) {
+            int difference = Integer.compare(a.documents()[i], b.documents()[j]);
+            if (difference == 0) {
+                matched[count] = a.documents()[i];
+                scores[count++] = a.scores()[i++] + b.scores()[j++];
+            } else if (difference < 0) {
+                i++;
+            } else {
+                j++;
+            }
+        }
+        return new Matches(Arrays.copyOf(matched, count), Arrays.copyOf(scores, count));
+    }
+
+    /**
+     * Keeps the documents found in any of the matches and adds up their scores.
+     *
+     * @param a the first matches.
+     * @param b the second matches.
+     * @return the documents of either match.
+     */
+    private static Matches union(Matches a, Matches b) {
+        int size = a.documents().length + b.documents().length;
+        int[] matched = new int[size];
+        double[] scores = new double[size];
+        int count = 0;
+        int i = 0;
+        int j = 0;
+        while (i < a.documents().length || j < b.documents().length) {
+            int difference = i == a.documents().length ? 1 : j == b.documents().length ? -1
+                    : Integer.compare(a.documents()[i], b.documents()[j]);
+            if (difference == 0) {
+                matched[count] = a.documents()[i];
+                scores[count++] = a.scores()[i++] + b.scores()[j++];
+            } else if (difference < 0) {
+                matched[count] = a.documents()[i];
+                scores[count++] = a.scores()[i++];
+            } else {
+                matched[count] = b.documents()[j];
+                scores[count++] = b.scores()[j++];
+            }
+        }
+        return new Matches(Arrays.copyOf(matched, count), Arrays.copyOf(scores, count));
+    }
+
+    /**
+     * Selects the highest scoring documents. Documents with equal scores are ranked in the order
+     * they were added.
+     *
+     * @param matches the matching documents.
+     * @param limit the maximum number of results.
+     * @return the best documents, from the highest score.
+     */
+    private List<Hit> top(Matches matches, int limit) {
+        // The heap holds the best positions found so far, with the worst of them on top.
+        PriorityQueue<Integer> best = new PriorityQueue<>((x, y) -> {
+            int byScore = Double.compare(matches.scores()[x], matches.scores()[y]);
+            return byScore != 0 ? byScore : Integer.compare(y, x);
+        });
+        for (int i = 0; i < matches.documents().length; i++) {
+            best.add(i);
+            if (best.size() > limit) {
+                best.poll();
+            }
+        }
+        Hit[] hits = new Hit[best.size()];
+        for (int i = hits.length - 1; i >= 0; i--) {
+            int position = best.poll();
+            hits[i] = new Hit(documents[matches.documents()[position]], matches.scores()[position]);
+        }
+        return Arrays.asList(hits);
+    }
+
+    /**
+     * Collects the posting lists of the distinct tokens of the indexed fields of a movie in
+     * {@link #touched}, with their weighted frequencies, creating the lists of new tokens.
+     *
+     * @param movie the movie.
+     * @return the weighted number of tokens of the movie.
+     */
+    private int collectTokens(Movie movie) {
+        visit++;
+        touchedCount = 0;
+        return collectTokens(movie.title(), TITLE_WEIGHT) + collectTokens(movie.director(), PEOPLE_WEIGHT)
+                + collectTokens(movie.cast(), PEOPLE_WEIGHT) + collectTokens(movie.description(), 1);
+    }
+
+    /**
+     * Collects the tokens of one field, as for {@link #tokenize(String)}.
+     *
+     * @param text the field; may be {@code null}.
+     * @param weight the number of times each token of the field is counted.
+     * @return the weighted number of tokens of the field.
+     */
+    private int collectTokens(String text, int weight) {
+        if (text == null) {
+            return 0;
+        }
+        int count = 0;
+        int length = 0;
+        int hash = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (length == token.length) {
+                    token = Arrays.copyOf(token, length * 2);
+                }
+                c = Character.toLowerCase(c);
+                token[length++] = c;
+                hash = 31 * hash + c;
+            } else if (length > 0) {
+                PostingList postings = lookup(token, length, hash, true);
+                if (postings.lastVisit != visit) {
+                    postings.lastVisit = visit;
+                    postings.pendingFrequency = 0;
+                    if (touchedCount == touched.length) {
+                        touched = Arrays.copyOf(touched, touchedCount * 2);
+                    }
+                    touched[touchedCount++] = postings;
+                }
+                postings.pendingFrequency += weight;
+                count += weight;
+                length = 0;
+                hash = 0;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Finds the posting list of a token.
+     *
+     * @param chars the characters of the token, in lower case.
+     * @param length the number of characters of the token.
+     * @param hash the hash code of the token, as computed by {@link String#hashCode()}.
+     * @param create whether to create the list if the token is not known yet.
+     * @return the posting list, or {@code null} if the token is not known and {@code create} is {@code false}.
+     */
+    private PostingList lookup(char[] chars, int length, int hash, boolean create) {
+        int mask = terms.length - 1;
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        for (PostingList postings = terms[slot]; postings != null; postings = terms[slot]) {
+            if (postings.hash == hash && postings.token.length() == length && sameChars(postings.token, chars)) {
+                return postings;
+            }
+            slot = (slot + 1) & mask;
+        }
+        if (!create) {
+            return null;
+        }
+        PostingList postings = new PostingList(new String(chars, 0, length), hash);
+        terms[slot] = postings;
+        sortedTerms = null;
+        if (++termCount * 2 > terms.length) {
+            resize();
+        }
+        return postings;
+    }
+
+    /**
+     * Finds the posting list of a token of a query.
+     *
+     * @param token the normalized token.
+     * @return the posting list, or {@code null} if the token is not known.
+     */
+    private PostingList lookup(String token) {
+        return lookup(token.toCharArray(), token.length(), token.hashCode(), false);
+    }
+
+    /**
+     * Compares a token with the leading characters of an array.
+     *
+     * @param token the token.
+     * @param chars the characters, at least as many as the token has.
+     * @return {@code true} if the characters equal the token.
+     */
+    private static boolean sameChars(String token, char[] chars) {
+        for (int i = 0; i < token.length(); i++) {
+            if (token.charAt(i) != chars[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Doubles the capacity of the token table.
+     */
+    private void resize() {
+        PostingList[] old = terms;
+        terms = new PostingList[old.length * 2];
+        int mask = terms.length - 1;
+        for (PostingList postings : old) {
+            if (postings != null) {
+                int slot = (postings.hash ^ (postings.hash >>> 16)) & mask;
+                while (terms[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                terms[slot] = postings;
+            }
+        }
+    }
+
+    /**
+     * Rebuilds the index from the movies that have not been removed, in the order they were added,
+     * dropping the postings of removed movies.
+     */
+    private void rebuild() {
+        Movie[] live = Arrays.stream(documents, 0, documentCount).filter(movie -> movie != null).toArray(Movie[]::new);
+        terms = new PostingList[terms.length];
+        termCount = 0;
+        sortedTerms = null;
+        documentIds.clear();
+        documents = new Movie[Math.max(16, live.length)];
+        documentLengths = new int[documents.length];
+        documentCount = 0;
+        totalLength = 0;
+        for (Movie movie : live) {
+            add(movie);
+        }
+    }
+}
@@ -0,0 +1,350 @@
+package pl.polsl.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Primary-key index over the {@code showId} of movies, mapping every ID to the movie and to its row ID,
+ * the stable number under which the movie is stored in the {@link CatalogVersion}s. Valid IDs are 's' followed by one or more
+ * digits (e.g. {@code "s42"}); distinct IDs are never mixed up, so {@code "s01"} and {@code "s1"}
+ * are two different keys.
+ *
+ * <p>Canonical IDs, without leading zeros and with at most {@value #MAX_DIGITS} digits, are stored
+ * by their numeric suffix (see {@link #parseKey(CharSequence)}) in an open-addressing hash map with
+ * primitive {@code int} keys and linear probing, so lookups run in constant time and do not allocate.
+ * Removal uses backward shifting, which keeps probe sequences short without tombstones. The other
+ * valid IDs, which do not occur in the Netflix catalog, are kept in a string-keyed map.</p>
+ *
+ * <p>IDs are validated by scanning the characters directly instead of compiling a regular expression
+ * on every call.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class ShowIdIndex {
+    /**
+     * Marker stored in {@link #keys} for slots that hold no entry.
+     */
+    private static final int EMPTY = -1;
+    /**
+     * Largest number of digits accepted after the {@code 's'} prefix; longer IDs would overflow an {@code int}.
+     */
+    private static final int MAX_DIGITS = 9;
+    /**
+     * Numeric keys of the stored entries, or {@link #EMPTY} for free slots.
+     */
+    private int[] keys;
+    /**
+     * Movies stored at the same positions as their keys.
+     */
+    private Movie[] values;
+    /**
+     * Row IDs of the movies stored at the same positions as their keys.
+     */
+    private int[] rowIds;
+    /**
+     * Number of entries currently stored.
+     */
+    private int size;
+    /**
+     * Entries whose ID is valid but not canonical, created on first use.
+     */
+    private Map<String, Entry> others;
+
+    /**
+     * Movie stored under a non-canonical ID, with its row ID.
+     *
+     * @param movie the movie.
+     * @param rowId the row ID of the movie.
+     */
+    private record Entry(Movie movie, int rowId) {
+    }
+
+    /**
+     * Constructs an empty index sized for the given number of entries.
+     *
+     * @param expectedSize the number of entries the index should hold without resizing.
+     */
+    public ShowIdIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(expectedSize, 8) * 2 - 1) << 1;
+        allocate(capacity);
+    }
+
+    /**
+     * Constructs an empty index with a small default capacity.
+     */
+    public ShowIdIndex() {
+        this(16);
+    }
+
+    /**
+     * Checks whether a show ID is in the format 's' followed by one or more digits (e.g., "s1").
+     *
+     * @param id the show ID to check; may be {@code null}.
+     * @return {@code true} if the ID has a valid format.
+     */
+    public static boolean isValid(CharSequence id) {
+        if (id == null || id.length() < 2 || id.charAt(0) != 's') {
+            return false;
+        }
+        for (int i = 1; i < id.length(); i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the numeric key of a canonical show ID: 's' followed by a number without leading zeros
+     * and with at most {@value #MAX_DIGITS} digits (e.g., "s1"). Every canonical ID has its own key.
+     *
+     * @param id the show ID to parse; may be {@code null}.
+     * @return the numeric part of the ID, or {@code -1} if the ID is not canonical, i.e. invalid
+     *         (see {@link #isValid(CharSequence)}), with leading zeros or too long for an {@code int}.
+     */
+    public static int parseKey(CharSequence id) {
+        if (id == null) {
+            return -1;
+        }
+        int length = id.length();
+        if (length < 2 || length > MAX_DIGITS + 1 || id.charAt(0) != 's'
+                || (id.charAt(1) == '0' && length > 2)) {
+            return -1;
+        }
+        int key = 0;
+        for (int i = 1; i < length; i++) {
+            char c = id.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            key = key * 10 + (c - '0');
+        }
+        return key;
+    }
+
+    /**
+     * Retrieves the movie stored under the given show ID.
+     *
+     * @param id the show ID, in any format.
+     * @return the stored movie, or {@code null} if the ID is not present.
+     */
+    public Movie get(String id) {
+        int key = parseKey(id);
+        if (key >= 0) {
+            int slot = find(key);
+            return slot >= 0 ? values[slot] : null;
+        }
+        Entry entry = others != null && id != null ? others.get(id) : null;
+        return entry != null ? entry.movie() : null;
+    }
+
+    /**
+     * Retrieves the row ID of the movie stored under the given show ID.
+     *
+     * @param id the show ID, in any format.
+     * @return the row ID of the stored movie, or {@code -1} if the ID is not present.
+     */
+    public int getRowId(String id) {
+        int key = parseKey(id);
+        if (key >= 0) {
+            int slot = find(key);
+            return slot >= 0 ? rowIds[slot] : -1;
+        }
+        Entry entry = others != null && id != null ? others.get(id) : null;
+        return entry != null ? entry.rowId() : -1;
+    }
+
+    /**
+     * Stores a movie under the given show ID, replacing any previous entry.
+     *
+     * @param id the show ID; must be valid (see {@link #isValid(CharSequence)}).
+     * @param movie the movie to store.
+     * @param rowId the row ID of the movie; must not be negative.
+     * @return the movie previously stored under the ID, or {@code null} if there was none.
+     * @throws IllegalArgumentException if the ID has an invalid format.
+     */
+    public Movie put(String id, Movie movie, int rowId) {
+        int key = parseKey(id);
+        if (key >= 0) {
+            return put(key, movie, rowId);
+        }
+        if (!isValid(id)) {
+            throw new IllegalArgumentException("Invalid show ID: " + id);
+        }
+        if (others == null) {
+            others = new HashMap<>();
+        }
+        Entry previous = others.put(id, new Entry(movie, rowId));
+        return previous != null ? previous.movie() : null;
+    }
+
+    /**
+     * Removes the entry stored under the given show ID.
+     *
+     * @param id the show ID, in any format.
+     * @return the removed movie, or {@code null} if the ID was not present.
+     */
+    public Movie remove(String id) {
+        int key = parseKey(id);
+        if (key >= 0) {
+            return remove(key);
+        }
+        Entry entry = others != null && id != null ? others.remove(id) : null;
+        return entry != null ? entry.movie() : null;
+    }
+
+    /**
+     * Finds the slot holding the given key.
+     *
+     * @param key the numeric key of a canonical show ID.
+     * @return the slot of the key, or {@code -1} if the key is not present.
+     */
+    private int find(int key) {
+        int mask = keys.length - 1;
+        for (int slot = slot(key, mask); keys[slot] != EMPTY; slot = (slot + 1) & mask) {
+            if (keys[slot] == key) {
+                return slot;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a movie under the given key, replacing any previous entry.
+     *
+     * @param key the numeric key of a canonical show ID; must not be negative.
+     * @param movie the movie to store.
+     * @param rowId the row ID of the movie.
+     * @return the movie previously stored under the key, or {@code null} if there was none.
+     */
+    private Movie put(int key, Movie movie, int rowId) {
+        if (key < 0) {
+            throw new IllegalArgumentException("Negative key: " + key);
+        }
+        if ((size + 1) * 2 > keys.length) {
+            resize(keys.length * 2);
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != EMPTY) {
+            if (keys[slot] == key) {
+                Movie previous = values[slot];
+                values[slot] = movie;
+                rowIds[slot] = rowId;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = movie;
+        rowIds[slot] = rowId;
+        size++;
+        return null;
+    }
+
+    /**
+     * Removes the entry stored under the given key.
+     *
+     * @param key the numeric key of a canonical show ID.
+     * @return the removed movie, or {@code null} if the key was not present.
+     */
+    private Movie remove(int key) {
+        if (key < 0) {
+            return null;
+        }
+        int mask = keys.length - 1;
+        int slot = slot(key, mask);
+        while (keys[slot] != key) {
+            if (keys[slot] == EMPTY) {
+                return null;
+            }
+            slot = (slot + 1) & mask;
+        }
+        Movie removed = values[slot];
+        // Shift following entries of the same probe run back into the freed slot.
+        int free = slot;
+        for (int next = (free + 1) & mask; keys[next] != EMPTY; next = (next + 1) & mask) {
+            int home = slot(keys[next], mask);
+            if (((next - home) & mask) >= ((next - free) & mask)) {
+                keys[free] = keys[next];
+                values[free] = values[next];
+                rowIds[free] = rowIds[next];
+                free = next;
+            }
+        }
+        keys[free] = EMPTY;
+        values[free] = null;
+        size--;
+        return removed;
+    }
+
+    /**
+     * Returns the number of entries stored in the index.
+     *
+     * @return the number of entries.
+     */
+    public int size() {
+        return others != null ? size + others.size() : size;
+    }
+
+    /**
+     * Removes all entries from the index.
+     */
+    public void clear() {
+        Arrays.fill(keys, EMPTY);
+        Arrays.fill(values, null);
+        size = 0;
+        others = null;
+    }
+
+    /**
+     * Computes the home slot of a key.
+     *
+     * @param key the key to hash.
+     * @param mask the table size minus one.
+     * @return the slot where probing for the key starts.
+     */
+    private static int slot(int key, int mask) {
+        int h = key * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    /**
+     * Allocates empty tables of the given power-of-two capacity.
+     *
+     * @param capacity the new table size.
+     */
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new Movie[capacity];
+        rowIds = new int[capacity];
+        Arrays.fill(keys, EMPTY);
+    }
+
+    /**
+     * Rehashes all entries into tables of the given capacity.
+     *
+     * @param capacity the new table size.
+     */
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        Movie[] oldValues = values;
+        int[] oldRowIds = rowIds;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != EMPTY) {
+                int slot = slot(oldKeys[i], mask);
+                while (keys[slot] != EMPTY) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                rowIds[slot] = oldRowIds[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package pl.polsl.model;
+
+/**
+ * Enum representing the attributes by which the movies of a {@link Model} can be sorted.
+ * 
+ * <p>Each value represents a sortable attribute:</p>
+ * <ul>
+ *   <li>{@link #DATE_ADDED} - The date the movie was added to the catalog.</li>
+ *   <li>{@link #RELEASE_YEAR} - The year the movie was released.</li>
+ *   <li>{@link #TITLE} - The title of the movie, ignoring case.</li>
+ *   <li>{@link #DURATION} - The duration of the movie in minutes.</li>
+ * </ul>
+ * 
+ * <p>Movies with equal values are ordered by show ID, and movies for which the attribute is unknown
+ * are placed last in both directions.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public enum SortColumn {
+    /** 
+     * Sorts by the date the movie was added to the catalog. 
+     */
+    DATE_ADDED("Date Added"),
+    /** 
+     * Sorts by the year the movie was released. 
+     */
+    RELEASE_YEAR("Release Year"),
+    /** 
+     * Sorts by the title of the movie, ignoring case. 
+     */
+    TITLE("Title"),
+    /** 
+     * Sorts by the duration of the movie in minutes; TV shows, measured in seasons, are placed last. 
+     */
+    DURATION("Duration");
+    
+    /** 
+     * The name of the attribute as displayed to the user. 
+     */
+    private final String columnName;
+    
+    /**
+     * Constructs a {@code SortColumn} with the specified display name.
+     * 
+     * @param columnName the name of the attribute (e.g., "Date Added").
+     */
+    SortColumn(String columnName) {
+        this.columnName = columnName;
+    }
+    
+    /**
+     * Retrieves the name of the attribute as displayed to the user.
+     * 
+     * @return the name of the attribute (e.g., "Date Added").
+     */
+    public String getColumnName() {
+        return columnName;
+    }
+    
+    /**
+     * Returns the display name, so the value can be shown directly in lists and combo boxes.
+     * 
+     * @return the name of the attribute.
+     */
+    @Override
+    public String toString() {
+        return columnName;
+    }
+}
@@ -0,0 +1,96 @@
+package pl.polsl.model;
+
+import java.util.BitSet;
+
+/**
+ * Immutable permutation of the rows of a {@link MovieColumns} sorted by one {@link SortColumn}.
+ * 
+ * <p>Rows with equal values are ordered by show ID in both directions, and rows with an unknown
+ * value are placed last in both directions. The descending order is not sorted again: it is derived
+ * from the ascending one in a single pass by taking its runs of equal values in reverse order. It is
+ * only built the first time it is displayed, so an order that is only ever used ascending holds a
+ * single permutation.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class SortOrder {
+    /**
+     * Row indexes in ascending order, followed by the rows with an unknown value.
+     */
+    private final int[] ascendingRows;
+    /**
+     * Number of leading rows of {@link #ascendingRows} that have a known value.
+     */
+    private final int knownCount;
+    /**
+     * Positions among the known rows at which a new value starts, until the descending order is built.
+     */
+    private BitSet runStarts;
+    /**
+     * Row indexes in descending order, followed by the rows with an unknown value; built on first use.
+     */
+    private volatile int[] descendingRows;
+    
+    /**
+     * Constructs a sort order from its ascending permutation.
+     *
+     * @param rows the row indexes in ascending order, with the rows having an unknown value last;
+     *        the array is not copied and must not be modified afterwards.
+     * @param knownCount the number of leading rows that have a known value.
+     * @param runStarts the positions among the first {@code knownCount} rows at which a new value starts.
+     */
+    SortOrder(int[] rows, int knownCount, BitSet runStarts) {
+        this.ascendingRows = rows;
+        this.knownCount = knownCount;
+        this.runStarts = runStarts;
+    }
+    
+    /**
+     * Returns the number of rows in the order.
+     *
+     * @return the number of rows.
+     */
+    public int size() {
+        return ascendingRows.length;
+    }
+    
+    /**
+     * Returns the row displayed at a position of the sorted list.
+     *
+     * @param position the position in the sorted list.
+     * @param ascending {@code true} for the ascending order, {@code false} for the descending order.
+     * @return the index of the row at that position.
+     */
+    public int rowAt(int position, boolean ascending) {
+        return ascending ? ascendingRows[position] : descendingRows()[position];
+    }
+    
+    /**
+     * Returns the descending permutation, building it on first use.
+     *
+     * @return the row indexes in descending order, followed by the rows with an unknown value.
+     */
+    private int[] descendingRows() {
+        int[] rows = descendingRows;
+        if (rows == null) {
+            synchronized (this) {
+                rows = descendingRows;
+                if (rows == null) {
+                    rows = new int[ascendingRows.length];
+                    int position = 0;
+                    for (int end = knownCount; end > 0; ) {
+                        int start = runStarts.previousSetBit(end - 1);
+                        System.arraycopy(ascendingRows, start, rows, position, end - start);
+                        position += end - start;
+                        end = start;
+                    }
+                    System.arraycopy(ascendingRows, knownCount, rows, knownCount, ascendingRows.length - knownCount);
+                    descendingRows = rows;
+                    runStarts = null;
+                }
+            }
+        }
+        return rows;
+    }
+}
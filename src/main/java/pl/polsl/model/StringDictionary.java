@@ -0,0 +1,102 @@
+package pl.polsl.model;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Symbol table assigning dense integer codes to distinct string values.
+ * 
+ * <p>Codes are assigned in order of first appearance, starting from {@code 0}, so they can be used
+ * directly as indexes of counting arrays. Each distinct value is stored only once, no matter how many
+ * rows refer to it, and {@link #intern(String)} returns that stored instance.</p>
+ * 
+ * <p>The dictionary is safe for use by several threads, which allows the parallel loaders to share it.
+ * Lookups of values that are already present do not lock.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class StringDictionary {
+    /**
+     * Codes of the stored values.
+     */
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    /**
+     * Stored values, indexed by their codes; replaced by a larger copy when full.
+     */
+    private volatile String[] values = new String[16];
+    /**
+     * Number of stored values; only modified while holding the lock of the dictionary.
+     */
+    private volatile int size;
+    
+    /**
+     * Returns the code of a value, adding the value to the dictionary if it is not present yet.
+     *
+     * @param value the value to encode.
+     * @return the code of the value.
+     */
+    public int encode(String value) {
+        Integer code = codes.get(value);
+        if (code != null) {
+            return code;
+        }
+        synchronized (this) {
+            code = codes.get(value);
+            if (code == null) {
+                code = size;
+                if (code == values.length) {
+                    values = Arrays.copyOf(values, code * 2);
+                }
+                values[code] = value;
+                size = code + 1;
+                codes.put(value, code);
+            }
+            return code;
+        }
+    }
+    
+    /**
+     * Returns the canonical instance of a value, adding the value to the dictionary if it is not present yet.
+     *
+     * @param value the value to intern.
+     * @return the instance stored in the dictionary that is equal to {@code value}.
+     */
+    public String intern(String value) {
+        return decode(encode(value));
+    }
+    
+    /**
+     * Returns the code of a value without modifying the dictionary.
+     *
+     * @param value the value to look up.
+     * @return the code of the value, or {@code -1} if the value is not present.
+     */
+    public int code(String value) {
+        Integer code = codes.get(value);
+        return code != null ? code : -1;
+    }
+    
+    /**
+     * Returns the value with the given code.
+     *
+     * @param code a code returned by {@link #encode(String)}.
+     * @return the value with the given code.
+     */
+    public String decode(int code) {
+        if (code >= size) {
+            throw new IndexOutOfBoundsException("Unknown code: " + code);
+        }
+        return values[code];
+    }
+    
+    /**
+     * Returns the number of distinct values in the dictionary.
+     *
+     * @return the number of distinct values.
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -10,8 +10,34 @@
  * <ul>
  *   <li>{@link Movie} - Represents a movie entity with properties such as title, director, release year, and other details.</li>
  *   <li>{@link Model} - Maintains a list of movies and provides functionality for filtering, searching, and analyzing movie data.</li>
+ *   <li>{@link CatalogVersion} - Immutable, copy-on-write version of the catalog read by concurrent threads without locking.</li>
+ *   <li>{@link CatalogChange} - Typed event describing the rows affected by a new version of the catalog.</li>
+ *   <li>{@link CatalogDelta} - Insertions, updates and deletions keyed by show ID, applied to a loaded catalog without reloading it.</li>
+ *   <li>{@link MovieLookup} - Result of a bulk lookup of a show ID, reporting invalid IDs without an exception.</li>
  *   <li>{@link InvalidMovieIdException} - Custom exception class for handling errors when movie IDs do not match the expected format.</li>
  *   <li>{@link MovieType} - Enum representing the type of media, distinguishing between movies and TV shows.</li>
+ *   <li>{@link MovieCsvReader} - Streaming reader turning CSV rows into movies one row or batch at a time.</li>
+ *   <li>{@link ParallelCsvLoader} - Multi-core loader parsing quote-aware byte ranges of the CSV file concurrently.</li>
+ *   <li>{@link MappedCsvReader} - Reader parsing the memory-mapped bytes of the CSV file without a character stream.</li>
+ *   <li>{@link ProgressInputStream} - Input stream counting the bytes read, used to report loading progress.</li>
+ *   <li>{@link BinarySnapshot} - Versioned, checksummed binary copy of the catalog for fast startup.</li>
+ *   <li>{@link LoadMode} - Enum selecting how the catalog is loaded: serially, in parallel, memory-mapped or from a snapshot.</li>
+ *   <li>{@link SortColumn} - Enum of the columns by which the displayed movies can be sorted.</li>
+ *   <li>{@link SortOrder} - Cached permutation of the catalog sorted by one column, shared by both directions.</li>
+ *   <li>{@link MovieSorter} - Sorting engine ordering rows by packed primitive keys with show ID tie-breaking.</li>
+ *   <li>{@link MovieColumns} - Columnar, dictionary-encoded copy of the catalog scanned by the analytics.</li>
+ *   <li>{@link MovieQuery} - Group-by query engine aggregating primitive columns in parallel ranges.</li>
+ *   <li>{@link GroupField} - Enum of the attributes, including exploded multi-valued ones, a query can group by.</li>
+ *   <li>{@link Metric} - Enum of the numeric attributes a query can aggregate.</li>
+ *   <li>{@link GroupColumn} - Dictionary-encoded group keys of every row in compressed sparse row layout.</li>
+ *   <li>{@link StringDictionary} - Thread-safe symbol table assigning dense integer codes to distinct strings.</li>
+ *   <li>{@link MovieInterner} - Per-column dictionaries sharing repeated values between loaded movies.</li>
+ *   <li>{@link SearchIndex} - Inverted index with compressed posting lists for ranked full-text search.</li>
+ *   <li>{@link MultiValueIndex} - Dictionary-coded values of one multi-valued field with a posting list per value.</li>
+ *   <li>{@link MovieFacets} - Posting lists of the cast members, countries and genres of the catalog.</li>
+ *   <li>{@link CountryCounter} - Incrementally maintained ranking of countries by number of movies.</li>
+ *   <li>{@link DurationStatistics} - Incrementally maintained duration count, sum, minimum and maximum per country and type.</li>
+ *   <li>{@link ShowIdIndex} - Primary-key index providing constant-time lookups of movies by show ID.</li>
  * </ul>
  * 
  * @author Karolina Suska
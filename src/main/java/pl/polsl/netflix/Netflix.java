@@ -11,7 +11,9 @@ import pl.polsl.controller.*;
  * release dates, and determine the country with the most movies available.</p>
  * 
  * <p>Command-line arguments can be used to perform specific operations on 
- * movies, such as retrieving details based on a movie ID.</p>
+ * movies, such as retrieving details based on a movie ID, or to apply a delta
+ * file of insertions, updates and deletions to the loaded catalog. On servers and in
+ * scheduled jobs, the analytics can be run without a window in batch mode.</p>
  * 
  * @author Karolina Suska
  * @version 3.1
@@ -26,9 +28,16 @@ public class Netflix {
      *             The first argument can be the movie ID which the
      *             application will use to perform operations related to movies.
      *             If no movie ID is provided, the application will start without 
-     *             any specific operations.
+     *             any specific operations. The option {@code --delta <file>}
+     *             applies a delta file once the catalog is loaded. With {@code --batch},
+     *             or when the JVM runs headless, the application does not show its window
+     *             but runs the analytics given as arguments and prints their results;
+     *             see {@link BatchController}.
      */
-        public static void main(String[] args) {
+    public static void main(String[] args) {
+        if (BatchController.isBatch(args)) {
+            System.exit(BatchController.run(args, System.out, System.err));
+        }
         Controller controller = new Controller(args);
     }
 }
@@ -0,0 +1,71 @@
+package pl.polsl.view;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.util.function.Consumer;
+import javax.swing.SwingUtilities;
+import pl.polsl.model.*;
+
+/**
+ * Listener that forwards the {@link CatalogChange}s of a {@link Model} to the Event Dispatch Thread,
+ * merging the changes fired before the Event Dispatch Thread gets to them.
+ *
+ * <p>At most one delivery is queued at a time: changes fired while it is pending are merged into it
+ * with {@link CatalogChange#coalesce(CatalogChange, CatalogChange)}. A bulk load appending thousands of
+ * batches therefore costs the Event Dispatch Thread one row insertion per delivery instead of one per
+ * batch, whichever thread the model is changed from.</p>
+ *
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class CatalogChangeCoalescer implements PropertyChangeListener {
+    /**
+     * Receives the merged changes on the Event Dispatch Thread.
+     */
+    private final Consumer<CatalogChange> target;
+    /**
+     * Changes fired since the last delivery, merged, or {@code null} if none is pending.
+     */
+    private CatalogChange pending;
+
+    /**
+     * Constructs a listener delivering the changes to a target.
+     *
+     * @param target receives the merged changes on the Event Dispatch Thread, in order.
+     */
+    public CatalogChangeCoalescer(Consumer<CatalogChange> target) {
+        this.target = target;
+    }
+
+    /**
+     * Merges a change into the pending one, queuing a delivery if none is pending. Other events are ignored.
+     *
+     * @param event the event fired by the model.
+     */
+    @Override
+    public void propertyChange(PropertyChangeEvent event) {
+        if (!(event instanceof CatalogChange change)) {
+            return;
+        }
+        synchronized (this) {
+            if (pending != null) {
+                pending = CatalogChange.coalesce(pending, change);
+                return;
+            }
+            pending = change;
+        }
+        SwingUtilities.invokeLater(this::deliver);
+    }
+
+    /**
+     * Passes the pending change to the target.
+     */
+    private void deliver() {
+        CatalogChange change;
+        synchronized (this) {
+            change = pending;
+            pending = null;
+        }
+        target.accept(change);
+    }
+}
@@ -0,0 +1,114 @@
+package pl.polsl.view;
+
+import javax.swing.table.AbstractTableModel;
+import pl.polsl.model.*;
+
+/**
+ * Table model that presents the movies of a {@link Model} without copying them.
+ * 
+ * <p>Cells are read from a {@link CatalogVersion} of the model in its sort order only when the table
+ * renders them, so the cost of refreshing the table after the movies have been sorted or reloaded does
+ * not depend on the size of the catalog. The table model keeps displaying the same version until it
+ * is given a {@link CatalogChange}: it then switches to the new version and notifies the table of the
+ * affected rows only, so the row count seen by the table always matches its events.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class MovieTableModel extends AbstractTableModel {
+    /** 
+     * Names of the displayed columns. 
+     */
+    private static final String[] COLUMN_NAMES = {"Show ID", "Title", "Director", "Country", "Date Added", "Release Year", "Duration"};
+    /** 
+     * The data model providing movie information.
+     */
+    private final Model model;
+    /** 
+     * The displayed version of the catalog.
+     */
+    private CatalogVersion version;
+    
+    /**
+     * Constructs a table model presenting the movies of the given data model.
+     *
+     * @param model the data model containing movie information.
+     */
+    public MovieTableModel(Model model) {
+        this.model = model;
+        this.version = model.getVersion();
+    }
+    
+    /**
+     * Returns the movie displayed in a row of the table.
+     *
+     * @param row the index of the row in the model.
+     * @return the movie displayed in the row.
+     */
+    public Movie getMovieAt(int row) {
+        return version.getMovieAt(row);
+    }
+    
+    /**
+     * Displays the new version of a change and notifies the table of the rows it affects. A change that
+     * does not follow the displayed version, e.g. because earlier changes were missed, refreshes all rows.
+     *
+     * @param change the change of the catalog of the model.
+     */
+    public void applyChange(CatalogChange change) {
+        boolean follows = change.getOldVersion() == version;
+        version = change.getNewVersion();
+        if (!follows) {
+            fireTableDataChanged();
+            return;
+        }
+        switch (change.getKind()) {
+            case ROWS_INSERTED -> fireTableRowsInserted(change.getFirstRow(), change.getLastRow());
+            case ROWS_UPDATED -> fireTableRowsUpdated(change.getFirstRow(), change.getLastRow());
+            case ROWS_DELETED -> fireTableRowsDeleted(change.getFirstRow(), change.getLastRow());
+            default -> fireTableDataChanged();
+        }
+    }
+    
+    /**
+     * Displays the newest version of the catalog of the model and refreshes all rows.
+     */
+    public void refresh() {
+        version = model.getVersion();
+        fireTableDataChanged();
+    }
+    
+    @Override
+    public int getRowCount() {
+        return version.size();
+    }
+    
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+    
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+    
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == 5 ? Integer.class : String.class;
+    }
+    
+    @Override
+    public Object getValueAt(int row, int column) {
+        Movie movie = getMovieAt(row);
+        return switch (column) {
+            case 0 -> movie.showId();
+            case 1 -> movie.title();
+            case 2 -> movie.director();
+            case 3 -> movie.country();
+            case 4 -> movie.dateAdded();
+            case 5 -> movie.releaseYear();
+            default -> movie.duration();
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package pl.polsl.view;
+
+import javax.swing.AbstractListModel;
+import pl.polsl.model.*;
+
+/**
+ * List model that presents the release date differences of a catalog without building their text upfront.
+ * 
+ * <p>The model reads a {@link MovieColumns} snapshot, whose release date difference column is computed
+ * once, and formats an element only when the list renders it. Together with a fixed cell height, which
+ * spares the list from measuring every element, the cost of displaying the differences depends on the
+ * number of visible rows rather than on the size of the catalog.</p>
+ * 
+ * @author Karolina Suska
+ * @version 3.1
+ */
+public class ReleaseDifferenceListModel extends AbstractListModel<String> {
+    /** 
+     * The displayed snapshot of the catalog, or {@code null} if nothing is displayed.
+     */
+    private MovieColumns columns;
+    
+    /**
+     * Replaces the displayed catalog.
+     *
+     * @param columns the snapshot of the catalog to display, or {@code null} to display nothing.
+     */
+    public void setColumns(MovieColumns columns) {
+        int oldSize = getSize();
+        this.columns = columns;
+        if (oldSize > 0) {
+            fireIntervalRemoved(this, 0, oldSize - 1);
+        }
+        if (getSize() > 0) {
+            fireIntervalAdded(this, 0, getSize() - 1);
+        }
+    }
+    
+    @Override
+    public int getSize() {
+        return columns != null ? columns.size() : 0;
+    }
+    
+    @Override
+    public String getElementAt(int index) {
+        return Model.formatReleaseDifference(columns.getTitle(index), columns.getReleaseDifference(index));
+    }
+}
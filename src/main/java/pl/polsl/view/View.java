@@ -4,10 +4,11 @@ import java.awt.Dimension;
 import java.awt.GridBagConstraints;
 import java.awt.GridBagLayout;
 import javax.swing.*;
-import pl.polsl.model.*;
 import javax.swing.table.DefaultTableModel;
+import pl.polsl.model.*;
 import java.awt.*;
 import java.awt.event.KeyEvent;
+import java.util.List;
 
 /**
  * Represents the graphical user interface for the Netflix Analyzer application.
@@ -45,18 +46,34 @@ public class View {
      * Label displaying the country with the most movies. 
      */
     public JLabel countryLabel;
+    /** 
+     * Button to display the average duration of movies and TV shows by country. 
+     */
+    public JButton durationButton;
     /** 
      * Table displaying the list of movies. 
      */
     public JTable movieTable; 
     /** 
-     * Table model used to populate movie information in movieTable. 
+     * Table model presenting the movies of the model in movieTable. 
      */
-    public DefaultTableModel tableModel;
+    public MovieTableModel tableModel;
     /** 
      * Text area displaying calculated release date differences. 
      */
     public JTextArea differenceArea;
+    /** 
+     * Button to display the release date differences of all movies. 
+     */
+    public JButton showAllDifferencesButton;
+    /** 
+     * Release date differences of all movies, formatted only for the rows being displayed. 
+     */
+    private final ReleaseDifferenceListModel releaseDifferences = new ReleaseDifferenceListModel();
+    /** 
+     * List displaying the release date differences of all movies. 
+     */
+    private JList<String> releaseDifferenceList;
     /** 
      * Text field to input movie ID for calculations.
      */
@@ -66,12 +83,45 @@ public class View {
      */
     public JButton calculateDateDiffButton; 
     
-    public JButton sortByDateButton;
+    /** 
+     * Button to sort the movies by the selected column. 
+     */
+    public JButton sortButton;
+    /** 
+     * Combo box selecting the column by which the movies are sorted. 
+     */
+    public JComboBox<SortColumn> sortColumnComboBox;
     
     public JComboBox<String> sortOrderComboBox; 
+    /** 
+     * Text field to input the words to search for. 
+     */
+    private JTextField searchInput;
+    /** 
+     * Button to search the movies for the entered words. 
+     */
+    public JButton searchButton;
+    /** 
+     * List displaying the movies found by the last search. 
+     */
+    public JList<Movie> searchResultsList;
+    /** 
+     * Movies found by the last search, in the order they are listed. 
+     */
+    private final DefaultListModel<Movie> searchResults = new DefaultListModel<>();
+    /** 
+     * Progress bar showing how much of the catalog has been loaded. 
+     */
+    private JProgressBar loadProgressBar;
+    /** 
+     * Label displaying the loading status and non-blocking error messages. 
+     */
+    private JLabel statusLabel;
     
     /**
      * Constructs a View for the Netflix Analyzer application, initializing the GUI components.
+     * The movie table follows the {@link CatalogChange}s of the model, merged by a
+     * {@link CatalogChangeCoalescer}, so it is updated without being refreshed by the controller.
      *
      * @param model the data model containing movie information.
      */
@@ -79,6 +129,8 @@ public class View {
         this.model = model;
         prepareGUI();
         displayMovies();
+        model.getSwingPropChangeFirer().addPropertyChangeListener(Model.CATALOG,
+                new CatalogChangeCoalescer(this::applyCatalogChange));
     }
     
     /**
@@ -99,6 +151,40 @@ public class View {
         this.countryLabel.setText("Country with most movies: " + country);
     }
     
+    /**
+     * Displays the duration statistics of movies and TV shows per country in a dialog with a sortable table.
+     *
+     * @param durations the statistics to display, one row per country and type.
+     */
+    public void showDurationsByCountry(List<DurationStatistics.CountryDuration> durations) {
+        String[] columns = {"Country", "Type", "Titles", "Average", "Shortest", "Longest", "Unit"};
+        Class<?>[] columnClasses = {String.class, MovieType.class, Integer.class, Double.class,
+            Integer.class, Integer.class, String.class};
+        Object[][] rows = new Object[durations.size()][];
+        for (int i = 0; i < rows.length; i++) {
+            DurationStatistics.CountryDuration duration = durations.get(i);
+            rows[i] = new Object[] {duration.country(), duration.type(), duration.count(),
+                Math.round(duration.mean() * 10) / 10.0, duration.min(), duration.max(),
+                duration.type() == MovieType.TV_SHOW ? "seasons" : "min"};
+        }
+        JTable durationTable = new JTable(new DefaultTableModel(rows, columns) {
+            @Override
+            public Class<?> getColumnClass(int column) {
+                return columnClasses[column];
+            }
+            
+            @Override
+            public boolean isCellEditable(int row, int column) {
+                return false;
+            }
+        });
+        durationTable.setAutoCreateRowSorter(true);
+        durationTable.getAccessibleContext().setAccessibleDescription("Table displaying the average, shortest and longest duration of movies and TV shows per country.");
+        JScrollPane scrollPane = new JScrollPane(durationTable);
+        scrollPane.setPreferredSize(new Dimension(600, 400));
+        JOptionPane.showMessageDialog(frame, scrollPane, "Average Duration by Country", JOptionPane.PLAIN_MESSAGE);
+    }
+    
     /**
      * Retrieves the movie ID input provided by the user.
      *
@@ -117,6 +203,36 @@ public class View {
         movieIdInput.setText(movieId);
     }
 
+    /**
+     * Retrieves the search query provided by the user.
+     *
+     * @return the text from the search input field.
+     */
+    public String getSearchInput() {
+        return searchInput.getText();
+    }
+    
+    /**
+     * Returns the movie selected in the search results.
+     *
+     * @return the selected movie, or {@code null} if no result is selected.
+     */
+    public Movie getSelectedSearchResult() {
+        return searchResultsList.getSelectedValue();
+    }
+    
+    /**
+     * Displays the results of a search.
+     *
+     * @param hits the movies found, from the most relevant one.
+     * @param millis the time the search took, in milliseconds.
+     */
+    public void showSearchResults(List<SearchIndex.Hit> hits, long millis) {
+        searchResults.clear();
+        hits.forEach(hit -> searchResults.addElement(hit.movie()));
+        setStatus("Found " + hits.size() + (hits.size() == 1 ? " movie" : " movies") + " in " + millis + " ms.");
+    }
+    
     /**
      * Sets the text content in the difference area to display calculated differences.
      *
@@ -126,6 +242,35 @@ public class View {
         differenceArea.setText(text); 
     }
     
+    /**
+     * Updates the movie table after a change of the catalog, so that only the inserted, updated or
+     * deleted rows are laid out and repainted while the other rows stay usable.
+     *
+     * @param change the change of the catalog, possibly merged from several changes.
+     */
+    public void applyCatalogChange(CatalogChange change) {
+        tableModel.applyChange(change);
+    }
+    
+    /**
+     * Updates the progress of loading the catalog.
+     *
+     * @param percent the loaded part of the catalog, from 0 to 100.
+     */
+    public void setLoadProgress(int percent) {
+        loadProgressBar.setValue(percent);
+        loadProgressBar.setVisible(percent < 100);
+    }
+    
+    /**
+     * Displays a status message without blocking the user.
+     *
+     * @param message the message to display.
+     */
+    public void setStatus(String message) {
+        statusLabel.setText(message);
+    }
+    
     /**
      * Initializes and sets up the graphical user interface (GUI) for the application.
      * This includes creating the main application frame, configuring panels, setting layouts,
@@ -163,8 +308,7 @@ public class View {
         gbc.insets = new Insets(5, 5, 5, 5);
         
         
-        String[] columnNames = {"Show ID", "Title", "Director", "Country", "Date Added", "Release Year", "Duration"};
-        tableModel = new DefaultTableModel(columnNames, 0);
+        tableModel = new MovieTableModel(model);
         movieTable = new JTable(tableModel);
         JScrollPane scrollPane = new JScrollPane(movieTable); 
         
@@ -175,6 +319,11 @@ public class View {
         showCountryButton.getAccessibleContext().setAccessibleDescription("Button to display the country with the most movies.");
         
         
+        durationButton = new JButton("Average Duration");
+        durationButton.setMnemonic(KeyEvent.VK_A);
+        durationButton.setToolTipText("Click to show the average duration of movies and TV shows by country. (Alt + A)");
+        durationButton.getAccessibleContext().setAccessibleDescription("Button to display the average duration of movies and TV shows by country.");
+        
         countryLabel = new JLabel("Country with most movies: ");
         countryLabel.getAccessibleContext().setAccessibleDescription("Displays the country with the most movies based on the dataset.");
 
@@ -195,21 +344,34 @@ public class View {
         differenceArea.setBorder(BorderFactory.createTitledBorder("Release Date Differences"));
         differenceArea.getAccessibleContext().setAccessibleDescription("Displays calculated release date differences for movies.");
         
+        showAllDifferencesButton = new JButton("All Differences");
+        showAllDifferencesButton.setMnemonic(KeyEvent.VK_L);
+        showAllDifferencesButton.setToolTipText("Click to list the release date differences of all movies. (Alt + L)");
+        showAllDifferencesButton.getAccessibleContext().setAccessibleDescription("Button to list the release date differences of all movies.");
+        
+        releaseDifferenceList = new JList<>(releaseDifferences);
+        // A fixed cell height lets the list lay out millions of rows without measuring each of them.
+        releaseDifferenceList.setPrototypeCellValue("A fairly long movie title with a subtitle: 00000 days");
+        releaseDifferenceList.getAccessibleContext().setAccessibleDescription("Lists the release date differences of all movies.");
+        
         movieTable.setToolTipText("Movie data table. Use the table to view movie details.");
         movieTable.getAccessibleContext().setAccessibleDescription("Table displaying movie data including show ID, title, director, country, date added, release year, and duration.");
   
-         // Sort by Date button configuration
-        sortByDateButton = new JButton("Sort by Date Added");
-        sortByDateButton.setMnemonic(KeyEvent.VK_S);
-        sortByDateButton.setToolTipText("Click to sort movies by date added. (Alt + S)");
-        sortByDateButton.getAccessibleContext().setAccessibleDescription("Button to sort movies by date added.");
+         // Sort button configuration
+        sortButton = new JButton("Sort");
+        sortButton.setMnemonic(KeyEvent.VK_S);
+        sortButton.setToolTipText("Click to sort movies by the selected column. (Alt + S)");
+        sortButton.getAccessibleContext().setAccessibleDescription("Button to sort movies by the selected column.");
+        
+        sortColumnComboBox = new JComboBox<>(SortColumn.values());
+        sortColumnComboBox.getAccessibleContext().setAccessibleDescription("Selects the column by which movies are sorted.");
         
         String[] sortOrderOptions = {"Ascending", "Descending"};
         sortOrderComboBox = new JComboBox<>(sortOrderOptions);
         
         JPanel sortPanel = new JPanel();
         sortPanel.setLayout(new GridBagLayout());
-        sortPanel.setBorder(BorderFactory.createTitledBorder("Sort by Date Added")); // Dodanie ramki tytułowej
+        sortPanel.setBorder(BorderFactory.createTitledBorder("Sort Movies")); // Dodanie ramki tytułowej
         
         GridBagConstraints sortGbc = new GridBagConstraints();
         sortGbc.fill = GridBagConstraints.HORIZONTAL;
@@ -218,9 +380,12 @@ public class View {
         
         sortGbc.gridx = 0;
         sortGbc.gridy = 0;
-        sortPanel.add(sortByDateButton, sortGbc);
+        sortPanel.add(sortButton, sortGbc);
     
         sortGbc.gridx = 1;
+        sortPanel.add(sortColumnComboBox, sortGbc);
+        
+        sortGbc.gridx = 2;
         sortPanel.add(sortOrderComboBox, sortGbc);
         
         gbc.gridx = 0;
@@ -230,6 +395,9 @@ public class View {
         gbc.gridx = 1;
         controlPanel.add(countryLabel, gbc);
         
+        gbc.gridx = 2;
+        controlPanel.add(durationButton, gbc);
+        
         gbc.gridx = 3;
         gbc.gridy = 0;
         controlPanel.add(sortPanel, gbc);  // Dodanie panelu z ramką do głównego panelu
@@ -246,9 +414,68 @@ public class View {
         
         gbc.gridx = 0;
         gbc.gridy = 2; // Ustawić differenceArea pod kontrolkami
-        gbc.gridwidth = 3; // Rozciągnąć na wszystkie kolumny
+        gbc.gridwidth = 2;
         controlPanel.add(differenceArea, gbc);
         
+        gbc.gridx = 2;
+        gbc.gridwidth = 1;
+        controlPanel.add(showAllDifferencesButton, gbc);
+        
+        searchInput = new JTextField(15);
+        searchInput.setToolTipText("Enter words to find in titles, directors, cast and descriptions. Use OR between alternatives and * at the end of a word to match its beginning.");
+        searchInput.getAccessibleContext().setAccessibleDescription("Text field for entering the words to search for.");
+        
+        searchButton = new JButton("Search");
+        searchButton.setMnemonic(KeyEvent.VK_F);
+        searchButton.setToolTipText("Click to search the movies for the entered words. (Alt + F)");
+        searchButton.getAccessibleContext().setAccessibleDescription("Button to search the movies.");
+        // Pressing Enter in the search field starts the search as well.
+        searchInput.addActionListener(e -> searchButton.doClick());
+        
+        JPanel searchPanel = new JPanel(new BorderLayout(5, 5));
+        searchPanel.setBorder(BorderFactory.createTitledBorder("Search Movies"));
+        searchPanel.add(searchInput, BorderLayout.CENTER);
+        searchPanel.add(searchButton, BorderLayout.EAST);
+        
+        searchResultsList = new JList<>(searchResults);
+        searchResultsList.setVisibleRowCount(3);
+        searchResultsList.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        searchResultsList.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                    boolean isSelected, boolean cellHasFocus) {
+                Movie movie = (Movie) value;
+                return super.getListCellRendererComponent(list, movie.showId() + " - " + movie.title(),
+                        index, isSelected, cellHasFocus);
+            }
+        });
+        searchResultsList.getAccessibleContext().setAccessibleDescription("Lists the movies found by the last search. Selecting a movie enters its ID.");
+        
+        gbc.gridx = 3;
+        gbc.gridy = 1;
+        controlPanel.add(searchPanel, gbc);
+        
+        gbc.gridx = 3;
+        gbc.gridy = 2;
+        gbc.gridwidth = 1;
+        controlPanel.add(new JScrollPane(searchResultsList), gbc);
+        
+        loadProgressBar = new JProgressBar(0, 100);
+        loadProgressBar.setStringPainted(true);
+        loadProgressBar.getAccessibleContext().setAccessibleDescription("Shows how much of the movie catalog has been loaded.");
+        
+        statusLabel = new JLabel(" ");
+        statusLabel.getAccessibleContext().setAccessibleDescription("Displays the loading status and error messages.");
+        
+        JPanel statusPanel = new JPanel(new BorderLayout(5, 5));
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+        statusPanel.add(loadProgressBar, BorderLayout.EAST);
+        
+        gbc.gridx = 0;
+        gbc.gridy = 3;
+        gbc.gridwidth = 4;
+        controlPanel.add(statusPanel, gbc);
+        
         
         frame.add(scrollPane, BorderLayout.CENTER); 
         frame.add(controlPanel, BorderLayout.SOUTH); 
@@ -258,32 +485,25 @@ public class View {
     
     
     /**
-     * Populates the movie table with movie data from the model.
+     * Refreshes the movie table with the newest version of the catalog. The table reads its cells
+     * directly from that version, so this only notifies it that all rows may differ.
      */
     public void displayMovies() {
-        tableModel.setRowCount(0); 
-        for (Movie movie : model.getMovies()) {
-            Object[] rowData = {
-                movie.showId(),
-                movie.title(),
-                movie.director(),
-                movie.country(),
-                movie.dateAdded(),
-                movie.releaseYear(),
-                movie.duration()
-            };
-            tableModel.addRow(rowData); 
-        }
+        tableModel.refresh();
     }
     
     /**
-     * Displays release date differences for movies in the difference area.
+     * Displays the release date differences of all movies in a dialog. The list is virtualized: only the
+     * visible rows are formatted, from the precomputed difference column of the snapshot.
+     *
+     * @param columns the snapshot of the catalog whose differences are displayed.
      */
-    public void displayReleaseDateDifferences() {
-        differenceArea.setText(""); 
-        for (String movieDifference : model.getMoviesWithReleaseDifferences()) {
-            differenceArea.append(movieDifference + "\n"); 
-        }
+    public void displayReleaseDateDifferences(MovieColumns columns) {
+        releaseDifferences.setColumns(columns);
+        JScrollPane scrollPane = new JScrollPane(releaseDifferenceList);
+        scrollPane.setPreferredSize(new Dimension(500, 400));
+        JOptionPane.showMessageDialog(frame, scrollPane, "Release Date Differences", JOptionPane.PLAIN_MESSAGE);
+        releaseDifferences.setColumns(null);
     }
     
     /**
@@ -6,10 +6,16 @@
  * such as frames, panels, buttons, tables, and labels, allowing users to view and interact 
  * with movie data.
  * 
- * <p>Key class in this package:
+ * <p>Key classes in this package:
  * <ul>
  *   <li>{@link pl.polsl.view.View} - The main GUI class, responsible for initializing and configuring
  *   the layout, components, and event listeners that enable user interactions.</li>
+ *   <li>{@link pl.polsl.view.MovieTableModel} - Table model reading movie data directly from a catalog
+ *   version instead of copying it into the table, and repainting only the rows affected by a change.</li>
+ *   <li>{@link pl.polsl.view.CatalogChangeCoalescer} - Listener merging the catalog changes of the model
+ *   into one delivery on the Event Dispatch Thread.</li>
+ *   <li>{@link pl.polsl.view.ReleaseDifferenceListModel} - List model formatting the release date
+ *   differences of a catalog snapshot only for the rendered rows.</li>
  * </ul>
  * 
  * <p>This package closely integrates with:
@@ -0,0 +1,54 @@
+package pl.polsl.controller;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.polsl.model.TestMovies.movie;
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import pl.polsl.model.*;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class BatchControllerTest {
+
+    @Test
+    public void testCommandsWriteTabSeparatedSections() {
+        try {
+            Model model = new Model(List.of(movie("s1").title("B").country("Poland").dateAdded("January 2, 2020").build(),
+                    movie("s2").title("A").country("Poland, France").releaseYear(2019).build()));
+            StringWriter out = new StringWriter();
+            new BatchController(model, out).execute(List.of("lookup", "s1", "s9", "bad", "top-countries", "1",
+                    "sort", "title", "differences"));
+            assertEquals("id\tstatus\ttitle\tdays\n"
+                    + "s1\tFOUND\tB\t1\n"
+                    + "s9\tNOT_FOUND\t\t\n"
+                    + "bad\tINVALID\t\t\n"
+                    + "\ncountry\tcount\n"
+                    + "Poland\t2\n"
+                    + "\nid\ttitle\tdirector\tcountry\tdate_added\trelease_year\tduration\n"
+                    + "s2\tA\t\tPoland, France\t\t2019\t90 min\n"
+                    + "s1\tB\t\tPoland\tJanuary 2, 2020\t2020\t90 min\n"
+                    + "\nid\ttitle\tdays\n"
+                    + "s1\tB\t1\n"
+                    + "s2\tA\t\n", out.toString());
+        } catch (Exception e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInvalidCommandLineIsRejected() {
+        ByteArrayOutputStream err = new ByteArrayOutputStream();
+        PrintStream errStream = new PrintStream(err, true, StandardCharsets.UTF_8);
+        assertEquals(2, BatchController.run(new String[] {"--batch"}, System.out, errStream));
+        assertEquals(2, BatchController.run(new String[] {"--batch", "--load", "fast", "country"}, System.out, errStream));
+        assertTrue(err.toString(StandardCharsets.UTF_8).contains(BatchController.USAGE));
+        assertTrue(BatchController.isBatch(new String[] {"s1", "--batch"}));
+    }
+}
@@ -0,0 +1,90 @@
+package pl.polsl.model;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.List;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class BinarySnapshotTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @BeforeEach
+    public void setUp() {
+        System.setProperty(BinarySnapshot.CACHE_DIRECTORY_PROPERTY, tempDir.resolve("cache").toString());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(BinarySnapshot.CACHE_DIRECTORY_PROPERTY);
+    }
+    
+    @Test
+    public void testRoundTripAndInvalidation() throws IOException {
+        try {
+            Model model = new Model();
+            Path snapshotFile = tempDir.resolve("titles.snapshot");
+            BinarySnapshot.Fingerprint source = new BinarySnapshot.Fingerprint(42, 1000);
+            BinarySnapshot.write(snapshotFile, model.getMovies(), source);
+            
+            List<Movie> movies = BinarySnapshot.read(snapshotFile, source);
+            assertEquals(model.getMovies(), movies);
+            assertEquals(model.getMovies(), BinarySnapshot.read(snapshotFile, source, 4096));
+            assertNull(BinarySnapshot.read(snapshotFile, new BinarySnapshot.Fingerprint(42, 1001)));
+            
+            byte[] bytes = Files.readAllBytes(snapshotFile);
+            bytes[bytes.length / 2] ^= 1;
+            Files.write(snapshotFile, bytes);
+            assertNull(BinarySnapshot.read(snapshotFile, source));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testModelWritesAndReusesSnapshot() throws IOException {
+        Path csvFile = tempDir.resolve("titles.csv");
+        String header = "show_id,type,title,director,cast,country,date_added,release_year,rating,duration,listed_in,description\n";
+        Files.writeString(csvFile, header + "s1,Movie,First,,,Poland,\"May 5, 2021\",2020,PG,90 min,Dramas,One\n");
+        try {
+            Path firstSnapshot = BinarySnapshot.defaultLocation(csvFile, BinarySnapshot.fingerprint(csvFile));
+            Model first = new Model(csvFile, LoadMode.SNAPSHOT);
+            assertTrue(Files.isRegularFile(firstSnapshot));
+            assertTrue(firstSnapshot.startsWith(tempDir));
+            
+            // Same size and modification time, different content: only the snapshot still knows "First".
+            FileTime modified = Files.getLastModifiedTime(csvFile);
+            Files.writeString(csvFile, header + "s1,Movie,Other,,,Poland,\"May 5, 2021\",2020,PG,90 min,Dramas,One\n");
+            Files.setLastModifiedTime(csvFile, modified);
+            Model second = new Model(csvFile, LoadMode.SNAPSHOT);
+            assertEquals(first.getMovies(), second.getMovies());
+            assertEquals("First", second.getMovies().get(0).title());
+            
+            Files.writeString(csvFile, "s2,Movie,Second,,,Poland,,2021,PG,80 min,Dramas,Two\n",
+                    StandardOpenOption.APPEND);
+            Path thirdSnapshot = BinarySnapshot.defaultLocation(csvFile, BinarySnapshot.fingerprint(csvFile));
+            assertNotEquals(firstSnapshot, thirdSnapshot);
+            Model third = new Model(csvFile, LoadMode.SNAPSHOT);
+            assertEquals(2, third.getMovies().size());
+            assertEquals("Other", third.getMovies().get(0).title());
+            // Writing the snapshot of the new version deletes the one of the old version.
+            assertTrue(Files.isRegularFile(thirdSnapshot));
+            assertFalse(Files.exists(firstSnapshot));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+}
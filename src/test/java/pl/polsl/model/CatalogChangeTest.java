@@ -0,0 +1,76 @@
+package pl.polsl.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.polsl.model.TestMovies.movie;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class CatalogChangeTest {
+
+    private static List<CatalogChange> record(Model model) {
+        List<CatalogChange> changes = new ArrayList<>();
+        model.getSwingPropChangeFirer().addPropertyChangeListener(Model.CATALOG,
+                event -> changes.add((CatalogChange) event));
+        return changes;
+    }
+
+    @Test
+    public void testModelFiresTypedChanges() {
+        try {
+            Model model = new Model(List.of(movie("s1").title("B").build(), movie("s2").title("A").build()));
+            List<CatalogChange> changes = record(model);
+
+            model.addMovies(List.of(movie("s3").title("D").build(), movie("s4").title("C").build()));
+            model.removeMovie("s2");
+            model.sortMovies(SortColumn.TITLE, true);
+            model.removeMovie("s1");
+
+            assertEquals(List.of(CatalogChange.Kind.ROWS_INSERTED, CatalogChange.Kind.ROWS_DELETED,
+                    CatalogChange.Kind.SORTED, CatalogChange.Kind.RELOADED),
+                    changes.stream().map(CatalogChange::getKind).toList());
+            assertEquals(2, changes.get(0).getFirstRow());
+            assertEquals(3, changes.get(0).getLastRow());
+            assertEquals(1, changes.get(1).getFirstRow());
+            assertFalse(changes.get(2).invalidatesAggregates());
+            for (int i = 1; i < changes.size(); i++) {
+                assertSame(changes.get(i - 1).getNewVersion(), changes.get(i).getOldVersion());
+            }
+            assertSame(model.getVersion(), changes.get(3).getNewVersion());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testChangesAreCoalesced() {
+        Model model = new Model(List.of(movie("s1").title("A").build()));
+        List<CatalogChange> changes = record(model);
+        for (int i = 2; i <= 4; i++) {
+            model.addMovie(movie("s" + i).title("Title " + i).build());
+        }
+        CatalogChange appended = CatalogChange.coalesce(CatalogChange.coalesce(changes.get(0), changes.get(1)), changes.get(2));
+        assertEquals(CatalogChange.Kind.ROWS_INSERTED, appended.getKind());
+        assertEquals(1, appended.getFirstRow());
+        assertEquals(3, appended.getLastRow());
+        assertEquals(1, appended.getOldVersion().size());
+        assertSame(model.getVersion(), appended.getNewVersion());
+
+        model.applyDelta(new CatalogDelta(List.of(
+                new CatalogDelta.Change(CatalogDelta.Operation.UPDATE, "s2", movie("s2").title("Updated").build()))));
+        CatalogChange updated = changes.get(3);
+        assertEquals(CatalogChange.Kind.ROWS_UPDATED, updated.getKind());
+        assertEquals(1, updated.getFirstRow());
+        assertEquals(1, updated.getLastRow());
+
+        CatalogChange mixed = CatalogChange.coalesce(appended, updated);
+        assertEquals(CatalogChange.Kind.RELOADED, mixed.getKind());
+        assertSame(changes.get(0).getOldVersion(), mixed.getOldVersion());
+        assertSame(model.getVersion(), mixed.getNewVersion());
+    }
+}
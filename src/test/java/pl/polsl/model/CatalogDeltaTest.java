@@ -0,0 +1,127 @@
+package pl.polsl.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.polsl.model.TestMovies.movie;
+import java.beans.PropertyChangeEvent;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class CatalogDeltaTest {
+
+    private static final String HEADER = "op,show_id,type,title,director,cast,country,date_added,"
+            + "release_year,rating,duration,listed_in,description\n";
+
+    @Test
+    public void testDeltaFileIsParsed() {
+        try {
+            CatalogDelta delta = CatalogDelta.read(new StringReader(HEADER
+                    + "I,s10,Movie,Inserted,,,Poland,\"September 25, 2021\",2020,PG,90 min,Dramas,New\n"
+                    + "u,s1,TV Show,Updated,,,France,,2019,,2 Seasons,,\n"
+                    + "D,s2\n"));
+            assertEquals(3, delta.size());
+            CatalogDelta.Change insert = delta.getChanges().get(0);
+            assertEquals(CatalogDelta.Operation.INSERT, insert.operation());
+            assertEquals("Inserted", insert.movie().title());
+            assertEquals(90, insert.movie().durationMinutes());
+            assertEquals(MovieType.TV_SHOW, delta.getChanges().get(1).movie().type());
+            assertEquals(new CatalogDelta.Change(CatalogDelta.Operation.DELETE, "s2", null), delta.getChanges().get(2));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+        assertThrows(InvalidMovieIdException.class, () -> CatalogDelta.read(new StringReader(HEADER + "X,s1\n")));
+        assertThrows(InvalidMovieIdException.class, () -> CatalogDelta.read(new StringReader(HEADER + "D,x1\n")));
+        assertThrows(InvalidMovieIdException.class, () -> CatalogDelta.read(new StringReader(HEADER + "I,s1,Movie\n")));
+    }
+
+    @Test
+    public void testDeltaUpdatesCatalogAndIndexes() {
+        try {
+            Model model = new Model(List.of(movie("s1").country("Poland").build(),
+                    movie("s2").country("Poland").duration("100 min").build(),
+                    movie("s3").country("France").duration("80 min").build()));
+            List<PropertyChangeEvent> events = new ArrayList<>();
+            model.getSwingPropChangeFirer().addPropertyChangeListener(events::add);
+            CatalogVersion before = model.getVersion();
+
+            Movie updated = movie("s1").country("Spain").duration("120 min").build();
+            Movie inserted = movie("s4").country("Spain").duration("60 min").build();
+            CatalogDelta.Result result = model.applyDelta(new CatalogDelta(List.of(
+                    new CatalogDelta.Change(CatalogDelta.Operation.UPDATE, "s1", updated),
+                    new CatalogDelta.Change(CatalogDelta.Operation.DELETE, "s2", null),
+                    new CatalogDelta.Change(CatalogDelta.Operation.INSERT, "s4", inserted),
+                    new CatalogDelta.Change(CatalogDelta.Operation.INSERT, "s3", movie("s3").build()),
+                    new CatalogDelta.Change(CatalogDelta.Operation.DELETE, "s99", null))));
+
+            assertEquals(new CatalogDelta.Result(1, 1, 1, List.of("s3", "s99")), result);
+            assertEquals(List.of(updated, model.getMovieById("s3"), inserted), model.getMovies());
+            assertEquals(3, before.size());
+            assertSame(updated, model.getMovieById("s1"));
+            assertNull(model.getMovieById("s2"));
+            assertEquals("Spain", model.getCountryWithMostMovies());
+            assertEquals(120, model.getDuration("Spain", MovieType.MOVIE).max());
+            assertNull(model.getDuration("Poland", MovieType.MOVIE));
+            assertEquals(List.of(updated, inserted), model.getMoviesFromCountry("Spain"));
+            assertEquals(List.of(Model.MOVIE_UPDATED, Model.MOVIE_DELETED, Model.MOVIE_INSERTED, Model.CATALOG),
+                    events.stream().map(PropertyChangeEvent::getPropertyName).toList());
+            assertSame(model.getVersion(), events.get(3).getNewValue());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+
+    @Test
+    public void testInsertOnlyDeltaKeepsSortOrder() {
+        Model model = new Model(List.of(movie("s2").country("Poland").build(),
+                movie("s1").country("Poland").duration("100 min").build()));
+        model.sortMovies(SortColumn.TITLE, true);
+        CatalogDelta.Result result = model.applyDelta(new CatalogDelta(List.of(
+                new CatalogDelta.Change(CatalogDelta.Operation.INSERT, "s3", movie("s3").country("France").duration("80 min").build()))));
+        assertEquals(1, result.inserted());
+        assertEquals(SortColumn.TITLE, model.getSortColumn());
+        assertEquals("s1", model.getMovieAt(0).showId());
+        assertEquals("s3", model.getMovieAt(2).showId());
+    }
+
+    @Test
+    public void testDeltaAcrossSeveralChunks() {
+        try {
+            int count = 3 * CatalogVersion.CHUNK_SIZE + 5;
+            List<Movie> movies = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                movies.add(movie("s" + i).country("Poland").build());
+            }
+            Model model = new Model(movies);
+            CatalogVersion before = model.getVersion();
+            int last = count - 1;
+            Movie updated = movie("s" + last).country("Spain").duration("60 min").build();
+            model.applyDelta(new CatalogDelta(List.of(
+                    new CatalogDelta.Change(CatalogDelta.Operation.DELETE, "s0", null),
+                    new CatalogDelta.Change(CatalogDelta.Operation.DELETE, "s" + CatalogVersion.CHUNK_SIZE, null),
+                    new CatalogDelta.Change(CatalogDelta.Operation.UPDATE, "s" + last, updated),
+                    new CatalogDelta.Change(CatalogDelta.Operation.INSERT, "s" + count, movie("s" + count).build()))));
+
+            List<Movie> expected = new ArrayList<>(movies);
+            expected.remove(CatalogVersion.CHUNK_SIZE);
+            expected.remove(0);
+            expected.set(expected.size() - 1, updated);
+            expected.add(model.getMovieById("s" + count));
+            assertEquals(expected, model.getMovies());
+            assertEquals(movies, before.getMovies());
+            assertSame(movies.get(2 * CatalogVersion.CHUNK_SIZE), model.getMovieAt(2 * CatalogVersion.CHUNK_SIZE - 2));
+
+            assertSame(movies.get(5), model.removeMovie("s5"));
+            assertEquals(count - 2, model.getMovieCount());
+            assertEquals("s6", model.getMovieAt(4).showId());
+            assertSame(updated, model.getMovieAt(count - 4));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package pl.polsl.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.polsl.model.TestMovies.movie;
+import java.util.List;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class DurationStatisticsTest {
+
+    @Test
+    public void testDurationIsParsedAtIngest() {
+        Movie movie = movie("s1").country("Poland").build();
+        assertEquals(90, movie.durationMinutes());
+        assertEquals(Movie.UNKNOWN_DURATION, movie.durationSeasons());
+        Movie show = movie("s2").type(MovieType.TV_SHOW).country("Poland").duration("1 Season").build();
+        assertEquals(1, show.durationSeasons());
+        assertEquals(Movie.UNKNOWN_DURATION, show.durationMinutes());
+        assertEquals(3, movie("s3").type(MovieType.TV_SHOW).duration("3 Seasons").build().durationSeasons());
+        assertEquals(Movie.UNKNOWN_DURATION, movie("s4").duration("N/A").build().durationMinutes());
+        assertEquals(Movie.UNKNOWN_DURATION, movie("s5").duration("90 minutes").build().durationMinutes());
+    }
+
+    @Test
+    public void testStatisticsFollowAddedAndRemovedMovies() {
+        DurationStatistics statistics = new DurationStatistics();
+        Movie shortMovie = movie("s1").country("Poland, France").duration("80 min").build();
+        Movie longMovie = movie("s2").country("Poland").duration("120 min").build();
+        statistics.add(shortMovie);
+        statistics.add(longMovie);
+        statistics.add(movie("s3").type(MovieType.TV_SHOW).country("Poland").duration("2 Seasons").build());
+        statistics.add(movie("s4").country("Poland").duration("").build());
+
+        assertEquals(new DurationStatistics.CountryDuration("Poland", MovieType.MOVIE, 2, 200, 80, 120),
+                statistics.get("Poland", MovieType.MOVIE));
+        assertEquals(100.0, statistics.get("Poland", MovieType.MOVIE).mean());
+        assertEquals(2, statistics.get("Poland", MovieType.TV_SHOW).max());
+        List<DurationStatistics.CountryDuration> movies = statistics.getByCountry(MovieType.MOVIE);
+        assertEquals(List.of("Poland", "France"), movies.stream().map(DurationStatistics.CountryDuration::country).toList());
+        assertSame(movies, statistics.getByCountry(MovieType.MOVIE));
+
+        statistics.remove(shortMovie);
+        assertEquals(120, statistics.get("Poland", MovieType.MOVIE).min());
+        assertNull(statistics.get("France", MovieType.MOVIE));
+        assertEquals(1, statistics.getByCountry(MovieType.MOVIE).size());
+    }
+
+    @Test
+    public void testParallelAggregationMatchesIncrementalStatistics() {
+        try {
+            Model model = new Model();
+            DurationStatistics parallel = DurationStatistics.of(model.getMovies());
+            for (MovieType type : MovieType.values()) {
+                assertFalse(model.getDurationsByCountry(type).isEmpty());
+                assertEquals(model.getDurationsByCountry(type), parallel.getByCountry(type));
+            }
+            DurationStatistics.CountryDuration before = model.getDuration("Poland", MovieType.MOVIE);
+            Movie added = new Movie("s999999", MovieType.MOVIE, "Added", "", "", "Poland", "", 2020, "", "1000 min", "", "");
+            model.addMovie(added);
+            assertEquals(before.count() + 1, model.getDuration("Poland", MovieType.MOVIE).count());
+            assertEquals(1000, model.getDuration("Poland", MovieType.MOVIE).max());
+            model.removeMovie("s999999");
+            assertEquals(before, model.getDuration("Poland", MovieType.MOVIE));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+}
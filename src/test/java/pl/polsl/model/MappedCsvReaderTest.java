@@ -0,0 +1,65 @@
+package pl.polsl.model;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class MappedCsvReaderTest {
+    
+    @TempDir
+    Path tempDir;
+    
+    @Test
+    public void testSmallWindowMatchesCharacterReader() throws IOException {
+        Path csvFile = tempDir.resolve("titles.csv");
+        try (InputStream inputStream = getClass().getClassLoader().getResourceAsStream(MovieCsvReader.DEFAULT_RESOURCE)) {
+            Files.copy(inputStream, csvFile);
+        }
+        
+        try (MappedCsvReader mapped = new MappedCsvReader(csvFile, 4096);
+                MovieCsvReader reader = MovieCsvReader.fromFile(csvFile)) {
+            Movie expected;
+            int count = 0;
+            while ((expected = reader.readNext()) != null) {
+                assertEquals(expected, mapped.readNext());
+                count++;
+            }
+            assertNull(mapped.readNext());
+            assertTrue(count > 8000);
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testQuotedFieldsAndCrLf() throws IOException {
+        String csv = "show_id,type,title,director,cast,country,date_added,release_year,rating,duration,listed_in,description\r\n"
+                + "s1,TV Show,\" Padded \",,,\"Poland, Czechia\",\"May 5, 2021\",2020,TV-MA,2 Seasons,Dramas,\"Say \"\"hi\"\"\r\nagain\"\r\n"
+                + "s2,Movie,Last,,,,,2001,,,,No newline";
+        Path csvFile = tempDir.resolve("quoted.csv");
+        Files.writeString(csvFile, csv);
+        
+        try (MappedCsvReader mapped = new MappedCsvReader(csvFile);
+                MovieCsvReader reader = new MovieCsvReader(new StringReader(csv))) {
+            Movie first = mapped.readNext();
+            assertEquals(reader.readNext(), first);
+            assertEquals("Padded", first.title());
+            assertEquals(MovieType.TV_SHOW, first.type());
+            assertEquals("Say \"hi\"\nagain", first.description());
+            assertEquals(reader.readNext(), mapped.readNext());
+            assertNull(mapped.readNext());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+}
@@ -1,8 +1,18 @@
 package pl.polsl.model;
 
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Stream;
 /**
  *
  * @author Karolina
@@ -10,6 +20,20 @@ import java.util.List;
  */
 public class ModelTest {
     
+    @TempDir
+    Path tempDir;
+    
+    @BeforeEach
+    public void setUp() {
+        // Loading in snapshot mode and reading in batches write snapshots of the bundled catalog.
+        System.setProperty(BinarySnapshot.CACHE_DIRECTORY_PROPERTY, tempDir.toString());
+    }
+    
+    @AfterEach
+    public void tearDown() {
+        System.clearProperty(BinarySnapshot.CACHE_DIRECTORY_PROPERTY);
+    }
+    
     @Test
     public void testGetMovieById() {
         try {
@@ -44,4 +68,464 @@ public class ModelTest {
         }
     }
     
+    @Test
+    public void testGetMovieByIdRejectsInvalidFormat() {
+        try {
+            Model model = new Model();
+            assertThrows(InvalidMovieIdException.class, () -> model.getMovieById("x1"));
+            assertThrows(InvalidMovieIdException.class, () -> model.getMovieById("s"));
+            assertNull(model.getMovieById("s999999"));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testAddAndRemoveMovieKeepsIndexInSync() {
+        try {
+            Model model = new Model();
+            int size = model.getMovies().size();
+            Movie movie = new Movie("s999999", MovieType.MOVIE, "Test Title", "", "", "Poland",
+                    "January 1, 2020", 2019, "PG", "90 min", "Dramas", "Test description");
+            model.addMovie(movie);
+            assertSame(movie, model.getMovieById("s999999"));
+            assertThrows(IllegalArgumentException.class, () -> model.addMovie(movie));
+            
+            assertSame(movie, model.removeMovie("s999999"));
+            assertNull(model.getMovieById("s999999"));
+            assertEquals(size, model.getMovies().size());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testStreamingMatchesLoadedCatalog() {
+        try (Stream<Movie> stream = Model.streamMoviesFromCsv()) {
+            Model model = new Model();
+            assertEquals(model.getCountryWithMostMovies(), Model.getCountryWithMostMovies(stream));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testReadBatchConsumesWholeFile() {
+        try (MovieCsvReader reader = MovieCsvReader.fromClasspath(MovieCsvReader.DEFAULT_RESOURCE)) {
+            Model model = new Model();
+            int total = 0;
+            List<Movie> batch;
+            while (!(batch = reader.readBatch(1000)).isEmpty()) {
+                assertTrue(batch.size() <= 1000);
+                assertEquals(model.getMovies().get(total), batch.get(0));
+                total += batch.size();
+            }
+            assertEquals(model.getMovies().size(), total);
+        } catch (InvalidMovieIdException | IOException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testParallelAndMappedLoadsMatchSerialLoad() {
+        try {
+            Model serial = new Model(LoadMode.SERIAL);
+            Model parallel = new Model(LoadMode.PARALLEL);
+            Model mapped = new Model(LoadMode.MAPPED);
+            assertEquals(serial.getMovies(), parallel.getMovies());
+            assertEquals(serial.getMovies(), mapped.getMovies());
+            assertSame(parallel.getMovies().get(100), parallel.getMovieById(parallel.getMovies().get(100).showId()));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testSortMoviesByDateAdded() {
+        try {
+            Model model = new Model();
+            List<Movie> catalogOrder = List.copyOf(model.getMovies());
+            model.sortMoviesByDateAdded(true);
+            assertEquals(catalogOrder, model.getMovies());
+            assertNotEquals(Movie.UNKNOWN_DATE, model.getMovieAt(0).dateAddedDay());
+            for (int i = 1; i < model.getMovieCount(); i++) {
+                int previous = model.getMovieAt(i - 1).dateAddedDay();
+                int current = model.getMovieAt(i).dateAddedDay();
+                assertTrue(current == Movie.UNKNOWN_DATE || (previous != Movie.UNKNOWN_DATE && previous <= current));
+            }
+            
+            model.sortMoviesByDateAdded(false);
+            assertTrue(model.getMovieAt(0).dateAddedDay() >= model.getMovieAt(1).dateAddedDay());
+            assertEquals(Movie.UNKNOWN_DATE, model.getMovieAt(model.getMovieCount() - 1).dateAddedDay());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testSortOrdersAreCachedPerColumn() {
+        try {
+            Model model = new Model();
+            SortOrder byTitle = model.getSortOrder(SortColumn.TITLE);
+            assertSame(byTitle, model.getSortOrder(SortColumn.TITLE));
+            
+            model.sortMovies(SortColumn.TITLE, true);
+            for (int i = 1; i < model.getMovieCount(); i++) {
+                assertTrue(String.CASE_INSENSITIVE_ORDER.compare(model.getMovieAt(i - 1).title(),
+                        model.getMovieAt(i).title()) <= 0);
+            }
+            model.sortMovies(SortColumn.RELEASE_YEAR, false);
+            for (int i = 1; i < model.getMovieCount(); i++) {
+                assertTrue(model.getMovieAt(i - 1).releaseYear() >= model.getMovieAt(i).releaseYear());
+            }
+            model.sortMovies(SortColumn.DURATION, true);
+            assertEquals(MovieColumns.NO_MINUTES, model.getMovieAt(model.getMovieCount() - 1).durationMinutes());
+            assertSame(byTitle, model.getSortOrder(SortColumn.TITLE));
+            
+            model.removeMovie("s1");
+            assertNotSame(byTitle, model.getSortOrder(SortColumn.TITLE));
+            assertNull(model.getSortColumn());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testReleaseDateDifferenceUsesParsedDate() {
+        Movie movie = new Movie("s1", MovieType.MOVIE, "Title", "", "", "", "January 11, 2021",
+                2021, "", "", "", "");
+        assertEquals(10, movie.getReleaseDateDifference());
+        assertEquals(Movie.UNKNOWN_DATE, Movie.parseDateAdded("not a date"));
+        assertEquals(Long.MAX_VALUE, new Movie("s2", MovieType.MOVIE, "Title", "", "", "", "",
+                2021, "", "", "", "").getReleaseDateDifference());
+    }
+    
+    @Test
+    public void testColumnsFollowMovieList() {
+        try {
+            Model model = new Model();
+            MovieColumns columns = model.getColumns();
+            assertEquals(model.getMovies().size(), columns.size());
+            Movie first = model.getMovies().get(0);
+            assertEquals(first.country(), columns.getCountry(0));
+            assertEquals(first.type(), columns.getType(0));
+            assertEquals(first.dateAddedDay(), columns.getDateAdded(0));
+            assertEquals(90, columns.getDurationMinutes(0));
+            
+            model.addMovie(new Movie("s999999", MovieType.MOVIE, "Test Title", "", "", "Poland",
+                    "January 1, 2020", 2019, "PG", "90 min", "Dramas", "Test description"));
+            assertNotSame(columns, model.getColumns());
+            assertEquals("Poland", model.getColumns().getCountry(columns.size()));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testRepeatedValuesAreShared() {
+        try {
+            for (LoadMode mode : LoadMode.values()) {
+                Model model = new Model(mode);
+                Movie first = model.getMovieById("s4");
+                Movie second = model.getMovieById("s11");
+                assertEquals("TV-MA", first.rating());
+                assertSame(first.rating(), second.rating());
+                assertSame(first.duration(), second.duration());
+                assertSame(model.getMovieById("s1").country(), model.getMovieById("s16").country());
+                
+                for (MovieInterner.ColumnReport report : model.getMemoryReport()) {
+                    assertTrue(report.bytesWith() <= report.bytesWithout());
+                    assertEquals(model.getMovies().size(), report.rows());
+                }
+            }
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testTopCountriesSplitMultiCountryValues() {
+        try {
+            Model model = new Model();
+            List<CountryCounter.CountryCount> top = model.getTopCountries(3);
+            assertEquals(3, top.size());
+            assertEquals("United States", top.get(0).country());
+            assertEquals("India", top.get(1).country());
+            long unitedStates = model.getMovies().stream()
+                    .filter(movie -> CountryCounter.splitCountries(movie.country()).contains("United States"))
+                    .count();
+            assertEquals(unitedStates, top.get(0).count());
+            
+            for (int i = 0; i < 2 * unitedStates; i++) {
+                model.addMovie(new Movie("s" + (100000 + i), MovieType.MOVIE, "Title", "", "", "Poland, India",
+                        "", 2020, "", "", "", ""));
+            }
+            assertEquals("India", model.getCountryWithMostMovies());
+            for (int i = 0; i < 2 * unitedStates; i++) {
+                model.removeMovie("s" + (100000 + i));
+            }
+            assertEquals("United States", model.getCountryWithMostMovies());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testRepeatedCountryIsCountedOnce() {
+        Movie movie = new Movie("s1", MovieType.MOVIE, "Title", "", "", "Poland, Poland , India",
+                "", 2020, "", "90 min", "Dramas", "");
+        Model model = new Model(List.of(movie));
+        assertEquals(List.of("Poland", "India"), CountryCounter.splitCountries(movie.country()));
+        assertEquals(List.of(new CountryCounter.CountryCount("India", 1), new CountryCounter.CountryCount("Poland", 1)),
+                model.getTopCountries(5));
+        assertEquals(List.of(movie), model.getMoviesFromCountry("Poland"));
+        assertEquals(1, model.getDuration("Poland", MovieType.MOVIE).count());
+        assertEquals(90, model.getDuration("Poland", MovieType.MOVIE).sum());
+    }
+    
+    @Test
+    public void testReadCatalogInBatches() {
+        try {
+            Model reference = new Model();
+            Model model = new Model(List.of());
+            List<Integer> progress = new ArrayList<>();
+            model.readCatalogInBatches(null, 1000, (batch, percent) -> {
+                assertTrue(batch.size() <= 1000);
+                model.addMovies(batch);
+                progress.add(percent);
+            });
+            assertEquals(reference.getMovies(), model.getMovies());
+            assertEquals(reference.getCountryWithMostMovies(), model.getCountryWithMostMovies());
+            assertNotNull(model.getMovieById("s1"));
+            for (int i = 1; i < progress.size(); i++) {
+                assertTrue(progress.get(i - 1) <= progress.get(i));
+            }
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testVersionsAreIsolatedFromLaterChanges() {
+        try {
+            Model model = new Model();
+            model.sortMovies(SortColumn.TITLE, true);
+            CatalogVersion before = model.getVersion();
+            List<Movie> movies = List.copyOf(before.getMovies());
+            Movie firstDisplayed = before.getMovieAt(0);
+            assertThrows(UnsupportedOperationException.class, () -> model.getMovies().add(firstDisplayed));
+            
+            model.addMovie(new Movie("s100000", MovieType.MOVIE, "Title", "", "", "", "", 2020, "", "", "", ""));
+            model.removeMovie("s1");
+            assertEquals(movies, before.getMovies());
+            assertSame(firstDisplayed, before.getMovieAt(0));
+            assertEquals(SortColumn.TITLE, before.getSortColumn());
+            assertEquals(movies.size(), before.getColumns().size());
+            assertNull(model.getSortColumn());
+            assertEquals(movies.size(), model.getMovieCount());
+            assertNotEquals(before.getModificationCount(), model.getModificationCount());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testModelsStartingEmptyDoNotShareRows() {
+        Model first = new Model(List.of());
+        Model second = new Model(List.of());
+        Movie x = new Movie("s1", MovieType.MOVIE, "X", "", "", "", "", 2020, "", "", "", "");
+        Movie y = new Movie("s1", MovieType.MOVIE, "Y", "", "", "", "", 2021, "", "", "", "");
+        first.addMovie(x);
+        second.addMovie(y);
+        assertSame(x, first.getMovies().get(0));
+        assertSame(y, second.getMovies().get(0));
+        assertSame(x, first.getVersion().getMovieAt(0));
+    }
+    
+    @Test
+    public void testReadersSeeConsistentVersionsWhileWriting() throws InterruptedException {
+        Model model = new Model(List.of());
+        List<Throwable> failures = new ArrayList<>();
+        Thread reader = new Thread(() -> {
+            try {
+                while (model.getMovieCount() < 2000) {
+                    CatalogVersion version = model.getVersion();
+                    assertEquals(version.size(), version.getColumns().size());
+                    for (int row = 0; row < version.size(); row++) {
+                        assertNotNull(version.getMovieAt(row));
+                    }
+                }
+            } catch (Throwable e) {
+                failures.add(e);
+            }
+        });
+        reader.start();
+        for (int i = 1; i <= 2000; i++) {
+            model.addMovie(new Movie("s" + i, MovieType.MOVIE, "Title " + i, "", "", "", "", 2020, "", "", "", ""));
+        }
+        reader.join();
+        assertEquals(List.of(), failures);
+    }
+    
+    @Test
+    public void testApplySortOrderRejectsOutdatedOrder() {
+        try {
+            Model model = new Model();
+            int modificationCount = model.getModificationCount();
+            SortOrder order = model.getSortOrder(SortColumn.DATE_ADDED);
+            assertEquals(model.getMovieCount(), order.size());
+            
+            model.addMovie(new Movie("s100000", MovieType.MOVIE, "Title", "", "", "Poland",
+                    "", 2020, "", "", "", ""));
+            assertFalse(model.applySortOrder(SortColumn.DATE_ADDED, order, true, modificationCount));
+            assertNull(model.getSortColumn());
+            
+            modificationCount = model.getModificationCount();
+            order = model.getSortOrder(SortColumn.DATE_ADDED);
+            assertTrue(model.applySortOrder(SortColumn.DATE_ADDED, order, true, modificationCount));
+            assertEquals(SortColumn.DATE_ADDED, model.getSortColumn());
+            assertEquals("s100000", model.getMovieAt(model.getMovieCount() - 1).showId());
+            
+            model.addMovie(new Movie("s100001", MovieType.MOVIE, "Title", "", "", "Poland",
+                    "January 1, 2000", 2000, "", "", "", ""));
+            assertEquals("s100001", model.getMovieAt(model.getMovieCount() - 1).showId());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testSearch() {
+        try {
+            Model model = new Model();
+            List<SearchIndex.Hit> hits = model.search("dick johnson");
+            assertEquals("s1", hits.get(0).movie().showId());
+            for (int i = 1; i < hits.size(); i++) {
+                assertTrue(hits.get(i - 1).score() >= hits.get(i).score());
+            }
+            assertTrue(model.search("love").size() <= Model.SEARCH_LIMIT);
+            
+            model.removeMovie("s1");
+            assertTrue(model.search("dick johnson").stream().noneMatch(hit -> hit.movie().showId().equals("s1")));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testFacetsMatchSplitFields() {
+        try {
+            Model model = new Model();
+            String actor = "Sami Bouajila";
+            List<Movie> expected = model.getMovies().stream()
+                    .filter(movie -> MultiValueIndex.split(movie.cast()).contains(actor)).toList();
+            assertFalse(expected.isEmpty());
+            assertEquals(expected, model.getMoviesWithCastMember(actor));
+            
+            List<Movie> polish = model.getMoviesFromCountry("Poland");
+            assertEquals(model.getMovies().stream()
+                    .filter(movie -> MultiValueIndex.split(movie.country()).contains("Poland")).toList(), polish);
+            List<MultiValueIndex.ValueCount> genres = model.getGenreCountsByCountry("Poland");
+            for (MultiValueIndex.ValueCount genre : genres) {
+                assertEquals(polish.stream()
+                        .filter(movie -> MultiValueIndex.split(movie.listedIn()).contains(genre.value())).count(),
+                        genre.count());
+            }
+            for (int i = 1; i < genres.size(); i++) {
+                assertTrue(genres.get(i - 1).count() >= genres.get(i).count());
+            }
+            assertEquals(model.getMoviesInGenre("Documentaries").size(), model.getMovies().stream()
+                    .filter(movie -> MultiValueIndex.split(movie.listedIn()).contains("Documentaries")).count());
+            
+            Movie removed = polish.get(0);
+            model.removeMovie(removed.showId());
+            assertFalse(model.getMoviesFromCountry("Poland").contains(removed));
+            assertTrue(model.getMoviesWithCastMember("Nobody In Particular").isEmpty());
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testGetMoviesByIds() {
+        try {
+            Model model = new Model();
+            List<MovieLookup> lookups = model.getMoviesByIds(List.of("s1", "s0", "x1", "s999999", "S1"));
+            assertEquals(List.of(MovieLookup.Status.FOUND, MovieLookup.Status.NOT_FOUND, MovieLookup.Status.INVALID,
+                    MovieLookup.Status.NOT_FOUND, MovieLookup.Status.INVALID),
+                    lookups.stream().map(MovieLookup::status).toList());
+            assertSame(model.getMovieById("s1"), lookups.get(0).movie());
+            assertEquals(model.getMovieById("s1").getReleaseDateDifference(), lookups.get(0).releaseDifference());
+            assertNull(lookups.get(1).movie());
+
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < 20000; i++) {
+                ids.add(i % 7 == 0 ? "bad" + i : "s" + i);
+            }
+            Movie[] movies = new Movie[ids.size()];
+            MovieLookup.Status[] statuses = new MovieLookup.Status[ids.size()];
+            model.getMoviesByIds(ids, movies, statuses);
+            for (int i = 0; i < ids.size(); i++) {
+                if (i % 7 == 0) {
+                    assertEquals(MovieLookup.Status.INVALID, statuses[i]);
+                } else {
+                    assertSame(model.getMovieById(ids.get(i)), movies[i]);
+                }
+            }
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testDisplayReadsDoNotWaitForWriter() {
+        Movie first = new Movie("s1", MovieType.MOVIE, "First", "", "", "Poland", "", 2020, "", "90 min", "", "");
+        Model model = new Model(List.of(first));
+        CountDownLatch writing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        model.getSwingPropChangeFirer().addPropertyChangeListener(Model.CATALOG, event -> {
+            writing.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        Thread writer = new Thread(() -> model.addMovie(
+                new Movie("s2", MovieType.MOVIE, "Second", "", "", "Spain", "", 2021, "", "60 min", "", "")));
+        writer.start();
+        try {
+            writing.await();
+            // The writer holds the write lock of the model until the listener returns.
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                assertEquals(2, model.getMovieCount());
+                assertEquals(2, model.getVersion().size());
+                assertSame(first, model.getMovieAt(0));
+                assertNull(model.getSortColumn());
+                assertNotNull(model.getSortOrder(SortColumn.TITLE));
+            });
+        } catch (InterruptedException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        } finally {
+            release.countDown();
+        }
+        try {
+            writer.join();
+        } catch (InterruptedException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testOptionalIndexesCanBeLeftOut() {
+        try {
+            Model model = new Model(null, LoadMode.SERIAL, EnumSet.noneOf(OptionalIndex.class));
+            assertEquals("Dick Johnson Is Dead", model.getMovieById("s1").title());
+            assertEquals("United States", model.getCountryWithMostMovies());
+            assertThrows(IllegalStateException.class, () -> model.search("dick johnson"));
+            assertThrows(IllegalStateException.class, () -> model.getMoviesFromCountry("Poland"));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,84 @@
+package pl.polsl.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.polsl.model.TestMovies.movie;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class MovieColumnsTest {
+    
+    private static List<String> ids(MovieColumns columns, List<Movie> movies, SortColumn column, boolean ascending) {
+        SortOrder order = columns.getSortOrder(column);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < order.size(); i++) {
+            ids.add(movies.get(order.rowAt(i, ascending)).showId());
+        }
+        return ids;
+    }
+    
+    @Test
+    public void testEqualValuesAreOrderedByShowIdInBothDirections() {
+        List<Movie> movies = List.of(movie("s30").title("b").releaseYear(2001).build(),
+                movie("s4").title("B").releaseYear(2000).build(), movie("s100").title("a").releaseYear(2001).build(),
+                movie("s2").title("").releaseYear(0).build(), movie("s1").title("c").releaseYear(2000).build(),
+                movie("x").title("a").releaseYear(2001).build());
+        MovieColumns columns = new MovieColumns(movies);
+        
+        assertEquals(List.of("s1", "s4", "s30", "s100", "x", "s2"),
+                ids(columns, movies, SortColumn.RELEASE_YEAR, true));
+        assertEquals(List.of("s30", "s100", "x", "s1", "s4", "s2"),
+                ids(columns, movies, SortColumn.RELEASE_YEAR, false));
+        assertEquals(List.of("s100", "x", "s4", "s30", "s1", "s2"),
+                ids(columns, movies, SortColumn.TITLE, true));
+        assertEquals(List.of("s1", "s4", "s30", "s100", "x", "s2"),
+                ids(columns, movies, SortColumn.TITLE, false));
+        assertEquals(List.of("s1", "s2", "s4", "s30", "s100", "x"),
+                ids(columns, movies, SortColumn.DATE_ADDED, true));
+    }
+    
+    @Test
+    public void testSortOrderIsIndependentOfCatalogOrder() {
+        try {
+            Model model = new Model();
+            List<Movie> reversed = new ArrayList<>(model.getMovies());
+            Collections.reverse(reversed);
+            for (SortColumn column : SortColumn.values()) {
+                for (boolean ascending : new boolean[] {true, false}) {
+                    assertEquals(ids(new MovieColumns(model.getMovies()), model.getMovies(), column, ascending),
+                            ids(new MovieColumns(reversed), reversed, column, ascending));
+                }
+            }
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testReleaseDifferencesAreComputedOncePerSnapshot() {
+        try {
+            Model model = new Model();
+            MovieColumns columns = model.getColumns();
+            long[] differences = columns.getReleaseDifferences();
+            assertSame(differences, columns.getReleaseDifferences());
+            for (int row = 0; row < columns.size(); row++) {
+                assertEquals(model.getMovies().get(row).getReleaseDateDifference(), columns.getReleaseDifference(row));
+            }
+            Movie first = model.getMovies().get(0);
+            assertEquals(first.title() + ": " + first.getReleaseDateDifference() + " days",
+                    model.getMoviesWithReleaseDifferences().get(0));
+            
+            model.removeMovie(first.showId());
+            assertNotSame(differences, model.getColumns().getReleaseDifferences());
+            assertEquals(differences.length - 1, model.getColumns().getReleaseDifferences().length);
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package pl.polsl.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.polsl.model.TestMovies.movie;
+import java.util.List;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class MovieQueryTest {
+    
+    @Test
+    public void testAggregatesOfExplodedGroups() {
+        Model model = new Model(List.of(
+                movie("s1").country("Poland, France").duration("80 min").listedIn("Dramas").build(),
+                movie("s2").country("Poland").releaseYear(2019).duration("100 min").listedIn("Dramas, Comedies").build(),
+                movie("s3").country("Poland").releaseYear(2018).duration("120 min").listedIn("Comedies").build(),
+                movie("s4").type(MovieType.TV_SHOW).country("Poland").releaseYear(2021).duration("2 Seasons")
+                        .listedIn("Dramas").build(),
+                movie("s5").releaseYear(2021).listedIn("Dramas").build()));
+        
+        MovieQuery.Result result = model.query(MovieQuery.groupBy(GroupField.COUNTRIES)
+                .aggregate(MovieQuery.Aggregate.count(), MovieQuery.Aggregate.avg(Metric.DURATION_MINUTES),
+                        MovieQuery.Aggregate.min(Metric.DURATION_MINUTES), MovieQuery.Aggregate.max(Metric.DURATION_MINUTES),
+                        MovieQuery.Aggregate.percentile(Metric.DURATION_MINUTES, 50),
+                        MovieQuery.Aggregate.sum(Metric.DURATION_SEASONS))
+                .orderBy(0, false));
+        assertEquals(List.of("COUNTRIES", "count", "avg(DURATION_MINUTES)", "min(DURATION_MINUTES)",
+                "max(DURATION_MINUTES)", "p50(DURATION_MINUTES)", "sum(DURATION_SEASONS)"), result.columns());
+        assertEquals(List.of(
+                new MovieQuery.Row("Poland", List.of(4.0, 100.0, 80.0, 120.0, 100.0, 2.0)),
+                new MovieQuery.Row("France", List.of(1.0, 80.0, 80.0, 80.0, 80.0, Double.NaN))), result.rows());
+        
+        MovieQuery.Result dramas = model.query(MovieQuery.groupBy(GroupField.GENRE)
+                .where(MovieQuery.typeIs(MovieType.MOVIE))
+                .where(MovieQuery.between(Metric.RELEASE_YEAR, 2019, 2021))
+                .where(MovieQuery.has(GroupField.COUNTRIES, "Poland"))
+                .aggregate(MovieQuery.Aggregate.count())
+                .limit(1));
+        assertEquals(List.of(new MovieQuery.Row("Comedies", List.of(1.0))), dramas.rows());
+        assertTrue(model.query(MovieQuery.groupBy(GroupField.TYPE)
+                .where(MovieQuery.has(GroupField.COUNTRY, "Germany"))).rows().isEmpty());
+        assertThrows(IllegalArgumentException.class,
+                () -> model.query(MovieQuery.groupBy(GroupField.TYPE).orderBy(0, true)));
+    }
+    
+    @Test
+    public void testQueriesMatchIndexedStatistics() {
+        try {
+            Model model = new Model();
+            MovieQuery.Result countries = model.query(MovieQuery.groupBy(GroupField.COUNTRIES)
+                    .aggregate(MovieQuery.Aggregate.count())
+                    .orderBy(0, false)
+                    .limit(5));
+            List<CountryCounter.CountryCount> top = model.getTopCountries(5);
+            for (int i = 0; i < top.size(); i++) {
+                assertEquals(top.get(i).country(), countries.rows().get(i).key());
+                assertEquals(top.get(i).count(), countries.rows().get(i).value(0));
+            }
+            
+            MovieQuery.Result durations = model.query(MovieQuery.groupBy(GroupField.COUNTRIES)
+                    .where(MovieQuery.typeIs(MovieType.MOVIE))
+                    .aggregate(MovieQuery.Aggregate.avg(Metric.DURATION_MINUTES),
+                            MovieQuery.Aggregate.max(Metric.DURATION_MINUTES)));
+            for (MovieQuery.Row row : durations.rows()) {
+                DurationStatistics.CountryDuration expected = model.getDuration(row.key(), MovieType.MOVIE);
+                if (expected != null) {
+                    assertEquals(expected.mean(), row.value(0), 1e-9);
+                    assertEquals(expected.max(), row.value(1));
+                }
+            }
+            
+            Movie first = model.getMovies().get(0);
+            MovieQuery.Result withCast = model.query(MovieQuery.groupBy(GroupField.TYPE)
+                    .where(MovieQuery.has(GroupField.CAST, "Sami Bouajila"))
+                    .aggregate(MovieQuery.Aggregate.count()));
+            assertEquals(model.getMoviesWithCastMember("Sami Bouajila").size(),
+                    withCast.rows().stream().mapToDouble(row -> row.value(0)).sum());
+            assertEquals(first.getReleaseDateDifference(), model.query(MovieQuery.groupBy(GroupField.DIRECTOR)
+                    .where(MovieQuery.has(GroupField.COUNTRY, first.country()))
+                    .where(MovieQuery.has(GroupField.DIRECTOR, first.director()))
+                    .aggregate(MovieQuery.Aggregate.min(Metric.DAYS_TO_PLATFORM))).rows().get(0).value(0));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package pl.polsl.model;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class ParallelCsvLoaderTest {
+    
+    /**
+     * Builds a CSV file whose descriptions contain quoted line breaks and escaped quotes.
+     *
+     * @param rows the number of movies.
+     * @return the content of the file.
+     */
+    private static byte[] csvWithQuotedLineBreaks(int rows) {
+        StringBuilder csv = new StringBuilder("show_id,type,title,director,cast,country,date_added,"
+                + "release_year,rating,duration,listed_in,description\n");
+        for (int i = 1; i <= rows; i++) {
+            csv.append('s').append(i).append(",Movie,\"Title, part ").append(i)
+                    .append("\",,,Poland,\"January 1, 2020\",2019,PG,90 min,Dramas,\"Line one\nline \"\"two\"\"\"\n");
+        }
+        return csv.toString().getBytes(StandardCharsets.UTF_8);
+    }
+    
+    /**
+     * Checks the movies loaded from {@link #csvWithQuotedLineBreaks(int)}.
+     *
+     * @param rows the number of movies in the file.
+     * @param movies the movies loaded.
+     */
+    private static void assertMovies(int rows, List<Movie> movies) {
+        assertEquals(rows, movies.size());
+        for (int i = 0; i < movies.size(); i++) {
+            assertEquals("s" + (i + 1), movies.get(i).showId());
+            assertEquals("Line one\nline \"two\"", movies.get(i).description());
+        }
+    }
+    
+    @Test
+    public void testRangesDoNotSplitQuotedLineBreaks() {
+        byte[] data = csvWithQuotedLineBreaks(20000);
+        
+        try (ForkJoinPool pool = new ForkJoinPool(8)) {
+            assertMovies(20000, new ParallelCsvLoader(pool).load(data));
+        } catch (InvalidMovieIdException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+    
+    @Test
+    public void testLoadsMappedFile() {
+        try (ForkJoinPool pool = new ForkJoinPool(8)) {
+            Path file = Files.createTempFile("parallel", ".csv");
+            try {
+                Files.write(file, csvWithQuotedLineBreaks(20000));
+                assertMovies(20000, new ParallelCsvLoader(pool).load(file));
+            } finally {
+                Files.delete(file);
+            }
+        } catch (InvalidMovieIdException | IOException e) {
+            fail("Unexpected exception: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package pl.polsl.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+import static pl.polsl.model.TestMovies.movie;
+import java.util.List;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class SearchIndexTest {
+    
+    private static List<String> ids(List<SearchIndex.Hit> hits) {
+        return hits.stream().map(hit -> hit.movie().showId()).toList();
+    }
+    
+    @Test
+    public void testTokenize() {
+        assertEquals(List.of("spider", "man", "2099"), SearchIndex.tokenize("Spider-Man: 2099!"));
+        assertEquals(List.of("zażółć", "gęślą"), SearchIndex.tokenize("ZAŻÓŁĆ gęślą"));
+        assertTrue(SearchIndex.tokenize(null).isEmpty());
+    }
+    
+    @Test
+    public void testAndOrPrefixQueriesAndRanking() {
+        SearchIndex index = new SearchIndex();
+        index.add(movie("s1").title("Ocean Stories").cast("Anna Nowak")
+                .description("A documentary about whales.").build());
+        index.add(movie("s2").title("City Lights").cast("Jan Kowalski")
+                .description("Whales appear in the city ocean.").build());
+        index.add(movie("s3").title("Whale Song").cast("Anna Kowalska")
+                .description("A story of the sea.").build());
+        
+        assertEquals(List.of("s1", "s2"), ids(index.search("ocean", 10)));
+        assertEquals(List.of("s2"), ids(index.search("whales AND city", 10)));
+        List<String> whales = ids(index.search("whale*", 10));
+        assertEquals(3, whales.size());
+        assertEquals("s3", whales.get(0));
+        assertEquals(List.of("s2", "s3"), ids(index.search("kowal*", 10)).stream().sorted().toList());
+        assertEquals(2, index.search("nowak OR song", 10).size());
+        assertEquals(1, index.search("ocean", 1).size());
+        assertTrue(index.search("submarine", 10).isEmpty());
+        assertTrue(index.search("   ", 10).isEmpty());
+    }
+    
+    @Test
+    public void testRemovedMoviesAreNotFound() {
+        SearchIndex index = new SearchIndex();
+        Movie[] movies = new Movie[50];
+        for (int i = 0; i < movies.length; i++) {
+            movies[i] = movie("s" + i).title("Title " + i).description(i % 2 == 0 ? "even" : "odd").build();
+            index.add(movies[i]);
+        }
+        for (int i = 0; i < 40; i++) {
+            index.remove(movies[i]);
+        }
+        assertEquals(10, index.size());
+        assertEquals(List.of("s40", "s42", "s44", "s46", "s48"),
+                ids(index.search("even", 10)).stream().sorted().toList());
+        index.add(movies[0]);
+        assertEquals(6, index.search("even", 10).size());
+    }
+}
@@ -0,0 +1,85 @@
+package pl.polsl.model;
+
+import org.junit.jupiter.api.Test;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public class ShowIdIndexTest {
+    
+    @Test
+    public void testParseKey() {
+        assertEquals(1, ShowIdIndex.parseKey("s1"));
+        assertEquals(8807, ShowIdIndex.parseKey("s8807"));
+        assertEquals(-1, ShowIdIndex.parseKey("s"));
+        assertEquals(-1, ShowIdIndex.parseKey("S1"));
+        assertEquals(-1, ShowIdIndex.parseKey("s1a"));
+        assertEquals(-1, ShowIdIndex.parseKey("s12345678901"));
+        assertEquals(-1, ShowIdIndex.parseKey(null));
+        assertEquals(0, ShowIdIndex.parseKey("s0"));
+        assertEquals(-1, ShowIdIndex.parseKey("s01"));
+    }
+    
+    @Test
+    public void testIsValid() {
+        assertTrue(ShowIdIndex.isValid("s1"));
+        assertTrue(ShowIdIndex.isValid("s01"));
+        assertTrue(ShowIdIndex.isValid("s12345678901"));
+        assertFalse(ShowIdIndex.isValid("s"));
+        assertFalse(ShowIdIndex.isValid("S1"));
+        assertFalse(ShowIdIndex.isValid("s1a"));
+        assertFalse(ShowIdIndex.isValid(null));
+    }
+    
+    @Test
+    public void testNonCanonicalIdsAreDistinctKeys() {
+        ShowIdIndex index = new ShowIdIndex();
+        Movie canonical = new Movie("s1", MovieType.MOVIE, "One", "", "", "", "", 2000, "", "", "", "");
+        Movie padded = new Movie("s01", MovieType.MOVIE, "Zero One", "", "", "", "", 2000, "", "", "", "");
+        Movie longId = new Movie("s12345678901", MovieType.MOVIE, "Long", "", "", "", "", 2000, "", "", "", "");
+        assertNull(index.put("s1", canonical, 0));
+        assertNull(index.put("s01", padded, 1));
+        assertNull(index.put("s12345678901", longId, 2));
+        assertEquals(3, index.size());
+        assertSame(canonical, index.get("s1"));
+        assertSame(padded, index.get("s01"));
+        assertSame(longId, index.get("s12345678901"));
+        assertNull(index.get("s001"));
+        assertEquals(1, index.getRowId("s01"));
+        assertEquals(2, index.getRowId("s12345678901"));
+        assertEquals(-1, index.getRowId("s001"));
+        
+        assertSame(padded, index.remove("s01"));
+        assertSame(canonical, index.get("s1"));
+        assertNull(index.get("s01"));
+        assertEquals(2, index.size());
+        assertThrows(IllegalArgumentException.class, () -> index.put("s1a", canonical, 3));
+    }
+    
+    @Test
+    public void testPutGetRemoveAcrossResizes() {
+        ShowIdIndex index = new ShowIdIndex();
+        Movie[] movies = new Movie[1000];
+        for (int i = 0; i < movies.length; i++) {
+            movies[i] = new Movie("s" + i, MovieType.MOVIE, "Title " + i, "", "", "",
+                    "", 2000, "", "", "", "");
+            assertNull(index.put("s" + i, movies[i], i));
+        }
+        assertEquals(movies.length, index.size());
+        
+        for (int i = 0; i < movies.length; i += 2) {
+            assertSame(movies[i], index.remove("s" + i));
+        }
+        for (int i = 0; i < movies.length; i++) {
+            assertEquals(i % 2 == 0 ? null : movies[i], index.get("s" + i));
+        }
+        for (int i = 1; i < movies.length; i += 2) {
+            assertEquals(i, index.getRowId("s" + i));
+        }
+        assertEquals(movies.length / 2, index.size());
+        assertNull(index.remove("s0"));
+    }
+}
@@ -0,0 +1,95 @@
+package pl.polsl.model;
+
+/**
+ * Builder of the movies used as test data, with defaults for every field that a test does not set.
+ *
+ * @author Karolina
+ * @version 4.0
+ */
+public final class TestMovies {
+
+    private TestMovies() {
+    }
+
+    /**
+     * Starts a movie of type {@link MovieType#MOVIE} titled "Title &lt;id&gt;", released in 2020 and
+     * lasting 90 minutes, with all other fields empty.
+     *
+     * @param id the show ID of the movie.
+     * @return the builder of the movie.
+     */
+    public static Builder movie(String id) {
+        return new Builder(id);
+    }
+
+    /**
+     * Builder of one test movie.
+     */
+    public static final class Builder {
+        private final String id;
+        private MovieType type = MovieType.MOVIE;
+        private String title;
+        private String cast = "";
+        private String country = "";
+        private String dateAdded = "";
+        private int releaseYear = 2020;
+        private String duration = "90 min";
+        private String listedIn = "";
+        private String description = "";
+
+        private Builder(String id) {
+            this.id = id;
+            this.title = "Title " + id;
+        }
+
+        public Builder type(MovieType type) {
+            this.type = type;
+            return this;
+        }
+
+        public Builder title(String title) {
+            this.title = title;
+            return this;
+        }
+
+        public Builder cast(String cast) {
+            this.cast = cast;
+            return this;
+        }
+
+        public Builder country(String country) {
+            this.country = country;
+            return this;
+        }
+
+        public Builder dateAdded(String dateAdded) {
+            this.dateAdded = dateAdded;
+            return this;
+        }
+
+        public Builder releaseYear(int releaseYear) {
+            this.releaseYear = releaseYear;
+            return this;
+        }
+
+        public Builder duration(String duration) {
+            this.duration = duration;
+            return this;
+        }
+
+        public Builder listedIn(String listedIn) {
+            this.listedIn = listedIn;
+            return this;
+        }
+
+        public Builder description(String description) {
+            this.description = description;
+            return this;
+        }
+
+        public Movie build() {
+            return new Movie(id, type, title, "", cast, country, dateAdded, releaseYear, "", duration, listedIn,
+                    description);
+        }
+    }
+}